@@ -0,0 +1,50 @@
+package stickfight2d.animation;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.benchmarks.Headless;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame analysis (hitbox spans, sword mount points) of a single 64x64 tile.
+ * Lives in the animation package since calcFrameData is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimationDataBenchmark {
+
+    // Row 9 = PLAYER_STAB_LOW, a player tile with both sword mount points
+    @Param({"9"})
+    public int row;
+
+    private AnimationData animationData;
+    private BufferedImage original;
+    private BufferedImage tile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Headless.init();
+        BufferedImage spriteSheet = ImageIO.read(new File("src/spritesheet.png"));
+        original = spriteSheet.getSubimage(0, row * AnimationData.TILE_SIZE, AnimationData.TILE_SIZE, AnimationData.TILE_SIZE);
+        tile = new BufferedImage(original.getWidth(), original.getHeight(), original.getType());
+        animationData = new AnimationData();
+    }
+
+    /**
+     * calcFrameData paints over the mount point markers, so every call starts from a fresh copy of the tile
+     * (the copy is part of the measurement, the pixel scan dominates)
+     */
+    @Benchmark
+    public FrameData calcFrameData() {
+        original.copyData(tile.getRaster());
+        return animationData.calcFrameData(tile);
+    }
+}
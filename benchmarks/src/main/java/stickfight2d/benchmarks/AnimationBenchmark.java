@@ -0,0 +1,34 @@
+package stickfight2d.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.animation.Animation;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.enums.AnimationType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame advance of a looping player animation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimationBenchmark {
+
+    private Animation animation;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.init();
+        animation = AnimationFactory.getInstance().getAnimation(AnimationType.PLAYER_WALK);
+    }
+
+    @Benchmark
+    public int update() {
+        animation.update(16);
+        return animation.getCurrentFrameNumber();
+    }
+}
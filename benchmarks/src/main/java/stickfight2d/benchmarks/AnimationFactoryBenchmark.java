@@ -0,0 +1,38 @@
+package stickfight2d.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.misc.Config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of the asset pipeline: either sprite sheet decode, frame analysis and the 359 sword rotations,
+ * or loading the baked sprite atlas
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class AnimationFactoryBenchmark {
+
+    @Param({"false", "true"})
+    public boolean spriteAtlas;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.init();
+        Config.sprite_atlas_enabled = spriteAtlas;
+
+        // Bakes the atlas if there is none yet
+        AnimationFactory.getInstance();
+    }
+
+    @Benchmark
+    public AnimationFactory construct() {
+        AnimationFactory.resetInstance();
+        return AnimationFactory.getInstance();
+    }
+}
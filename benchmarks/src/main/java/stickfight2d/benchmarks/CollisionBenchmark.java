@@ -0,0 +1,31 @@
+package stickfight2d.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.controllers.CollisionController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One collision pass of a running fight (obstacles, hitboxes, sword clash, map boundaries),
+ * expected to report gc.alloc.rate.norm = 0 B/op
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollisionBenchmark {
+
+    private CollisionController collisionController;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        collisionController = Headless.fightingMatch(300).getContext().getCollisionController();
+    }
+
+    @Benchmark
+    public void update() {
+        collisionController.update(16);
+    }
+}
@@ -0,0 +1,36 @@
+package stickfight2d.benchmarks;
+
+import stickfight2d.MatchContext;
+import stickfight2d.Simulation;
+import stickfight2d.misc.Config;
+
+/**
+ * Shared setup of the benchmarks: no window, no toolkit, assets are read from the project root
+ */
+public final class Headless {
+
+    private Headless() {
+    }
+
+    public static void init() {
+        System.setProperty("java.awt.headless", "true");
+        Config.headless_mode = true;
+    }
+
+    /**
+     * Both players walk towards each other and stab until they are in reach, the returned match is mid-fight.
+     * It becomes the shared MatchContext, the benchmarks call into it outside of its steps.
+     */
+    public static Simulation fightingMatch(int ticks) {
+        init();
+        Simulation simulation = new Simulation();
+        MatchContext.setShared(simulation.getContext());
+        int maskP1 = Config.keySet1.getKeyBit(Config.keySet1.getMoveRightKey()) | Config.keySet1.getKeyBit(Config.keySet1.getStabKey());
+        int maskP2 = Config.keySet2.getKeyBit(Config.keySet2.getMoveLeftKey()) | Config.keySet2.getKeyBit(Config.keySet2.getStabKey());
+
+        for (int i = 0; i < ticks; i++) {
+            simulation.step(maskP1, maskP2);
+        }
+        return simulation;
+    }
+}
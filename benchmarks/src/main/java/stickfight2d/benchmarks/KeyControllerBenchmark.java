@@ -0,0 +1,34 @@
+package stickfight2d.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.controllers.KeyController;
+import stickfight2d.misc.Config;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick key bookkeeping with both players holding three keys
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyControllerBenchmark {
+
+    private KeyController keyController;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.init();
+        keyController = new KeyController();
+        keyController.applyInputMask(Config.keySet1, 0b001011);
+        keyController.applyInputMask(Config.keySet2, 0b011001);
+    }
+
+    @Benchmark
+    public void update() {
+        keyController.update(16);
+    }
+}
@@ -0,0 +1,44 @@
+package stickfight2d.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.enums.ParticleType;
+import stickfight2d.misc.Config;
+import stickfight2d.world.ParticleEmitter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Integration of a burst of 10k / 100k particles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticleBenchmark {
+
+    @Param({"10000", "100000"})
+    public int particles;
+
+    private ParticleEmitter emitter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.fightingMatch(1);
+
+        // The whole burst is emitted up front, update(0) never spawns more
+        emitter = new ParticleEmitter(ParticleType.BLOOD, null, Config.SCREEN_WIDTH / 2, 200, particles, 1000,
+                2, 10, 180, 60, 4);
+        emitter.emit(16, particles);
+    }
+
+    /**
+     * A step of 0 ms keeps the burst alive for the whole trial (particles die after 1000 ms of simulated time),
+     * every particle still runs through the full integration and ground check
+     */
+    @Benchmark
+    public void update() {
+        emitter.update(0);
+    }
+}
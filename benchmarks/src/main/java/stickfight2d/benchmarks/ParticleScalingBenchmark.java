@@ -0,0 +1,51 @@
+package stickfight2d.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import stickfight2d.enums.ParticleType;
+import stickfight2d.misc.Config;
+import stickfight2d.world.ParticleBuffer;
+import stickfight2d.world.ParticleEmitter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parallel particle integration from 1 to N threads, threads = 1 is the single-thread path
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticleScalingBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int particles;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ParticleEmitter emitter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Headless.fightingMatch(1);
+        ParticleBuffer.setParallelism(threads);
+        Config.particle_parallel_threshold = 0;
+
+        emitter = new ParticleEmitter(ParticleType.BLOOD, null, Config.SCREEN_WIDTH / 2, 200, particles, 1000,
+                2, 10, 180, 60, 4);
+        emitter.emit(16, particles);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ParticleBuffer.setParallelism(1);
+    }
+
+    // See ParticleBenchmark, a step of 0 ms keeps the burst alive
+    @Benchmark
+    public void update() {
+        emitter.update(0);
+    }
+}
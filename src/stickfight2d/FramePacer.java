@@ -0,0 +1,141 @@
+package stickfight2d;
+
+import stickfight2d.misc.FrameTimeHistogram;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces the GameLoop to a fixed frame rate and decides how many fixed simulation ticks each frame runs.
+ *
+ * Frames are scheduled on absolute nanoTime deadlines, so rounding never adds up to drift. Waiting sleeps until shortly
+ * before the deadline (sleeping is only accurate to about a millisecond) and yields for the rest.
+ * The elapsed time is collected in an accumulator that is consumed in whole ticks; the remainder carries over to the
+ * next frame. After a long stall at most maxCatchUpTicks are run and the rest of the backlog is dropped.
+ */
+public class FramePacer {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int frameRate;
+    private final long frameNanos;
+    private final long tickNanos;
+    private final int maxCatchUpTicks;
+    private final long spinNanos;
+
+    private long originNanos;               // Deadlines are originNanos + frameIndex / frameRate seconds
+    private long frameIndex = 0;
+    private long lastFrameStart;
+    private long accumulatorNanos = 0;
+
+    private final FrameTimeHistogram histogram;
+    private long frames = 0;
+    private long droppedTicks = 0;
+    private long resyncs = 0;
+
+    /**
+     * @param frameRate       frames per second, e.g. 60, 120, 144 or 240 Hz
+     * @param tickRate        simulation ticks per second
+     * @param maxCatchUpTicks maximum number of ticks run in one frame
+     * @param spinNanos       time before the deadline that is spent yielding instead of sleeping
+     */
+    public FramePacer(int frameRate, int tickRate, int maxCatchUpTicks, long spinNanos) {
+        if (frameRate < 1 || tickRate < 1 || maxCatchUpTicks < 1 || spinNanos < 0) {
+            throw new IllegalArgumentException("Invalid frame pacer settings! frameRate=" + frameRate + ", tickRate=" + tickRate
+                    + ", maxCatchUpTicks=" + maxCatchUpTicks + ", spinNanos=" + spinNanos);
+        }
+        this.frameRate = frameRate;
+        this.frameNanos = NANOS_PER_SECOND / frameRate;
+        this.tickNanos = NANOS_PER_SECOND / tickRate;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.spinNanos = spinNanos;
+
+        // Errors between -2 and +8 frames in 0.25 ms buckets (aligned to 0) over the last 10 seconds
+        long bucketNanos = 250_000;
+        long minErrorNanos = -(2 * frameNanos / bucketNanos) * bucketNanos;
+        this.histogram = new FrameTimeHistogram(10 * frameRate, bucketNanos, minErrorNanos, (int) (10 * frameNanos / bucketNanos));
+
+        originNanos = System.nanoTime();
+        lastFrameStart = originNanos;
+    }
+
+    /**
+     * Starts a frame: measures the time since the last frame and adds it to the accumulator
+     *
+     * @return number of fixed ticks to run in this frame
+     */
+    public int beginFrame() {
+        long now = System.nanoTime();
+        long elapsed = now - lastFrameStart;
+        lastFrameStart = now;
+
+        if (frames++ > 0) {
+            histogram.record(elapsed - frameNanos);
+        }
+
+        accumulatorNanos += elapsed;
+        long ticks = accumulatorNanos / tickNanos;
+
+        if (ticks > maxCatchUpTicks) {      // Too far behind, e.g. after a stall: drop the backlog
+            droppedTicks += ticks - maxCatchUpTicks;
+            ticks = maxCatchUpTicks;
+            accumulatorNanos = accumulatorNanos % tickNanos;
+        } else {
+            accumulatorNanos -= ticks * tickNanos;
+        }
+        return (int) ticks;
+    }
+
+    /**
+     * Waits for the deadline of the next frame: sleeps first, then yields for the last spinNanos
+     */
+    public void waitForNextFrame() {
+        frameIndex++;
+        long deadline = originNanos + frameIndex * NANOS_PER_SECOND / frameRate;
+        long now = System.nanoTime();
+
+        if (now - deadline > frameNanos) {      // More than a frame late, start a new schedule instead of rushing frames
+            originNanos = now;
+            frameIndex = 0;
+            resyncs++;
+            return;
+        }
+
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > spinNanos) {
+            LockSupport.parkNanos(remaining - spinNanos);
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * @return how far the simulation is between the last and the next tick, between 0 and 1
+     */
+    public double getAlpha() {
+        return accumulatorNanos / (double) tickNanos;
+    }
+
+    /**
+     * Getter Methods
+     */
+    public int getFrameRate() {
+        return frameRate;
+    }
+
+    public FrameTimeHistogram getHistogram() {
+        return histogram;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    public long getResyncs() {
+        return resyncs;
+    }
+}
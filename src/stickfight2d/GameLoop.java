@@ -1,24 +1,29 @@
 package stickfight2d;
 
 import javafx.application.Platform;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
-import kuusisto.tinysound.Music;
-import kuusisto.tinysound.TinySound;
 import stickfight2d.controllers.*;
-import stickfight2d.enums.SoundType;
-import stickfight2d.interfaces.InputSystem;
+import stickfight2d.render.RenderFrame;
+import stickfight2d.render.RenderPipeline;
+import stickfight2d.replay.ReplayRecorder;
 import stickfight2d.world.*;
 import stickfight2d.misc.Config;
+import stickfight2d.misc.Debugger;
+import stickfight2d.misc.FontCache;
+import stickfight2d.misc.LatencyProbe;
+import stickfight2d.misc.Profiler;
 import stickfight2d.world.GameObject;
 import stickfight2d.world.WorldObject;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -27,67 +32,74 @@ import java.util.stream.Collectors;
 
 public class GameLoop extends Thread implements Runnable {
 
-    private final GraphicsContext gc = Main.canvas.getGraphicsContext2D();
     public static final ArrayList<Controller> gameControllers = new ArrayList<>();
 
-    public static WorldObject currentLevel;
-
     private static Text counterText;
     private static boolean counterOn = false;
     private static int counterState = 0;
 
     private static double diffTimeMs = 0;
 
-    public static Music currentMusic;
+    private final Simulation simulation;
+    private final RenderPipeline renderPipeline = new RenderPipeline();      // Frames for the Renderer on the FX thread
 
+    // Expects the assets to be loaded, see StartupPipeline
     public GameLoop() {
-        TinySound.init();
-        gameControllers.add(KeyController.getInstance());
-        gameControllers.add(AnimationFactory.getInstance());
-        gameControllers.add(DirectionController.getInstance());
-        gameControllers.add(CameraController.getInstance());
-        gameControllers.add(SoundController.getInstance());
-
-        currentLevel = new WorldObject();
-        currentLevel.initObjects();
-
-        gameControllers.add(CollisionController.getInstance());
+        simulation = new Simulation();
+        MatchContext.setShared(simulation.getContext());       // FX thread and menus see the match of the window
+        KeyController.getInstance().registerKeyHandlers(Main.canvas);
 
         gameControllers.add(MenuController.getInstance());
 
-        currentMusic = SoundController.getInstance().getMusic(SoundType.MUSIC_THEME_INGAME); // Music theme
+        if (Config.replay_recording)
+            startRecording();
     }
 
 
-    private static final float interval = 1000.0f / 60;
+    // Records the match until the game is closed, see ReplayRecorder
+    private void startRecording() {
+        Path path = Paths.get(Config.REPLAY_DIR, "match-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".replay");
+        try {
+            ReplayRecorder recorder = new ReplayRecorder(path, Config.replay_keyframe_interval, simulation.getContext().getSeed());
+            simulation.setRecorder(recorder);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    Debugger.log("GameLoop - Replay incomplete: " + e);
+                }
+            }, "Replay Closer"));
+            Debugger.log("Recording the match to " + path);
+        } catch (IOException e) {
+            Debugger.log("GameLoop - The match is not recorded: " + e);
+        }
+    }
+
 
-    @SuppressWarnings({"BusyWait", "InfiniteLoopStatement"})
+    // Fixed simulation ticks, one frame per display refresh
+    @SuppressWarnings("InfiniteLoopStatement")
     public void run() {
 
-        long lastTick = System.currentTimeMillis();
+        FramePacer pacer = new FramePacer(Config.frame_rate, Config.TICKS_PER_SECOND, Config.max_catch_up_ticks, Config.frame_pacer_spin_nanos);
 
         while (true) {
 
-            // Elapsed time
-            long currentTick = System.currentTimeMillis();
-            long diffMillis = currentTick - lastTick;
-            lastTick = currentTick;
+            int ticks = pacer.beginFrame();
+            Profiler.getInstance().beginFrame();
 
-            update(diffMillis);
-            clearScreen();
+            for (int i = 0; i < ticks; i++) {
+                update(simulation.getNextTickMillis());
 
-            draw();
-            Main.copyCanvas();
+                if (Config.latency_probe_mode)
+                    LatencyProbe.getInstance().ticked(simulation.getWorld().getPlayer1(), simulation.getTick() - 1);
+            }
+            draw(Config.render_interpolation ? pacer.getAlpha() : 1);
 
-            // Adjust timing if necessary
-            currentTick = System.currentTimeMillis() - currentTick;
-            if (currentTick < interval) {
-                try {
-                    Thread.sleep((long) (interval - currentTick));
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            if (pacer.getFrames() % (10L * pacer.getFrameRate()) == 0) {
+                Debugger.log(pacer.getHistogram());
             }
+
+            pacer.waitForNextFrame();
         }
     }
 
@@ -100,39 +112,48 @@ public class GameLoop extends Thread implements Runnable {
             diffTimeMs += diffMillis;
         }
 
-        for (GameObject obj : currentLevel.getGameObjects()) {
-
-            if (obj instanceof InputSystem) {
-                ((InputSystem) obj).processInput(diffMillis);
-            }
-            obj.update(diffMillis);
-
-        }
+        simulation.update(diffMillis);
 
+        Profiler profiler = Profiler.getInstance();
         for (Controller con : gameControllers) {
+            long token = profiler.start();
             con.update(diffMillis);
+            profiler.stopUpdate(con, token);
         }
 
-        currentLevel.refreshGameObjects();
         updateCounter();
     }
 
 
 
-    private void draw() {
-        for (GameObject obj : currentLevel.getGameObjects()) {
-            Platform.runLater(() -> obj.draw(gc));
+    // Records the current state into a frame, the Renderer draws it on the next pulse
+    private void draw(double alpha) {
+        CameraController camera = CameraController.getInstance();
+        RenderFrame frame = renderPipeline.beginFrame(alpha, camera.getInterpolatedCamX(alpha), camera.getInterpolatedCamY(alpha));
+
+        Profiler profiler = Profiler.getInstance();
+        for (GameObject obj : simulation.getWorld().getGameObjects()) {
+            long token = profiler.start();
+            obj.draw(frame);
+            profiler.stopDraw(obj, token);
         }
+
+        long token = profiler.start();
+        renderPipeline.publish();
+        profiler.stopPublish(token);
+
+        if (Config.latency_probe_mode)
+            LatencyProbe.getInstance().recorded(frame.getFrameNumber(), simulation.getTick() - 1);
     }
 
-    private void clearScreen() {
-        gc.clearRect(0, 0, Main.canvas.getWidth(), Main.canvas.getHeight());
+    public RenderPipeline getRenderPipeline() {
+        return renderPipeline;
     }
 
 
     private void determineCurrentObjects() {
 
-        Map<Class<? extends GameObject>, List<GameObject>> counted = currentLevel.getGameObjects().stream().collect(Collectors.groupingBy(gameObject -> {
+        Map<Class<? extends GameObject>, List<GameObject>> counted = simulation.getWorld().getGameObjects().stream().collect(Collectors.groupingBy(gameObject -> {
             if (gameObject instanceof RectangleObstacle) return RectangleObstacle.class;
             if (gameObject instanceof PlayerObject) return PlayerObject.class;
             if (gameObject instanceof SwordObject) return SwordObject.class;
@@ -161,12 +182,15 @@ public class GameLoop extends Thread implements Runnable {
     }
 
     private void updateCounter(){
+        if (!counterOn)
+            return;
+
         Platform.runLater(() -> {
             if (counterOn) {
                 if (diffTimeMs / 1000 >= 2 && counterState == 0) {
                     counterState = 1;
                     counterText.setX(Main.getPrimaryStage().getWidth() / 2 - 90);
-                    counterText.setFont(Font.loadFont(Config.FONT_PATH, 80));
+                    counterText.setFont(FontCache.get(Config.FONT_PATH, 80));
                     counterText.setText("3");
                 } else if (diffTimeMs / 1000 >= 3 && counterState == 1) {
                     counterState = 2;
@@ -200,7 +224,7 @@ public class GameLoop extends Thread implements Runnable {
             counterText = new Text("Get ready!");
             counterText.setTextAlignment(TextAlignment.CENTER);
             counterText.setFill(Config.FONT_COLOR);
-            counterText.setFont(Font.loadFont(Config.FONT_PATH, 50));
+            counterText.setFont(FontCache.get(Config.FONT_PATH, 50));
             counterBox.getChildren().add(counterText);
             Main.getRoot().getChildren().add(counterBox);
         });
@@ -0,0 +1,88 @@
+package stickfight2d;
+
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.interfaces.InputScript;
+import stickfight2d.misc.Config;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs matches without a window, e.g. for balancing and regression runs:
+ * HeadlessMain [matches] [maxSecondsPerMatch] [seed] [threads]
+ *
+ * Every match has its own MatchContext, with more than one thread the matches run side by side.
+ */
+public class HeadlessMain {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        System.setProperty("java.awt.headless", "true");
+        Config.headless_mode = true;
+
+        int matches = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        long maxTicks = ((args.length > 1) ? Long.parseLong(args[1]) : 120) * Config.TICKS_PER_SECOND;
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+
+        long loadStart = System.nanoTime();
+        AnimationFactory.getInstance();
+        System.out.printf("Assets loaded in %d ms%n", (System.nanoTime() - loadStart) / 1_000_000);
+
+        PlayerType[] winners = new PlayerType[matches];
+        long[] matchTicks = new long[matches];
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < matches; i++) {
+            int match = i;
+            futures.add(executor.submit(() -> {
+                Simulation simulation = new Simulation(seed + match);
+                winners[match] = simulation.runMatch(randomInput(seed + match), maxTicks);
+                matchTicks[match] = simulation.getTick();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int winsP1 = 0, winsP2 = 0;
+        long ticks = 0;
+        for (int i = 0; i < matches; i++) {
+            if (winners[i] == PlayerType.PLAYER_ONE)
+                winsP1++;
+            else if (winners[i] == PlayerType.PLAYER_TWO)
+                winsP2++;
+            ticks += matchTicks[i];
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d matches on %d threads, %d ticks in %.2f s (%.0f matches/s, %.0f ticks/s)%n",
+                matches, threads, ticks, seconds, matches / seconds, ticks / seconds);
+        System.out.printf("Player 1 won %d, Player 2 won %d, %d undecided%n", winsP1, winsP2, matches - winsP1 - winsP2);
+    }
+
+    /**
+     * Each player holds a random key combination for a random amount of ticks
+     */
+    public static InputScript randomInput(long seed) {
+        Random rng = new Random(seed);
+        int[] masks = new int[2];
+        long[] until = new long[2];
+
+        return (playerType, tick) -> {
+            int i = playerType.ordinal();
+            if (tick >= until[i]) {
+                masks[i] = rng.nextInt(1 << 6);
+                until[i] = tick + 5 + rng.nextInt(30);
+            }
+            return masks[i];
+        };
+    }
+}
@@ -1,29 +1,37 @@
 package stickfight2d;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Group;
 import javafx.scene.Scene;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.image.WritableImage;
-import javafx.scene.paint.Color;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
 import javafx.stage.Stage;
-import stickfight2d.controllers.MenuController;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.Debugger;
+import stickfight2d.misc.LatencyProbe;
+import stickfight2d.render.Renderer;
 
 public class Main extends Application {
 
-    public static Canvas canvas, copy;
+    public static Canvas canvas;
     private static Group root;
     private static Stage primaryStage;
 
-    private final int SUB_MAP_WIDTH = 1032;
-    private final int SUB_MAP_HEIGHT = 810;
-
     @Override
     public void start(Stage primaryStage) {
 
         Main.primaryStage = primaryStage;
+        if (getParameters().getRaw().contains("--latency-probe")) {
+            Config.latency_probe_mode = true;
+        }
+        if (getParameters().getRaw().contains("--record")) {
+            Config.replay_recording = true;
+        }
+
         primaryStage.setOnCloseRequest(e->{
             Platform.exit();
             System.exit(0);
@@ -35,37 +43,70 @@ public class Main extends Application {
         primaryStage.setFullScreen(false);
 
 
-        canvas = new Canvas(SUB_MAP_WIDTH, SUB_MAP_HEIGHT);
-        copy = new Canvas(SUB_MAP_WIDTH, SUB_MAP_HEIGHT);
-
+        // The canvas has the size of the window, the Renderer scales the scene while drawing it
+        double scale = Renderer.getScale();
+        canvas = new Canvas(Math.round(Config.SCREEN_WIDTH * scale), Math.round(Config.SCREEN_HEIGHT * scale));
 
         canvas.requestFocus();
         canvas.setFocusTraversable(true);
-        canvas.setScaleX(1);
-        canvas.setScaleY(1);
-
-        copy.setScaleX(1.5);
-        copy.setScaleY(1.5);
 
         root.getChildren().add(canvas);
-        root.getChildren().add(copy);
 
         primaryStage.show();
 
-        new GameLoop().start();
+        // Assets are loaded in parallel while the window shows the progress, the game starts once all of them are done
+        StartupPipeline startupPipeline = new StartupPipeline();
+        VBox progressBox = createProgressBox(startupPipeline);
+        root.getChildren().add(progressBox);
+
+        startupPipeline.start().whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                ((Text) progressBox.getChildren().get(0)).setText("Loading failed: " + error.getCause());
+                return;
+            }
+            root.getChildren().remove(progressBox);
+            startGame();
+        }));
     }
 
-    public static void main(String[] args) {
-        launch(args);
+    private static VBox createProgressBox(StartupPipeline startupPipeline) {
+        Text text = new Text("Loading...");
+        text.setFill(Config.FONT_COLOR);
+
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(canvas.getWidth() / 3);
+
+        VBox progressBox = new VBox(10, text, progressBar);
+        progressBox.layoutXProperty().bind(primaryStage.widthProperty().divide(2).subtract(progressBox.widthProperty().divide(2)));
+        progressBox.layoutYProperty().bind(primaryStage.heightProperty().divide(2).subtract(progressBox.heightProperty().divide(2)));
+
+        // Polled on every pulse until the box is removed, the loader threads never touch the scene graph
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                progressBar.setProgress(startupPipeline.getProgress());
+                if (progressBox.getParent() == null) {
+                    stop();
+                }
+            }
+        }.start();
+        return progressBox;
     }
 
-    public static void copyCanvas() {
-        SnapshotParameters params = new SnapshotParameters();
-        params.setFill(Color.TRANSPARENT);
-        Platform.runLater(() -> {
-            WritableImage image = canvas.snapshot(params, null);
-            copy.getGraphicsContext2D().drawImage(image, 0, 0);
-        });
+    private static void startGame() {
+        GameLoop gameLoop = new GameLoop();
+        new Renderer(gameLoop.getRenderPipeline(), canvas).start();
+        gameLoop.start();
+        Debugger.log("Game started");
+
+        if (Config.latency_probe_mode) {
+            LatencyProbe.getInstance().start(canvas);
+        }
+    }
+
+    public static void main(String[] args) {
+        launch(args);
     }
 
     public static Group getRoot() {
@@ -0,0 +1,187 @@
+package stickfight2d;
+
+import stickfight2d.controllers.CameraController;
+import stickfight2d.controllers.CollisionController;
+import stickfight2d.controllers.DirectionController;
+import stickfight2d.controllers.KeyController;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.MatchRandom;
+import stickfight2d.world.ParticlePool;
+import stickfight2d.world.WorldObject;
+
+import java.util.function.Supplier;
+
+/**
+ * Everything that belongs to one match: the world, the controllers holding match state and the tick clock. Any number
+ * of contexts can exist side by side, only immutable assets (AnimationFactory, SoundController, Level) are shared.
+ *
+ * Game objects and controllers reach their match through current(): the context bound to the calling thread while
+ * a match is stepped (see run), otherwise the shared context of the window, e.g. on the FX thread.
+ * A context must only be stepped by one thread at a time.
+ */
+public class MatchContext {
+
+    private static final ThreadLocal<MatchContext> bound = new ThreadLocal<>();
+    private static volatile MatchContext shared;        // Match of the window, see GameLoop
+
+    private final WorldObject world;
+    private final KeyController keyController;
+    private final DirectionController directionController;
+    private final CameraController cameraController;
+    private final CollisionController collisionController;
+    private final long seed;
+    private final MatchRandom random;
+    private final MatchRandom effectsRandom;
+    private final ParticlePool particlePool = new ParticlePool();
+
+    private long tick = 0;
+
+    public MatchContext() {
+        this(Config.match_seed);
+    }
+
+    /**
+     * Creates the world and the controllers of a new match, the context is bound while the objects are created
+     *
+     * @param seed seed of the random numbers, matches with the same seed and inputs play out identically
+     */
+    public MatchContext(long seed) {
+        this.seed = seed;
+        this.random = new MatchRandom(seed);
+        this.effectsRandom = new MatchRandom(MatchRandom.mix(seed));
+
+        MatchContext previous = bound.get();
+        bound.set(this);
+        try {
+            world = new WorldObject();
+            keyController = new KeyController();
+            directionController = new DirectionController(world);
+            cameraController = new CameraController(world);
+            world.initObjects();
+            collisionController = new CollisionController(world);
+        } finally {
+            bound.set(previous);
+        }
+    }
+
+    /**
+     * @return context bound to the calling thread, the shared context if there is none
+     */
+    public static MatchContext current() {
+        MatchContext context = bound.get();
+        if (context == null) {
+            context = shared;
+            if (context == null) {
+                throw new IllegalStateException("No match context on thread " + Thread.currentThread().getName() + ", steps have to run inside MatchContext.run()");
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Runs the task with this context bound to the calling thread, the previously bound context is restored afterwards
+     */
+    public void run(Runnable task) {
+        MatchContext previous = bound.get();
+        bound.set(this);
+        try {
+            task.run();
+        } finally {
+            bound.set(previous);
+        }
+    }
+
+    public <T> T call(Supplier<T> task) {
+        MatchContext previous = bound.get();
+        bound.set(this);
+        try {
+            return task.get();
+        } finally {
+            bound.set(previous);
+        }
+    }
+
+    /**
+     * Makes this context the fallback for threads without a bound context (FX thread, menus), null removes it
+     */
+    public static void setShared(MatchContext context) {
+        shared = context;
+    }
+
+    public static MatchContext getShared() {
+        return shared;
+    }
+
+    // --- Clock
+
+    void advanceTick() {
+        tick++;
+    }
+
+    void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Ticks are 16 or 17 ms long, so that TICKS_PER_SECOND ticks take exactly one second
+     *
+     * @return length of the next fixed tick in ms
+     */
+    public long getNextTickMillis() {
+        return (tick + 1) * 1000 / Config.TICKS_PER_SECOND - tick * 1000 / Config.TICKS_PER_SECOND;
+    }
+
+    // --- Random numbers
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return random numbers of the game logic, their state is part of the match state
+     */
+    public MatchRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Particles are skipped in headless matches and re-simulated ticks, so they draw from their own generator and
+     * never shift the numbers of the game logic
+     *
+     * @return random numbers of particles, not part of the match state
+     */
+    public MatchRandom getEffectsRandom() {
+        return effectsRandom;
+    }
+
+    /**
+     * Getter Methods
+     */
+    public WorldObject getWorld() {
+        return world;
+    }
+
+    public KeyController getKeyController() {
+        return keyController;
+    }
+
+    public DirectionController getDirectionController() {
+        return directionController;
+    }
+
+    public CameraController getCameraController() {
+        return cameraController;
+    }
+
+    public CollisionController getCollisionController() {
+        return collisionController;
+    }
+
+    public ParticlePool getParticlePool() {
+        return particlePool;
+    }
+}
@@ -0,0 +1,316 @@
+package stickfight2d;
+
+import stickfight2d.controllers.*;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.events.TickEvent;
+import stickfight2d.interfaces.InputScript;
+import stickfight2d.interfaces.InputSystem;
+import stickfight2d.interfaces.Snapshotable;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.MatchRandom;
+import stickfight2d.misc.Profiler;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
+import stickfight2d.replay.ReplayRecorder;
+import stickfight2d.world.GameObject;
+import stickfight2d.world.PlayerObject;
+import stickfight2d.world.SwordObject;
+import stickfight2d.world.WorldObject;
+
+import java.util.ArrayList;
+
+/**
+ * One match of the game logic without any rendering: world objects and controllers are advanced in the
+ * same order as in the GameLoop. Can be stepped with a fixed tick length and scripted input (headless mode).
+ * Every simulation has its own MatchContext, independent simulations can be stepped on different threads.
+ *
+ * A match is deterministic: ticks have a fixed length, random numbers come from the seed of the match and the
+ * kinematics of players and swords are integer (fixed point) math. The same seed and inputs give bit-identical
+ * matches on every run and JVM, which getStateHash() makes cheap to compare.
+ */
+public class Simulation implements Snapshotable<Simulation.State> {
+
+    private final ArrayList<Controller> controllers = new ArrayList<>();
+    private final MatchContext context;
+    private final WorldObject world;
+    private ReplayRecorder recorder;
+    private long stateHash;
+
+    public Simulation() {
+        this(Config.match_seed);
+    }
+
+    /**
+     * @param seed seed of the random numbers of the match, see MatchContext
+     */
+    public Simulation(long seed) {
+        context = new MatchContext(seed);
+        world = context.getWorld();
+
+        controllers.add(context.getKeyController());
+        controllers.add(AnimationFactory.getInstance());
+        controllers.add(context.getDirectionController());
+        controllers.add(context.getCameraController());
+        controllers.add(SoundController.getInstance());
+        controllers.add(context.getCollisionController());
+    }
+
+    /**
+     * Advances the match by the given time, the context of the match is bound to the calling thread meanwhile
+     */
+    public void update(long diffMillis) {
+        context.run(() -> tick(diffMillis));
+    }
+
+    private void tick(long diffMillis) {
+        // The Profiler has one writer per section, only the match of the window is profiled
+        Profiler profiler = (context == MatchContext.getShared()) ? Profiler.getInstance() : Profiler.disabled();
+
+        TickEvent tickEvent = new TickEvent();
+        tickEvent.begin();
+
+        if (recorder != null) {
+            KeyController keyCon = context.getKeyController();
+            recorder.record(this, keyCon.getInputMask(Config.keySet1), keyCon.getInputMask(Config.keySet2));
+        }
+
+        for (GameObject obj : world.getGameObjects()) {
+            obj.storePreviousPosition();
+        }
+
+        for (GameObject obj : world.getGameObjects()) {
+
+            long token = profiler.start();
+
+            if (obj instanceof InputSystem) {
+                ((InputSystem) obj).processInput(diffMillis);
+            }
+            obj.update(diffMillis);
+
+            profiler.stopUpdate(obj, token);
+        }
+
+        for (Controller con : controllers) {
+            long token = profiler.start();
+            con.update(diffMillis);
+            profiler.stopUpdate(con, token);
+        }
+
+        world.refreshGameObjects();
+        stateHash = hashTick(stateHash);
+
+        if (tickEvent.shouldCommit()) {
+            tickEvent.tick = context.getTick();
+            tickEvent.objectCount = world.getGameObjects().size();
+            tickEvent.resimulated = !world.isEffectsEnabled();
+            tickEvent.stateHash = stateHash;
+            tickEvent.commit();
+        }
+        context.advanceTick();
+    }
+
+    // Rolls the tick, the random numbers and what can be seen of players and swords into the hash, particles are left out
+    private long hashTick(long hash) {
+        hash = mixHash(hash, context.getTick());
+        hash = mixHash(hash, context.getRandom().getState());
+        hash = mixHash(hash, world.getBackground().getWorldState());
+        for (GameObject obj : world.getGameObjects()) {
+            if (obj instanceof PlayerObject || obj instanceof SwordObject) {
+                hash = mixHash(hash, ((long) obj.getX() << 32) ^ obj.getY());
+                hash = mixHash(hash, ((long) obj.getVx() << 32) ^ obj.getVy());
+            }
+            if (obj instanceof PlayerObject player) {
+                hash = mixHash(hash, ((long) player.getAnimation().getAnimationType().ordinal() << 32)
+                        ^ ((long) player.getAnimation().getCurrentFrameNumber() << 1) ^ (player.isAlive() ? 1 : 0));
+            } else if (obj instanceof SwordObject sword) {
+                hash = mixHash(hash, sword.getAnimation().getCurrentFrame().getAngle());
+            }
+        }
+        return hash;
+    }
+
+    private static long mixHash(long hash, long value) {
+        return MatchRandom.mix(hash ^ value) + value;
+    }
+
+    /**
+     * Advances the match by one fixed tick
+     */
+    public void step() {
+        update(getNextTickMillis());
+    }
+
+    /**
+     * Applies the input masks of both players and advances the match by one fixed tick
+     */
+    public void step(int inputMaskP1, int inputMaskP2) {
+        KeyController keyCon = context.getKeyController();
+        keyCon.applyInputMask(Config.keySet1, inputMaskP1);
+        keyCon.applyInputMask(Config.keySet2, inputMaskP2);
+        step();
+    }
+
+    /**
+     * Steps until one player wins or maxTicks is reached
+     *
+     * @return winner of the match, null if there is none after maxTicks
+     */
+    public PlayerType runMatch(InputScript script, long maxTicks) {
+        while (context.getTick() < maxTicks) {
+            long tick = context.getTick();
+            step(script.getInputMask(PlayerType.PLAYER_ONE, tick), script.getInputMask(PlayerType.PLAYER_TWO, tick));
+
+            PlayerType winner = getWinner();
+            if (winner != null)
+                return winner;
+        }
+        return null;
+    }
+
+    /**
+     * @return length of the next fixed tick in ms, see MatchContext.getNextTickMillis()
+     */
+    public long getNextTickMillis() {
+        return context.getNextTickMillis();
+    }
+
+    /**
+     * @return player who reached his cave, null if the match is still running
+     */
+    public PlayerType getWinner() {
+        CollisionController colCon = context.getCollisionController();
+        if (colCon.getWin(PlayerType.PLAYER_ONE))
+            return PlayerType.PLAYER_ONE;
+        if (colCon.getWin(PlayerType.PLAYER_TWO))
+            return PlayerType.PLAYER_TWO;
+        return null;
+    }
+
+    public long getTick() {
+        return context.getTick();
+    }
+
+    /**
+     * Rolling hash over the state after every tick, equal hashes at the same tick mean the matches did not diverge
+     * (e.g. replay verification or lockstep peers). It is part of the saved state, so rollbacks keep it consistent.
+     */
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * @return tick, state hash and what can be seen of the players, the line that replay verification and rollback
+     * sync diagnostics (ReplayMain, LoopbackMatch) compare
+     */
+    public String fingerprint() {
+        StringBuilder sb = new StringBuilder("tick=" + getTick()
+                + " hash=" + Long.toHexString(getStateHash())
+                + " world=" + world.getBackground().getWorldState());
+        for (PlayerObject p : new PlayerObject[]{world.getPlayer1(), world.getPlayer2()}) {
+            sb.append(" | ").append(p.getPlayerNumber()).append(' ').append(p.getX()).append(',').append(p.getY())
+                    .append(' ').append(p.getAnimation()).append('#').append(p.getAnimation().getCurrentFrameNumber())
+                    .append(p.isAlive() ? " alive" : " dead");
+        }
+        return sb.toString();
+    }
+
+    public MatchContext getContext() {
+        return context;
+    }
+
+    public WorldObject getWorld() {
+        return world;
+    }
+
+    public ArrayList<Controller> getControllers() {
+        return controllers;
+    }
+
+    /**
+     * Records the inputs of every following tick into a replay, null stops recording. The recorder is not closed.
+     */
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Disables particles and sounds, e.g. while ticks are re-simulated after a rollback
+     */
+    public void setEffectsEnabled(boolean effectsEnabled) {
+        world.setEffectsEnabled(effectsEnabled);
+    }
+
+    /**
+     * Saves the complete match state at the current tick
+     */
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        context.run(() -> {
+            context.setTick(state.tick);
+            context.getRandom().setState(state.random);
+            stateHash = state.stateHash;
+            world.loadState(state.world);
+            context.getKeyController().loadState(state.keys);
+            context.getDirectionController().loadState(state.directions);
+            context.getCameraController().loadState(state.camera);
+            context.getCollisionController().loadState(state.collisions);
+        });
+    }
+
+    public static final class State {
+        private final long tick;
+        private final long random, stateHash;
+        private final WorldObject.State world;
+        private final KeyController.State keys;
+        private final boolean[] directions;
+        private final CameraController.State camera;
+        private final CollisionController.State collisions;
+
+        private State(Simulation simulation) {
+            MatchContext context = simulation.context;
+            tick = context.getTick();
+            random = context.getRandom().getState();
+            stateHash = simulation.stateHash;
+            world = simulation.world.saveState();
+            keys = context.getKeyController().saveState();
+            directions = context.getDirectionController().saveState();
+            camera = context.getCameraController().saveState();
+            collisions = context.getCollisionController().saveState();
+        }
+
+        /**
+         * Reads a keyframe into a state that can be loaded into the simulation of the reader, see ReplayPlayer
+         */
+        public State(KeyframeReader in) {
+            tick = in.readLong();
+            random = in.readRawLong();
+            stateHash = in.readRawLong();
+            world = new WorldObject.State(in);
+            keys = new KeyController.State(in);
+            directions = new boolean[]{in.readBoolean(), in.readBoolean()};
+            camera = new CameraController.State(in);
+            collisions = new CollisionController.State(in);
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeLong(tick);
+            out.writeRawLong(random);
+            out.writeRawLong(stateHash);
+            world.write(out);
+            keys.write(out);
+            out.writeBoolean(directions[0]);
+            out.writeBoolean(directions[1]);
+            camera.write(out);
+            collisions.write(out);
+        }
+
+        public long getTick() {
+            return tick;
+        }
+    }
+}
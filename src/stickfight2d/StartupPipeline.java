@@ -0,0 +1,142 @@
+package stickfight2d;
+
+import kuusisto.tinysound.TinySound;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.controllers.SoundController;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.Debugger;
+import stickfight2d.misc.FontCache;
+import stickfight2d.world.BackgroundSlices;
+import stickfight2d.world.Level;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the assets of the game in parallel before the GameLoop is created, so the time to the menu is bounded by the
+ * slowest chain of assets instead of their sum. Every phase is a CompletableFuture that starts as soon as the phases
+ * it depends on are done:
+ *
+ * tinysound -> sounds
+ * level     -> background (decode map.png, convert the start slice)
+ * animations (sprite atlas or sprite sheet analysis)
+ * fonts
+ *
+ * All phases only fill caches and singletons, the GameLoop picks them up afterwards. Start and end of every phase are
+ * recorded relative to the start of the pipeline, see getTimings().
+ */
+public class StartupPipeline {
+
+    private static class Phase {
+        private final String name;
+        private long startNanos, endNanos;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final ArrayList<Phase> phases = new ArrayList<>();
+    private final ArrayList<CompletableFuture<Void>> futures = new ArrayList<>();
+    private final AtomicInteger finishedPhases = new AtomicInteger();
+    private long startNanos;
+    private long endNanos;
+
+    public StartupPipeline() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "Asset Loader " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts all phases, returns right away
+     *
+     * @return completes on the loader threads when every phase is done, exceptionally if one of them failed
+     */
+    public CompletableFuture<Void> start() {
+        startNanos = System.nanoTime();
+
+        CompletableFuture<Void> tinySound = phase("tinysound", TinySound::init);
+        after(tinySound, "sounds", SoundController::getInstance);
+
+        CompletableFuture<Void> level = phase("level", () -> Level.load(Config.LEVEL_PATH));
+        after(level, "background", () -> {
+            try {
+                BackgroundSlices.preload(Level.load(Config.LEVEL_PATH));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        phase("animations", AnimationFactory::getInstance);
+        phase("fonts", () -> {
+            FontCache.get(Config.FONT_PATH, 18);
+            FontCache.get(Config.FONT_PATH, 50);
+            FontCache.get(Config.FONT_PATH, 60);
+            FontCache.get(Config.FONT_PATH, 80);
+            FontCache.get("file:src/indian.ttf", 14);
+        });
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+            endNanos = System.nanoTime();
+            executor.shutdown();
+            Debugger.log(getTimings());
+        });
+    }
+
+    private CompletableFuture<Void> phase(String name, Runnable task) {
+        return add(CompletableFuture.runAsync(timed(name, task), executor));
+    }
+
+    private CompletableFuture<Void> after(CompletableFuture<Void> dependency, String name, Runnable task) {
+        return add(dependency.thenRunAsync(timed(name, task), executor));
+    }
+
+    private CompletableFuture<Void> add(CompletableFuture<Void> future) {
+        futures.add(future);
+        return future;
+    }
+
+    private Runnable timed(String name, Runnable task) {
+        Phase phase = new Phase(name);
+        phases.add(phase);
+        return () -> {
+            phase.startNanos = System.nanoTime();
+            task.run();
+            phase.endNanos = System.nanoTime();
+            finishedPhases.incrementAndGet();
+        };
+    }
+
+    /**
+     * @return share of finished phases between 0 and 1, callable from any thread
+     */
+    public double getProgress() {
+        return futures.isEmpty() ? 0 : finishedPhases.get() / (double) futures.size();
+    }
+
+    /**
+     * @return start and end of every phase in ms after the start of the pipeline, only complete once it finished
+     */
+    public String getTimings() {
+        StringBuilder sb = new StringBuilder(String.format("Startup took %d ms%n", (endNanos - startNanos) / 1_000_000));
+        for (Phase phase : phases) {
+            if (phase.endNanos == 0) {
+                sb.append(String.format("%-12s not finished%n", phase.name));
+            } else {
+                sb.append(String.format("%-12s %6d ms -> %6d ms (%d ms)%n", phase.name, (phase.startNanos - startNanos) / 1_000_000,
+                        (phase.endNanos - startNanos) / 1_000_000, (phase.endNanos - phase.startNanos) / 1_000_000));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -2,8 +2,11 @@ package stickfight2d.animation;
 
 import javafx.scene.image.Image;
 import stickfight2d.enums.AnimationType;
+import stickfight2d.interfaces.Snapshotable;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 
-public class Animation {
+public class Animation implements Snapshotable<Animation.State> {
 
     private final AnimationType animationType;
     private final AnimationData animationData;
@@ -71,4 +74,40 @@ public class Animation {
     public String toString(){
         return animationType.toString();
     }
+
+    @Override
+    public State saveState() {
+        return new State(currentFrame, animationTimer, stopped);
+    }
+
+    @Override
+    public void loadState(State state) {
+        currentFrame = state.currentFrame;
+        animationTimer = state.animationTimer;
+        stopped = state.stopped;
+    }
+
+    public static final class State {
+        private final int currentFrame;
+        private final double animationTimer;
+        private final boolean stopped;
+
+        private State(int currentFrame, double animationTimer, boolean stopped) {
+            this.currentFrame = currentFrame;
+            this.animationTimer = animationTimer;
+            this.stopped = stopped;
+        }
+
+        public State(KeyframeReader in) {
+            currentFrame = in.readInt();
+            animationTimer = in.readDouble();
+            stopped = in.readBoolean();
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeInt(currentFrame);
+            out.writeDouble(animationTimer);
+            out.writeBoolean(stopped);
+        }
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package stickfight2d.animation;
 
 
 import javafx.geometry.Point2D;
+import stickfight2d.events.AssetLoadEvent;
 import stickfight2d.controllers.CollisionController;
 
 import javax.imageio.ImageIO;
@@ -9,17 +10,24 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 public class AnimationData {
 
-    private static BufferedImage spriteSheet;
-    private boolean imageTransparent = false;                                   // Boolean to find out the last frame of an animation and stop the calculation
     private ArrayList<FrameData> frames = new ArrayList<>();                    // List of Frames which will be used to create the  Animation Data
     public static final int TILE_SIZE = 64;                                     // Quadratic sprite size
-    private static final String SPRITE_SHEET_PATH = "src/spritesheet.png";      // Path to the SpriteSheet
+    static final String SPRITE_SHEET_PATH = "src/spritesheet.png";      // Path to the SpriteSheet
+
+    // Sprite sheet as ARGB ints, read once in bulk, tiles are copied out of it row by row
+    private static int[] sheetPixels;
+    private static int sheetWidth, sheetHeight;
 
     // Static color values for hit box calculations
     private static final int black = new Color(0, 0, 0).getRGB();
@@ -29,77 +37,167 @@ public class AnimationData {
 
     private static int previousGreen = 0;                                       // prevent multiple calculations of sword length
     private int row;
+
+    /**
+     * Result of scanning one frame, the sword length is resolved afterwards in sprite sheet order (see resolveSwordLength)
+     */
+    private static class FrameScan {
+        private FrameData frameData;
+        private int greenPixels = 0;
+        private int swordLengthBeforeGreen = 0;     // Sword length at the first red pixel before any green one, 0 if none
+        private int swordLengthAfterGreen = 0;      // Sword length at the first red pixel between the first and second green one
+    }
+
     // Empty constructor
     public AnimationData() {}
 
+    // Frames that were calculated before, see SpriteAtlas
+    AnimationData(ArrayList<FrameData> frames) {
+        this.frames = frames;
+    }
+
     // Constructor which reads the sprite sheet and creates a FrameData object for a given row
     public AnimationData(int row) {
         if(row < 0)
             return;
 
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        FrameScan[] scans = scanRow(row);
+        resolveSwordLength(scans);
+        setFrames(row, scans);
+        event.commit("animation", SPRITE_SHEET_PATH, row);
+    }
+
+    /**
+     * Builds the animations of the given sprite sheet rows, the rows and their frames are analysed in parallel on the
+     * common ForkJoinPool. Same result as creating the rows one after another in the given order.
+     */
+    public static AnimationData[] loadRows(int... rows) {
+        FrameScan[][] scans = new FrameScan[rows.length][];
+        IntStream.range(0, rows.length).parallel().forEach(i -> {
+            AssetLoadEvent event = new AssetLoadEvent();     // One per row, on the thread that scans it
+            event.begin();
+            scans[i] = scanRow(rows[i]);
+            event.commit("animation", SPRITE_SHEET_PATH, rows[i]);
+        });
+
+        AnimationData[] animationData = new AnimationData[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            resolveSwordLength(scans[i]);
+            animationData[i] = new AnimationData();
+            animationData[i].setFrames(rows[i], scans[i]);
+        }
+        return animationData;
+    }
+
+    private void setFrames(int row, FrameScan[] scans) {
         this.row = row;
+        for (FrameScan scan : scans) {
+            frames.add(scan.frameData);
+        }
+    }
+
+    // Frames of a row end with the first fully transparent tile
+    private static FrameScan[] scanRow(int row) {
+        int[] sheet = getSheetPixels();
+        int frameCount = 0;
+        while ((frameCount + 1) * TILE_SIZE <= sheetWidth && !isTransparent(sheet, frameCount * TILE_SIZE, row * TILE_SIZE)) {
+            frameCount++;
+        }
 
-        if (spriteSheet == null) {
+        FrameScan[] scans = new FrameScan[frameCount];
+        IntStream.range(0, frameCount).parallel().forEach(i -> {
+            BufferedImage tile = copyTile(sheet, i * TILE_SIZE, row * TILE_SIZE);
+            scans[i] = scan(tile, pixelsOf(tile));
+            scans[i].frameData.setFrameNumber(i);
+        });
+        return scans;
+    }
+
+    private static synchronized int[] getSheetPixels() {
+        if (sheetPixels == null) {
             try {
-                spriteSheet = ImageIO.read(new File(SPRITE_SHEET_PATH));
+                BufferedImage spriteSheet = ImageIO.read(new File(SPRITE_SHEET_PATH));
+                sheetWidth = spriteSheet.getWidth();
+                sheetHeight = spriteSheet.getHeight();
+                sheetPixels = spriteSheet.getRGB(0, 0, sheetWidth, sheetHeight, null, 0, sheetWidth);
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new UncheckedIOException("Sprite sheet " + SPRITE_SHEET_PATH + " could not be read", e);
             }
         }
+        return sheetPixels;
+    }
 
-        for (int i = 0; i*TILE_SIZE < spriteSheet.getWidth();) {
-            BufferedImage bf = spriteSheet.getSubimage(i * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-
-            if (!imageTransparent) {
-                FrameData frame = calcFrameData(bf);
-
-                if (imageTransparent) {
-                    break;
-                }
-                frame.setFrameNumber(i);
-                frames.add(frame);
-                i++;
+    private static boolean isTransparent(int[] sheet, int x, int y) {
+        for (int row = y; row < y + TILE_SIZE; row++) {
+            for (int i = row * sheetWidth + x; i < row * sheetWidth + x + TILE_SIZE; i++) {
+                if ((sheet[i] >> 24) != 0x00)
+                    return false;
             }
         }
+        return true;
     }
 
-    // Rotates the complete AnimationData by a given angle
+    // Own pixel array per tile, the analysis paints over the mount points without touching the sheet
+    private static BufferedImage copyTile(int[] sheet, int x, int y) {
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = pixelsOf(tile);
+        for (int row = 0; row < TILE_SIZE; row++) {
+            System.arraycopy(sheet, (y + row) * sheetWidth + x, pixels, row * TILE_SIZE, TILE_SIZE);
+        }
+        return tile;
+    }
+
+    /**
+     * @return backing ARGB array of the image, null if it is not a plain TYPE_INT_ARGB image (subimages, other types)
+     */
+    private static int[] pixelsOf(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB || !(image.getRaster().getDataBuffer() instanceof DataBufferInt buffer))
+            return null;
+        if (!(image.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) || sampleModel.getScanlineStride() != image.getWidth()
+                || image.getRaster().getSampleModelTranslateX() != 0 || image.getRaster().getSampleModelTranslateY() != 0 || buffer.getOffset() != 0)
+            return null;
+        return buffer.getData();
+    }
+
+    // Rotates the complete AnimationData by a given angle, the frames are rotated and analysed in parallel
     public AnimationData rotateAnimDataByDegree(int angle) {
         AnimationData newAnimData = new AnimationData();
-        ArrayList<FrameData> newFrameList = new ArrayList<>();
-        int i = 0;
-        for (FrameData oldFrame : frames) {
+        FrameData[] newFrames = new FrameData[frames.size()];
+
+        IntStream.range(0, frames.size()).parallel().forEach(i -> {
+            FrameData oldFrame = frames.get(i);
             BufferedImage bf_ = rotateBfImg(oldFrame.getBufferedImage(), angle, oldFrame.getSwordStartPoint());
             double width_ = bf_.getWidth();
 
-            FrameData newFrame = calcFrameData(bf_);
+            // Rotated only once, the analysed image is the image of the frame (the sword length is known already)
+            FrameData newFrame = scanImage(bf_).frameData;
             newFrame.setAngle(angle);
             newFrame.setFrameNumber(i);
-            newFrame.setBufferedImage(rotateBfImg(oldFrame.getBufferedImage(), angle, oldFrame.getSwordStartPoint()));
 
             // SwordStartPoint Normal and Inverted have to be set here, because there is a chance that the green color
             // value gets lost while rotating the sword
             newFrame.setSwordStartPoint(oldFrame.getSwordStartPoint());
             newFrame.setSwordStartPointInverted(new Point2D(width_ - newFrame.getSwordStartPoint().getX(), newFrame.getSwordStartPoint().getY()));
 
-            // Calculating new SwordEndPoint
+            // Calculating new SwordEndPoint, with StrictMath because collisions depend on it
             double angle_ = Math.toRadians(angle);
             double x = oldFrame.getSwordEndPoint().getX();
             double y = oldFrame.getSwordEndPoint().getY();
-            double x_ = x * Math.cos(angle_) + y * Math.sin(angle_);
-            double y_ = y * Math.cos(angle_) - x * Math.sin(angle_);
+            double x_ = x * StrictMath.cos(angle_) + y * StrictMath.sin(angle_);
+            double y_ = y * StrictMath.cos(angle_) - x * StrictMath.sin(angle_);
 
             newFrame.setSwordEndPoint(new Point2D(x_, y_));
             newFrame.setSwordEndPointInverted(new Point2D(width_ - newFrame.getSwordEndPoint().getX(), newFrame.getSwordEndPoint().getY()));
-            newFrameList.add(newFrame);
-            i++;
-        }
-        newAnimData.frames = newFrameList;
+            newFrames[i] = newFrame;
+        });
+        newAnimData.frames = new ArrayList<>(Arrays.asList(newFrames));
         return newAnimData;
     }
 
     // Helper Method for rotateAnimDataByDegree()
-    private BufferedImage rotateBfImg(BufferedImage bf, int angle, Point2D anker) {
+    private static BufferedImage rotateBfImg(BufferedImage bf, int angle, Point2D anker) {
         double radian = Math.toRadians(angle);
         AffineTransform affineTransform = new AffineTransform();
         affineTransform.rotate(-radian, anker.getX(), anker.getY());
@@ -111,80 +209,130 @@ public class AnimationData {
     }
 
 
-    // Calculates all the important information out of a bufferedImage (hitbox, ..)
-    private FrameData calcFrameData(BufferedImage bufferedImage) {
-        // Data that has to be calculated
-        FrameData frameData = new FrameData(bufferedImage);
-        ArrayList<Point2D> hitBox = new ArrayList<>();
-        ArrayList<Point2D> hitBoxInverted = new ArrayList<>();
+    // Calculates all the important information out of a bufferedImage (hitbox, ..), package-private for the benchmarks
+    FrameData calcFrameData(BufferedImage bufferedImage) {
+        FrameScan scan = scanImage(bufferedImage);
+        resolveSwordLength(new FrameScan[]{scan});
+        return scan.frameData;
+    }
 
-        // For frame picking
-        imageTransparent = true;
+    // Scans any image, images without a plain ARGB array are copied into one first (the frame keeps the copy)
+    private static FrameScan scanImage(BufferedImage bufferedImage) {
+        int[] pixels = pixelsOf(bufferedImage);
+        if (pixels == null) { // One bulk copy
+            BufferedImage copy = new BufferedImage(bufferedImage.getWidth(), bufferedImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            pixels = pixelsOf(copy);
+            bufferedImage.getRGB(0, 0, copy.getWidth(), copy.getHeight(), pixels, 0, copy.getWidth());
+            bufferedImage = copy;
+        }
+        return scan(bufferedImage, pixels);
+    }
 
-        for (int row = 0; row < bufferedImage.getHeight(); row++) { // y-coordinates
+    /**
+     * Scans the ARGB pixels of the image row by row: player outline per row, sword mount points (painted over with
+     * the pixel to their left) and the sword length candidates. Only touches the given image, safe to run in parallel.
+     */
+    private static FrameScan scan(BufferedImage bufferedImage, int[] pixels) {
+        int width = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
 
-            boolean foundBlackLeft = false; // only calculate outer left-hitBox pixels
-            int lastBlackPixel_x = -1; // for outer right hitBox pixels
+        FrameScan scan = new FrameScan();
+        FrameData frameData = new FrameData(bufferedImage);
+        int[] hitBoxLeft = new int[height];
+        int[] hitBoxRight = new int[height];
+        Arrays.fill(hitBoxLeft, FrameData.NO_HITBOX);
+        Arrays.fill(hitBoxRight, FrameData.NO_HITBOX);
 
-            // Left hitBox pixels ++ green and blue pixels
-            for (int col = 0; col < bufferedImage.getWidth(); col++) { // x-coordinates
-                int currentRGB = bufferedImage.getRGB(col, row);
+        // Last mount points win, like setting them for every marker pixel
+        int startX = -1, startY = -1, endX = -1, endY = -1;
 
-                if (col == bufferedImage.getWidth() - 1 && lastBlackPixel_x != -1) { // Add outer right hitBox pixel, if it exists
-                    hitBox.add(new Point2D(lastBlackPixel_x, row));
-                    hitBoxInverted.add(new Point2D(bufferedImage.getWidth() - lastBlackPixel_x, row));
-                }
+        for (int row = 0; row < height; row++) { // y-coordinates
+            int rowStart = row * width;
+            int lastBlackPixel_x = -1; // for outer right hitBox pixels
+
+            for (int col = 0; col < width; col++) { // x-coordinates
+                int currentRGB = pixels[rowStart + col];
 
                 if ((currentRGB >> 24) == 0x00) // transparent pixel
                     continue;
 
-                imageTransparent = false; // non-transparent image
-
                 if (currentRGB == black) { // player pixel
+                    if (lastBlackPixel_x == -1) // only the outer left-hitBox pixel
+                        hitBoxLeft[row] = col;
                     lastBlackPixel_x = col;
-
-                    if (!foundBlackLeft) {
-                        foundBlackLeft = true;
-                        hitBox.add(new Point2D(col, row));
-                        hitBoxInverted.add(new Point2D(bufferedImage.getWidth() - col, row));
-                    }
                 }
 
                 // Setting the start mount point
                 else if (currentRGB == green) {
-                    frameData.setSwordStartPoint(new Point2D(col, row));
-                    frameData.setSwordStartPointInverted(new Point2D(bufferedImage.getWidth() - col, row));
-                    previousGreen++; // for swordLength calculation
-                    frameData.getBufferedImage().setRGB(col, row, bufferedImage.getRGB(col - 1, row));
+                    startX = col;
+                    startY = row;
+                    scan.greenPixels++; // for swordLength calculation
+                    pixels[rowStart + col] = pixels[rowStart + col - 1];
                 }
 
                 // Setting the end mount point
                 else if (currentRGB == blue) {
-                    frameData.setSwordEndPoint(new Point2D(col, row));
-                    frameData.setSwordEndPointInverted(new Point2D(bufferedImage.getWidth() - col, row));
-                    frameData.getBufferedImage().setRGB(col, row, bufferedImage.getRGB(col - 1, row));
+                    endX = col;
+                    endY = row;
+                    pixels[rowStart + col] = pixels[rowStart + col - 1];
                 }
 
                 // Calculation of the sword length
-                else if (currentRGB == red && previousGreen == 1) {
-                    calculateSwordLength(col, row, bufferedImage);
-                    previousGreen++;
+                else if (currentRGB == red) {
+                    if (scan.greenPixels == 0 && scan.swordLengthBeforeGreen == 0)
+                        scan.swordLengthBeforeGreen = calculateSwordLength(pixels, rowStart, col, width);
+                    else if (scan.greenPixels == 1 && scan.swordLengthAfterGreen == 0)
+                        scan.swordLengthAfterGreen = calculateSwordLength(pixels, rowStart, col, width);
                 }
             }
+
+            if (lastBlackPixel_x != -1) // Add outer right hitBox pixel, if it exists
+                hitBoxRight[row] = lastBlackPixel_x;
         }
-        frameData.setBufferedImage(bufferedImage);
-        frameData.setHitBox(hitBox);
-        frameData.setHitBoxInverted(hitBoxInverted);
-        return frameData;
+
+        if (startX != -1) {
+            frameData.setSwordStartPoint(new Point2D(startX, startY));
+            frameData.setSwordStartPointInverted(new Point2D(width - startX, startY));
+        }
+        if (endX != -1) {
+            frameData.setSwordEndPoint(new Point2D(endX, endY));
+            frameData.setSwordEndPointInverted(new Point2D(width - endX, endY));
+        }
+        frameData.setHitBox(hitBoxLeft, hitBoxRight);
+        scan.frameData = frameData;
+        return scan;
     }
 
-    private void calculateSwordLength(int col, int row, BufferedImage bufferedImage) { // only called once in calcFrameData
+    private static int calculateSwordLength(int[] pixels, int rowStart, int col, int width) {
         int swordLength = 1;
-        while (bufferedImage.getRGB(col, row) >> 24 != 0x00) {
+        while (col < width && pixels[rowStart + col] >> 24 != 0x00) {
             swordLength++;
             col++;
         }
-        CollisionController.setSwordLength(swordLength); // static access, instance cannot be created at this stage
+        return swordLength;
+    }
+
+    /**
+     * The sword length is measured at the first red pixel after the first green mount point of the sprite sheet.
+     * Frames are scanned in parallel, so the candidates of every frame are replayed here in sheet order.
+     */
+    private static synchronized void resolveSwordLength(FrameScan[] scans) {
+        for (FrameScan scan : scans) {
+            if (previousGreen == 1 && scan.swordLengthBeforeGreen != 0) {
+                CollisionController.setSwordLength(scan.swordLengthBeforeGreen); // static access, instance cannot be created at this stage
+                previousGreen++;
+            } else if (previousGreen == 0 && scan.greenPixels > 0 && scan.swordLengthAfterGreen != 0) {
+                CollisionController.setSwordLength(scan.swordLengthAfterGreen);
+                previousGreen++;
+            }
+            previousGreen += scan.greenPixels;
+        }
+    }
+
+    // Forget the sheet and the sword length, the next AnimationData reads and measures them again
+    public static synchronized void resetSpriteSheet() {
+        sheetPixels = null;
+        previousGreen = 0;
     }
 
     /**
@@ -7,7 +7,6 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 
 public class FrameData {
 
@@ -18,14 +17,14 @@ public class FrameData {
     private int frameNumber;
     private Image image;
     private BufferedImage bufferedImage;
-    private ArrayList<Point2D> hitBox;                  // Left and Right outline of the player
-    private ArrayList<Point2D> hitBoxInverted;          // Same as hitBox but inverted
+    public static final int NO_HITBOX = -1;
+    private int[] hitBoxLeft;                           // Left outline of the player per row, NO_HITBOX if the row is empty
+    private int[] hitBoxRight;                          // Right outline of the player per row
     private Point2D swordStartPoint, swordEndPoint;
     private Point2D swordStartPointInverted, swordEndPointInverted;
     private int angle = 0;
 
     public FrameData(BufferedImage bufferedImage) {
-        this.image = convertToFxImage(bufferedImage);
         this.bufferedImage = bufferedImage;
     }
 
@@ -33,7 +32,7 @@ public class FrameData {
         return SwingFXUtils.toFXImage(image, null);
     }
 
-    public static void drawHorizontallyFlipped(GraphicsContext gc, Image image, int x, int y) {
+    public static void drawHorizontallyFlipped(GraphicsContext gc, Image image, double x, double y) {
         double width = image.getWidth();
         double height = image.getHeight();
         gc.drawImage(image, x + (width / 2), y, -width, height);
@@ -42,10 +41,14 @@ public class FrameData {
 
     public void setBufferedImage(BufferedImage bufferedImage) {
         this.bufferedImage = bufferedImage;
-        this.image = convertToFxImage(bufferedImage);
+        this.image = null;
     }
 
+    // The fx image is only created when the frame is drawn for the first time (never in headless mode)
     public Image getImage() {
+        if (image == null) {
+            image = convertToFxImage(bufferedImage);
+        }
         return image;
     }
 
@@ -53,20 +56,36 @@ public class FrameData {
         return bufferedImage;
     }
 
-    public ArrayList<Point2D> getHitBox() {
-        return hitBox;
+    // Pixel memory of the frame, the fx image counts once it has been created
+    public long getResidentBytes() {
+        long bytes = 4L * bufferedImage.getWidth() * bufferedImage.getHeight();
+        return (image == null) ? bytes : bytes + 4L * (long) image.getWidth() * (long) image.getHeight();
     }
 
-    public void setHitBox(ArrayList<Point2D> hitBox) {
-        this.hitBox = hitBox;
+    /**
+     * @return x of the left player outline in the given row, NO_HITBOX if there is none
+     */
+    public int getHitBoxLeft(int row) {
+        return (row < 0 || row >= hitBoxLeft.length) ? NO_HITBOX : hitBoxLeft[row];
     }
 
-    public ArrayList<Point2D> getHitBoxInverted() {
-        return hitBoxInverted;
+    /**
+     * @return x of the right player outline in the given row, NO_HITBOX if there is none
+     */
+    public int getHitBoxRight(int row) {
+        return (row < 0 || row >= hitBoxRight.length) ? NO_HITBOX : hitBoxRight[row];
     }
 
-    public void setHitBoxInverted(ArrayList<Point2D> hitBoxInverted) {
-        this.hitBoxInverted = hitBoxInverted;
+    /**
+     * Inverted outlines are mirrored at the frame width: the left outline becomes width - hitBoxLeft[row]
+     */
+    public int getWidth() {
+        return bufferedImage.getWidth();
+    }
+
+    public void setHitBox(int[] hitBoxLeft, int[] hitBoxRight) {
+        this.hitBoxLeft = hitBoxLeft;
+        this.hitBoxRight = hitBoxRight;
     }
 
     public Point2D getSwordStartPoint() {
@@ -110,6 +129,19 @@ public class FrameData {
         this.swordEndPointInverted = swordEndPointInverted;
     }
 
+    // Unchecked access for the SpriteAtlas, frames without a sword have no mount points
+    Point2D swordStartPointOrNull() {
+        return swordStartPoint;
+    }
+
+    Point2D swordStartPointInvertedOrNull() {
+        return swordStartPointInverted;
+    }
+
+    Point2D swordEndPointOrNull() {
+        return swordEndPoint;
+    }
+
     public int getAngle() {
         return angle;
     }
@@ -0,0 +1,288 @@
+package stickfight2d.animation;
+
+import javafx.geometry.Point2D;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.controllers.CollisionController;
+import stickfight2d.enums.AnimationType;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.Debugger;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Baked result of the sprite sheet analysis: all frames (ARGB pixels, hitbox spans, sword points) of all animations
+ * and sword angles in one binary file. The file is memory-mapped on later launches, so no image is decoded, scanned
+ * or rotated at startup.
+ *
+ * Layout (little endian, so the pixels are copied into the images without byte swapping on x86/ARM):
+ * [int magic][int version][long crc of the sprite sheet][int swordLength][int entries]
+ * per entry:  [int nameLength][name bytes][int angle][int frames]
+ * per frame:  [int frameNumber][int angle][int width][int height][int[height] hitBoxLeft][int[height] hitBoxRight]
+ *             [8 doubles: sword start, start inverted, end, end inverted (x, y), NaN if the point is missing]
+ *             [int[width * height] ARGB pixels]
+ *
+ * The atlas is baked on the first run (or by running this class) and rebaked whenever the sprite sheet changes.
+ * Basic animations are decoded when the atlas is loaded, sword angles only when they are requested.
+ */
+public class SpriteAtlas {
+
+    private static final int MAGIC = 0x48444E47;    // "HDNG"
+    private static final int VERSION = 1;           // Increase whenever calcFrameData or the rotation changes
+
+    private final ByteBuffer buffer;
+    private final HashMap<AnimationType, AnimationData> basicAnimationData = new HashMap<>();
+    private final HashMap<Integer, Integer> swordAngleOffsets = new HashMap<>();    // angle -> position of its frames
+    private final int swordLength;
+
+    private SpriteAtlas(ByteBuffer buffer, int swordLength) {
+        this.buffer = buffer;
+        this.swordLength = swordLength;
+    }
+
+    // Bakes the atlas ahead of time, e.g. as part of the build
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Config.headless_mode = true;
+        Config.sprite_atlas_enabled = false;
+        Files.deleteIfExists(Paths.get(Config.SPRITE_ATLAS_PATH));
+
+        long start = System.nanoTime();
+        AnimationFactory animationFactory = AnimationFactory.getInstance();
+        write(animationFactory.getBasicAnimationData(), animationFactory.rotateAllSwordAngles());
+        System.out.printf("Sprite atlas baked to %s in %d ms%n", Config.SPRITE_ATLAS_PATH, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return the baked atlas, null if there is none, it is outdated (sprite sheet or format changed) or unreadable
+     */
+    public static SpriteAtlas load() {
+        Path atlasPath = Paths.get(Config.SPRITE_ATLAS_PATH);
+        if (!Files.isRegularFile(atlasPath)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(atlasPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != spriteSheetChecksum()) {
+                Debugger.log("Sprite atlas is outdated");
+                return null;
+            }
+
+            SpriteAtlas atlas = new SpriteAtlas(buffer, buffer.getInt());
+            int entries = buffer.getInt();
+
+            for (int i = 0; i < entries; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                AnimationType animationType = AnimationType.valueOf(new String(name, StandardCharsets.UTF_8));
+                int angle = buffer.getInt();
+
+                if (angle == 0) {
+                    atlas.basicAnimationData.put(animationType, readAnimationData(buffer));
+                } else {
+                    atlas.swordAngleOffsets.put(angle, buffer.position());
+                    skipAnimationData(buffer);
+                }
+            }
+            return atlas;
+
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Debugger.log("Sprite atlas could not be read: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the atlas to a temporary file first, a crash while baking never leaves a broken atlas behind
+     */
+    public static void write(Map<AnimationType, AnimationData> basicAnimationData, Map<Integer, AnimationData> swordAngleData) {
+        Path atlasPath = Paths.get(Config.SPRITE_ATLAS_PATH);
+        Path tempPath = Paths.get(Config.SPRITE_ATLAS_PATH + ".tmp");
+
+        try {
+            if (atlasPath.getParent() != null) {
+                Files.createDirectories(atlasPath.getParent());
+            }
+
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putLong(spriteSheetChecksum());
+                header.putInt(CollisionController.getSwordLength());
+                header.putInt(basicAnimationData.size() + swordAngleData.size());
+                writeFully(channel, header);
+
+                for (Map.Entry<AnimationType, AnimationData> entry : basicAnimationData.entrySet()) {
+                    writeFully(channel, encodeAnimationData(entry.getKey(), 0, entry.getValue()));
+                }
+                for (Map.Entry<Integer, AnimationData> entry : swordAngleData.entrySet()) {
+                    writeFully(channel, encodeAnimationData(AnimationType.SWORD, entry.getKey(), entry.getValue()));
+                }
+            }
+            Files.move(tempPath, atlasPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer encodeAnimationData(AnimationType animationType, int angle, AnimationData animationData) {
+        byte[] name = animationType.name().getBytes(StandardCharsets.UTF_8);
+
+        int size = 12 + name.length;
+        for (FrameData frame : animationData.getFrames()) {
+            BufferedImage image = frame.getBufferedImage();
+            size += 16 + 8 * image.getHeight() + 64 + 4 * image.getWidth() * image.getHeight();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(name.length);
+        buffer.put(name);
+        buffer.putInt(angle);
+        buffer.putInt(animationData.getFrames().size());
+
+        for (FrameData frame : animationData.getFrames()) {
+            BufferedImage image = frame.getBufferedImage();
+            int width = image.getWidth();
+            int height = image.getHeight();
+
+            buffer.putInt(frame.getFrameNumber());
+            buffer.putInt(frame.getAngle());
+            buffer.putInt(width);
+            buffer.putInt(height);
+            for (int row = 0; row < height; row++) {
+                buffer.putInt(frame.getHitBoxLeft(row));
+            }
+            for (int row = 0; row < height; row++) {
+                buffer.putInt(frame.getHitBoxRight(row));
+            }
+
+            putPoint(buffer, frame.swordStartPointOrNull());
+            putPoint(buffer, frame.swordStartPointInvertedOrNull());
+            putPoint(buffer, frame.swordEndPointOrNull());
+            putPoint(buffer, frame.getSwordEndPointInverted());
+
+            for (int pixel : image.getRGB(0, 0, width, height, null, 0, width)) {
+                buffer.putInt(pixel);
+            }
+        }
+        return buffer;
+    }
+
+    private static AnimationData readAnimationData(ByteBuffer buffer) {
+        int frameCount = buffer.getInt();
+        ArrayList<FrameData> frames = new ArrayList<>(frameCount);
+
+        for (int i = 0; i < frameCount; i++) {
+            int frameNumber = buffer.getInt();
+            int angle = buffer.getInt();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int[] hitBoxLeft = new int[height];
+            int[] hitBoxRight = new int[height];
+            buffer.asIntBuffer().get(hitBoxLeft);
+            buffer.position(buffer.position() + 4 * height);
+            buffer.asIntBuffer().get(hitBoxRight);
+            buffer.position(buffer.position() + 4 * height);
+
+            Point2D swordStart = readPoint(buffer);
+            Point2D swordStartInverted = readPoint(buffer);
+            Point2D swordEnd = readPoint(buffer);
+            Point2D swordEndInverted = readPoint(buffer);
+
+            // Bulk copy straight into the raster of the image
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            buffer.asIntBuffer().get(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+            buffer.position(buffer.position() + 4 * width * height);
+
+            FrameData frame = new FrameData(image);
+            frame.setFrameNumber(frameNumber);
+            frame.setAngle(angle);
+            frame.setHitBox(hitBoxLeft, hitBoxRight);
+            frame.setSwordStartPoint(swordStart);
+            frame.setSwordStartPointInverted(swordStartInverted);
+            frame.setSwordEndPoint(swordEnd);
+            frame.setSwordEndPointInverted(swordEndInverted);
+            frames.add(frame);
+        }
+        return new AnimationData(frames);
+    }
+
+    private static void skipAnimationData(ByteBuffer buffer) {
+        int frameCount = buffer.getInt();
+
+        for (int i = 0; i < frameCount; i++) {
+            buffer.position(buffer.position() + 8);     // frameNumber, angle
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            buffer.position(buffer.position() + 8 * height + 64 + 4 * width * height);
+        }
+    }
+
+    private static void putPoint(ByteBuffer buffer, Point2D point) {
+        buffer.putDouble(point == null ? Double.NaN : point.getX());
+        buffer.putDouble(point == null ? Double.NaN : point.getY());
+    }
+
+    private static Point2D readPoint(ByteBuffer buffer) {
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        return Double.isNaN(x) ? null : new Point2D(x, y);
+    }
+
+    private static long spriteSheetChecksum() throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(Paths.get(AnimationData.SPRITE_SHEET_PATH)));
+        return crc.getValue();
+    }
+
+    /**
+     * Getter Methods
+     */
+    public HashMap<AnimationType, AnimationData> getBasicAnimationData() {
+        return basicAnimationData;
+    }
+
+    /**
+     * Decodes the frames of a baked sword angle
+     *
+     * @return null if the angle is not part of the atlas
+     */
+    public AnimationData getSwordAngleData(int angle) {
+        Integer offset = swordAngleOffsets.get(angle);
+        if (offset == null) {
+            return null;
+        }
+
+        ByteBuffer entry = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        entry.position(offset);
+        return readAnimationData(entry);
+    }
+
+    public int getSwordLength() {
+        return swordLength;
+    }
+}
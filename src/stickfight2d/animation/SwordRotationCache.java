@@ -0,0 +1,126 @@
+package stickfight2d.animation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded cache of rotated sword animations. A rotation is only created when an angle is requested for the first time,
+ * the least recently used angles are evicted once the cache is full. Animations that are still in use keep their
+ * AnimationData, eviction only drops the cache reference. Shared by all matches, so every access is synchronized,
+ * except for creating a missing rotation: that runs outside the lock and never stalls the matches that hit.
+ */
+public class SwordRotationCache {
+
+    private final IntFunction<AnimationData> rotationSource;    // Creates the rotation of an angle between 1 and 359
+    private final int capacity;
+    private final int angleStep;
+    private final LinkedHashMap<Integer, AnimationData> rotations;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param rotationSource creates the rotated animation of an angle between 1 and 359
+     * @param capacity       maximum number of resident angles
+     * @param angleStep      angles are rounded to multiples of this step, 1 keeps every angle
+     */
+    public SwordRotationCache(IntFunction<AnimationData> rotationSource, int capacity, int angleStep) {
+        if (capacity < 1 || angleStep < 1) {
+            throw new IllegalArgumentException("Capacity and angle step of the SwordRotationCache have to be positive! capacity=" + capacity + ", angleStep=" + angleStep);
+        }
+        this.rotationSource = rotationSource;
+        this.capacity = capacity;
+        this.angleStep = angleStep;
+        this.rotations = new LinkedHashMap<>(capacity * 2, 0.75f, true) {     // access order = LRU order
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, AnimationData> eldest) {
+                if (size() > SwordRotationCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return angle in [0, 360) rounded to the angle step, 0 is the unrotated sword
+     */
+    public int quantize(int angle) {
+        angle = Math.floorMod(angle, 360);
+        return Math.floorMod(Math.round(angle / (float) angleStep) * angleStep, 360);
+    }
+
+    /**
+     * @param angle already quantized angle between 1 and 359
+     */
+    public AnimationData get(int angle) {
+        synchronized (this) {
+            AnimationData animationData = rotations.get(angle);
+            if (animationData != null) {
+                hits++;
+                return animationData;
+            }
+        }
+
+        // Rotations are deterministic, if two matches miss the same angle both results are equal and the first one is kept
+        AnimationData rotated = rotationSource.apply(angle);
+
+        synchronized (this) {
+            misses++;
+            AnimationData animationData = rotations.putIfAbsent(angle, rotated);
+            return (animationData != null) ? animationData : rotated;
+        }
+    }
+
+    public synchronized void clear() {
+        rotations.clear();
+    }
+
+    /**
+     * Getter Methods
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return (requests == 0) ? 0 : hits / (double) requests;
+    }
+
+    public synchronized int getResidentAngles() {
+        return rotations.size();
+    }
+
+    /**
+     * @return approximate pixel memory of all resident rotations (buffered images and the fx images created so far)
+     */
+    public synchronized long getResidentBytes() {
+        long bytes = 0;
+        for (AnimationData animationData : rotations.values()) {
+            for (FrameData frame : animationData.getFrames()) {
+                bytes += frame.getResidentBytes();
+            }
+        }
+        return bytes;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAngleStep() {
+        return angleStep;
+    }
+}
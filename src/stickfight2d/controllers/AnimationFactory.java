@@ -4,16 +4,22 @@ package stickfight2d.controllers;
 import stickfight2d.animation.Animation;
 import stickfight2d.animation.AnimationData;
 import stickfight2d.animation.FrameData;
+import stickfight2d.animation.SpriteAtlas;
+import stickfight2d.animation.SwordRotationCache;
 import stickfight2d.enums.AnimationType;
+import stickfight2d.events.AssetLoadEvent;
+import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
 
 import java.util.HashMap;
+import java.util.stream.IntStream;
 
 public class AnimationFactory implements Controller {
 
     private static AnimationFactory instance;
     private final HashMap<AnimationType, AnimationData> basicAnimationData = new HashMap<>();
-    private final HashMap<Integer, AnimationData> swordAngleData = new HashMap<>();
+    private final SwordRotationCache swordRotationCache;
+    private SpriteAtlas spriteAtlas;
 
     public static AnimationFactory getInstance()
     {
@@ -24,50 +30,86 @@ public class AnimationFactory implements Controller {
         return instance;
     }
 
+    // Drops the loaded animations, the next getInstance() call reads the sprite sheet again (used by the benchmarks)
+    public static void resetInstance() {
+        instance = null;
+        AnimationData.resetSpriteSheet();
+    }
 
     private AnimationFactory() {
-        // SWORD
-        basicAnimationData.put(AnimationType.SWORD, new AnimationData(0));
-        for (int i = 1; i < 360; i++) {
-            swordAngleData.put(i, basicAnimationData.get(AnimationType.SWORD).rotateAnimDataByDegree(i));
-
-            for (FrameData f : swordAngleData.get(i).getFrames()) {
-                if(f.getSwordEndPoint() == null){
-                    Debugger.log(f.getAngle()+" -> "+f.getFrameNumber());
-                }
+        // Sword rotations are created on demand
+        swordRotationCache = new SwordRotationCache(this::loadSwordAngle, Config.sword_rotation_cache_size, Config.sword_angle_step);
+
+        // Baked atlas of a previous run, see SpriteAtlas
+        if (Config.sprite_atlas_enabled) {
+            AssetLoadEvent event = new AssetLoadEvent();
+            event.begin();
+            spriteAtlas = SpriteAtlas.load();
+            event.commit("sprite atlas", Config.SPRITE_ATLAS_PATH, -1);
+            if (spriteAtlas != null) {
+                basicAnimationData.putAll(spriteAtlas.getBasicAnimationData());
+                CollisionController.setSwordLength(spriteAtlas.getSwordLength());
+                Debugger.log("Animations loaded from sprite atlas");
+                return;
             }
         }
 
-        // PLAYER
-        basicAnimationData.put(AnimationType.PLAYER_WALK, new AnimationData(1));
-
-        basicAnimationData.put(AnimationType.PLAYER_JUMP_START, new AnimationData(2));
-        basicAnimationData.put(AnimationType.PLAYER_JUMP_END, new AnimationData(3));
-        basicAnimationData.put(AnimationType.PLAYER_JUMP_PEAK, new AnimationData(4));
-
-        basicAnimationData.put(AnimationType.PLAYER_IDLE_LOW, new AnimationData(5));
-        basicAnimationData.put(AnimationType.PLAYER_IDLE_MEDIUM, new AnimationData(6));
-        basicAnimationData.put(AnimationType.PLAYER_IDLE_HIGH, new AnimationData(7));
-        basicAnimationData.put(AnimationType.PLAYER_IDLE_HOLD_UP, new AnimationData(8));
-
-        basicAnimationData.put(AnimationType.PLAYER_STAB_LOW, new AnimationData(9));
-        basicAnimationData.put(AnimationType.PLAYER_STAB_MEDIUM, new AnimationData(10));
-        basicAnimationData.put(AnimationType.PLAYER_STAB_HIGH, new AnimationData(11));
+        // Sprite sheet row of every animation, the rows are analysed in parallel
+        AnimationType[] rows = {
+                AnimationType.SWORD,
+                AnimationType.PLAYER_WALK,
+                AnimationType.PLAYER_JUMP_START, AnimationType.PLAYER_JUMP_END, AnimationType.PLAYER_JUMP_PEAK,
+                AnimationType.PLAYER_IDLE_LOW, AnimationType.PLAYER_IDLE_MEDIUM, AnimationType.PLAYER_IDLE_HIGH, AnimationType.PLAYER_IDLE_HOLD_UP,
+                AnimationType.PLAYER_STAB_LOW, AnimationType.PLAYER_STAB_MEDIUM, AnimationType.PLAYER_STAB_HIGH,
+                AnimationType.PLAYER_DYING, AnimationType.PLAYER_CROUCH,
+                AnimationType.PLAYER_IDLE_NO_SWORD, AnimationType.PLAYER_STAB_NO_SWORD,
+                AnimationType.PLAYER_DROPKICK,
+                AnimationType.PLAYER_STEP_HIGH, AnimationType.PLAYER_STEP_MEDIUM, AnimationType.PLAYER_STEP_LOW,
+                AnimationType.PLAYER_WIN
+        };
+        AnimationData[] animationData = AnimationData.loadRows(IntStream.range(0, rows.length).toArray());
+        for (int row = 0; row < rows.length; row++) {
+            basicAnimationData.put(rows[row], animationData[row]);
+        }
 
-        basicAnimationData.put(AnimationType.PLAYER_DYING, new AnimationData(12));
-        basicAnimationData.put(AnimationType.PLAYER_CROUCH, new AnimationData(13));
+        // The atlas holds all angles, so later runs never have to rotate
+        if (Config.sprite_atlas_enabled) {
+            SpriteAtlas.write(basicAnimationData, rotateAllSwordAngles());
+        }
+    }
 
-        basicAnimationData.put(AnimationType.PLAYER_IDLE_NO_SWORD, new AnimationData(14));
-        basicAnimationData.put(AnimationType.PLAYER_STAB_NO_SWORD, new AnimationData(15));
+    // Baked angle if there is an atlas, otherwise the sword is rotated now
+    private AnimationData loadSwordAngle(int angle) {
+        if (spriteAtlas != null) {
+            AnimationData animationData = spriteAtlas.getSwordAngleData(angle);
+            if (animationData != null) {
+                return animationData;
+            }
+        }
+        return rotateSword(angle);
+    }
 
-        basicAnimationData.put(AnimationType.PLAYER_DROPKICK, new AnimationData(16));
+    private AnimationData rotateSword(int angle) {
+        AnimationData animationData = basicAnimationData.get(AnimationType.SWORD).rotateAnimDataByDegree(angle);
 
-        basicAnimationData.put(AnimationType.PLAYER_STEP_HIGH, new AnimationData(17));
-        basicAnimationData.put(AnimationType.PLAYER_STEP_MEDIUM, new AnimationData(18));
-        basicAnimationData.put(AnimationType.PLAYER_STEP_LOW, new AnimationData(19));
+        for (FrameData f : animationData.getFrames()) {
+            if(f.getSwordEndPoint() == null){
+                Debugger.log(f.getAngle()+" -> "+f.getFrameNumber());
+            }
+        }
+        return animationData;
+    }
 
-        basicAnimationData.put(AnimationType.PLAYER_WIN, new AnimationData(20));
+    // All angles from 1 to 359 rotated in parallel, only needed to bake the SpriteAtlas
+    public HashMap<Integer, AnimationData> rotateAllSwordAngles() {
+        AnimationData[] rotated = new AnimationData[360];
+        IntStream.range(1, 360).parallel().forEach(angle -> rotated[angle] = rotateSword(angle));
 
+        HashMap<Integer, AnimationData> swordAngleData = new HashMap<>();
+        for (int i = 1; i < 360; i++) {
+            swordAngleData.put(i, rotated[i]);
+        }
+        return swordAngleData;
     }
 
     @Override
@@ -75,6 +117,14 @@ public class AnimationFactory implements Controller {
 
     }
 
+    public HashMap<AnimationType, AnimationData> getBasicAnimationData() {
+        return basicAnimationData;
+    }
+
+    public SwordRotationCache getSwordRotationCache() {
+        return swordRotationCache;
+    }
+
     // Get any kind of animation by the animationType enum
     public Animation getAnimation(AnimationType animationType){
         return new Animation(animationType, basicAnimationData.get(animationType));
@@ -104,14 +154,13 @@ public class AnimationFactory implements Controller {
         return new Animation(animType, basicAnimationData.get(animType));
     }
 
-    // Get the sword animation that corresponds to a given angle
+    // Get the sword animation that corresponds to a given angle (rounded to Config.sword_angle_step)
     public Animation getSwordAnimAngle(int angle){
-        if(angle == 0 || angle == 360){
+        angle = swordRotationCache.quantize(angle);
+        if(angle == 0){
             return getAnimation(AnimationType.SWORD);
-        }else if(angle < 0){
-            return new Animation(AnimationType.SWORD, swordAngleData.get(360+angle));
         }else{
-            return new Animation(AnimationType.SWORD, swordAngleData.get(angle));
+            return new Animation(AnimationType.SWORD, swordRotationCache.get(angle));
         }
     }
 }
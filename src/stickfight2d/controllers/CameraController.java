@@ -1,40 +1,45 @@
 package stickfight2d.controllers;
 
 import javafx.geometry.Point2D;
-import stickfight2d.GameLoop;
+import stickfight2d.MatchContext;
 import stickfight2d.Main;
 import stickfight2d.enums.PlayerType;
-import stickfight2d.misc.Debugger;
+import stickfight2d.interfaces.Snapshotable;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
+import stickfight2d.world.WorldObject;
 
-public class CameraController implements Controller {
+public class CameraController implements Controller, Snapshotable<CameraController.State> {
 
-    private static CameraController instance;
+    private final WorldObject world;
     //players start positions
     Point2D player1StartPosition = null;
     Point2D player2StartPosition = null;
     //camera position
     private double camX,camY, desiredOffset;
+    private double previousCamX, previousCamY;      // Before the last tick, see getInterpolatedCamX
 
-    private CameraController() {
+    // One per match, created by the MatchContext before the players exist
+    public CameraController(WorldObject world) {
+        this.world = world;
         camX = 0;
         camY = 0;
     }
 
+    // Camera of the current match, see MatchContext
     public static CameraController getInstance() {
-        if (instance == null) {
-            Debugger.log("Camera Controller instantiated");
-            instance = new CameraController();
-        }
-        return instance;
+        return MatchContext.current().getCameraController();
     }
 
     @Override
     public void update(long diffMillis) {
+        previousCamX = camX;
+        previousCamY = camY;
 
         //get players start positions when available (should be first update)
-        //NOTE: this has to be in update method because currentlevel is not instantiated when cameracontroller is created
+        //NOTE: this has to be in update method because the players are not instantiated when cameracontroller is created
         if (player1StartPosition == null || player2StartPosition == null) {
-            if (GameLoop.currentLevel != null) {
+            if (world.getPlayer1() != null) {
                 initStartValues();
             }
 
@@ -43,8 +48,8 @@ public class CameraController implements Controller {
         }
 
         //calculate differences to start positions
-        Point2D diffPlayer1 = new Point2D(GameLoop.currentLevel.getPlayer1().getX() - player1StartPosition.getX(), GameLoop.currentLevel.getPlayer1().getY() - player1StartPosition.getY());
-        Point2D diffPlayer2 = new Point2D(GameLoop.currentLevel.getPlayer2().getX() - player2StartPosition.getX(), GameLoop.currentLevel.getPlayer2().getY() - player2StartPosition.getY());
+        Point2D diffPlayer1 = new Point2D(world.getPlayer1().getX() - player1StartPosition.getX(), world.getPlayer1().getY() - player1StartPosition.getY());
+        Point2D diffPlayer2 = new Point2D(world.getPlayer2().getX() - player2StartPosition.getX(), world.getPlayer2().getY() - player2StartPosition.getY());
 
 
         //calculate camera position based on win condition
@@ -73,8 +78,8 @@ public class CameraController implements Controller {
 
     //this method has to be called in first update loop after startup or in new level
     private void initStartValues() {
-        player1StartPosition = new Point2D(GameLoop.currentLevel.getPlayer1().getX(), GameLoop.currentLevel.getPlayer1().getY());
-        player2StartPosition = new Point2D(GameLoop.currentLevel.getPlayer2().getX(), GameLoop.currentLevel.getPlayer2().getY());
+        player1StartPosition = new Point2D(world.getPlayer1().getX(), world.getPlayer1().getY());
+        player2StartPosition = new Point2D(world.getPlayer2().getX(), world.getPlayer2().getY());
 
         //DONT LOOK AT ME IM UGLY
         //desiredOffset = ((player1StartPosition.getX() - (player1StartPosition.getX() + (Main.canvas.getWidth() - player2StartPosition.getX())) / 2) / 2);
@@ -88,9 +93,81 @@ public class CameraController implements Controller {
         return new Point2D(newX,newY);
     }
 
+    // Same as convertWorldToScreen, without creating a point
+    public double convertWorldToScreenX(int x) {
+        return x - camX;
+    }
+
+    public double convertWorldToScreenY(int y) {
+        return y - camY;
+    }
+
+    public double getCamX() {
+        return camX;
+    }
+
+    public double getCamY() {
+        return camY;
+    }
+
+    /**
+     * @param alpha progress between the last and the next tick, see FramePacer.getAlpha
+     */
+    public double getInterpolatedCamX(double alpha) {
+        return previousCamX + (camX - previousCamX) * alpha;
+    }
+
+    public double getInterpolatedCamY(double alpha) {
+        return previousCamY + (camY - previousCamY) * alpha;
+    }
+
     private double lerp(double a, double b, double f) {
         return (a * (1.0 - f)) + (b * f);
         //return a + f * (b - a);
     }
 
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        player1StartPosition = state.player1StartPosition;
+        player2StartPosition = state.player2StartPosition;
+        camX = state.camX;
+        camY = state.camY;
+        previousCamX = camX;
+        previousCamY = camY;
+        desiredOffset = state.desiredOffset;
+    }
+
+    public static final class State {
+        private final Point2D player1StartPosition, player2StartPosition;
+        private final double camX, camY, desiredOffset;
+
+        private State(CameraController c) {
+            player1StartPosition = c.player1StartPosition;
+            player2StartPosition = c.player2StartPosition;
+            camX = c.camX;
+            camY = c.camY;
+            desiredOffset = c.desiredOffset;
+        }
+
+        public State(KeyframeReader in) {
+            player1StartPosition = in.readPoint();
+            player2StartPosition = in.readPoint();
+            camX = in.readDouble();
+            camY = in.readDouble();
+            desiredOffset = in.readDouble();
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writePoint(player1StartPosition);
+            out.writePoint(player2StartPosition);
+            out.writeDouble(camX);
+            out.writeDouble(camY);
+            out.writeDouble(desiredOffset);
+        }
+    }
 }
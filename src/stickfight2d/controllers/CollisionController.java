@@ -2,44 +2,44 @@ package stickfight2d.controllers;
 
 import javafx.geometry.Point2D;
 import javafx.scene.paint.Color;
-import stickfight2d.GameLoop;
-import stickfight2d.Main;
+import stickfight2d.MatchContext;
+import stickfight2d.animation.FrameData;
 import stickfight2d.enums.AnimationType;
 import stickfight2d.enums.DirectionType;
 import stickfight2d.enums.PlayerType;
-import stickfight2d.misc.Debugger;
+import stickfight2d.events.CollisionEvent;
+import stickfight2d.interfaces.Snapshotable;
+import stickfight2d.misc.Config;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 import stickfight2d.world.*;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.EnumSet;
 
-public class CollisionController implements Controller {
+public class CollisionController implements Controller, Snapshotable<CollisionController.State> {
 
     // ----------------------------------------------------------------------------------------------------
     // --- Instance & Constructor
 
-    private static CollisionController instance;
-
+    // Collisions of the current match, see MatchContext
     public static CollisionController getInstance() {
-        if (instance == null) {
-            Debugger.log("Collision Controller instantiated");
-            instance = new CollisionController();
-        }
-        return instance;
+        return MatchContext.current().getCollisionController();
     }
 
     // --- World Data
     // --- --- Obstacle Data
     private final ArrayList<RectangleObstacle> obstacles = new ArrayList<>();
-    private final BackgroundObject background = GameLoop.currentLevel.getBackground();
+    private final ObstacleIndex obstacleIndex;
+    private final int[] obstacleCandidates;
+    private final WorldObject world;
+    private final BackgroundObject background;
 
     // --- --- Player Data
     private final ArrayList<PlayerObject> players = new ArrayList<>();
 
     // --- --- --- Attack related data
-    private final HashSet<AnimationType> nonStabAnimations = Stream.of(
+    private final EnumSet<AnimationType> nonStabAnimations = EnumSet.of(
             AnimationType.PLAYER_WALK,
             AnimationType.PLAYER_IDLE_HOLD_UP,
             AnimationType.PLAYER_JUMP_START,
@@ -49,7 +49,7 @@ public class CollisionController implements Controller {
             AnimationType.SWORD,
             AnimationType.PLAYER_IDLE_NO_SWORD,
             AnimationType.PLAYER_CROUCH,
-            AnimationType.PLAYER_WIN).collect(Collectors.toCollection(HashSet::new));
+            AnimationType.PLAYER_WIN);
     private static int swordLength = 0; // swordLength for sword-tip-calculation
 
     // --- --- --- Obstacle-Collision related data
@@ -72,26 +72,37 @@ public class CollisionController implements Controller {
     // --- --- Attack related states
     private boolean player1_hit_player2 = false;
     private boolean player2_hit_player1 = false;
-    private Point2D swordCollisionPoint = null;
+    private int swordCollisionX = 0, swordCollisionY = 0;
     private boolean swordsHitting = false;
     private boolean attackBlocked = false;
     private AnimationType p1_prevState = AnimationType.PLAYER_IDLE_MEDIUM;
     private AnimationType p2_prevState = AnimationType.PLAYER_IDLE_MEDIUM;
     private int disarming = 0;
+    private int prevEventFlags = 0;     // EVENT_* of the last tick, events are only committed when they begin
     // ----------------------------------------------------------------------------------------------------
 
 
-    private CollisionController() {
-        for (GameObject obj : GameLoop.currentLevel.getGameObjects()) { // Collect PlayerObjects
+    // One per match, created by the MatchContext once the objects of the world exist
+    public CollisionController(WorldObject world) {
+        this.world = world;
+        this.background = world.getBackground();
+
+        for (GameObject obj : world.getGameObjects()) { // Collect PlayerObjects
             if (obj instanceof PlayerObject) {
                 players.add((PlayerObject) obj);
-                ((PlayerObject) obj).currentObstacleStanding = GameLoop.currentLevel.getGround();
+                ((PlayerObject) obj).currentObstacleStanding = world.getGround();
 
             } else if (obj instanceof RectangleObstacle) { // Collect RectangleObjects
                 obstacles.add((RectangleObstacle) obj);
             }
         }
 
+        obstacleIndex = new ObstacleIndex(world.getLevel());
+        if (obstacleIndex.size() != obstacles.size()) {
+            throw new IllegalArgumentException("Obstacles of the world do not match its level!");
+        }
+        obstacleCandidates = new int[obstacles.size()];
+
         calculatePlayerRectangleHitBox();
     }
 
@@ -109,6 +120,7 @@ public class CollisionController implements Controller {
 
         swordsHitting = checkCollisionSwordSword(players.get(0), players.get(1));
         disarming = checkDisarm();
+        commitCollisionEvents();
 
         checkWinningCondition();
         checkMapBoundaries();
@@ -129,8 +141,10 @@ public class CollisionController implements Controller {
                 || (player1.getSwordObject() == null && player1.getAnimation().getAnimationType() != AnimationType.PLAYER_STAB_NO_SWORD)) // Prevent horizontal stabbing in specific animations
             return false;
 
-        Point2D swordTip;
-        ArrayList<Point2D> hitBox_Player2;
+        FrameData frame_Player1 = player1.getAnimation().getCurrentFrame();
+        FrameData frame_Player2 = player2.getAnimation().getCurrentFrame();
+        int swordTipX, swordTipY;
+        boolean hitBoxInverted;
         int offsetHitBox = 0;
         int offset_x = swordLength;
 
@@ -141,20 +155,22 @@ public class CollisionController implements Controller {
          * Get relevant hitBox of player2 (normal or inverted) and swordTip-position of player1 (normal or inverted)
          */
         if (player2.getDirectionType() == DirectionType.RIGHT) { // --> player1 direction must be Direction.LEFT
-            hitBox_Player2 = player2.getAnimation().getCurrentFrame().getHitBox();
+            hitBoxInverted = false;
             offset_x *= (-1);
 
-            Point2D swordStartPoint = player1.getAnimation().getCurrentFrame().getSwordStartPointInverted();
-            swordTip = new Point2D(player1.getX() + swordStartPoint.getX() - playersWidthHeight[0] - swordLength, player1.getY() + swordStartPoint.getY());
-            player2_block = player2.getAnimation().getCurrentFrame().getSwordStartPoint();
+            Point2D swordStartPoint = frame_Player1.getSwordStartPointInverted();
+            swordTipX = player1.getX() + (int) swordStartPoint.getX() - playersWidthHeight[0] - swordLength;
+            swordTipY = player1.getY() + (int) swordStartPoint.getY();
+            player2_block = frame_Player2.getSwordStartPoint();
 
         } else { // --> player1 direction must be Direction.RIGHT
-            hitBox_Player2 = player2.getAnimation().getCurrentFrame().getHitBoxInverted();
+            hitBoxInverted = true;
             offsetHitBox = playersWidthHeight[0] + 2;
 
-            Point2D swordStartPoint = player1.getAnimation().getCurrentFrame().getSwordStartPoint();
-            swordTip = new Point2D(player1.getX() + swordStartPoint.getX() + swordLength, player1.getY() + swordStartPoint.getY());
-            player2_block = player2.getAnimation().getCurrentFrame().getSwordStartPointInverted();
+            Point2D swordStartPoint = frame_Player1.getSwordStartPoint();
+            swordTipX = player1.getX() + (int) swordStartPoint.getX() + swordLength;
+            swordTipY = player1.getY() + (int) swordStartPoint.getY();
+            player2_block = frame_Player2.getSwordStartPointInverted();
         }
 
         /* Blocking
@@ -163,37 +179,37 @@ public class CollisionController implements Controller {
          *      >> Check if attack has to be blocked on x-axis depending on direction the player is looking at
          */
         if (player2.getAnimation().getAnimationType() == AnimationType.PLAYER_IDLE_HOLD_UP && player1.getAnimation().getAnimationType() != AnimationType.PLAYER_STAB_NO_SWORD) {
-            if (swordTip.getY() <= player2.getY() + player2_block.getY() && swordTip.getY() >= player2.getY() + player2_block.getY() - swordLength) {
+            int blockX = player2.getX() + (int) player2_block.getX();
+            int blockY = player2.getY() + (int) player2_block.getY();
 
-                attackBlocked = (player2.getDirectionType() == DirectionType.RIGHT && swordTip.getX() <= player2.getX() + player2_block.getX() && player1.getX() > player2.getX())
-                        || (player2.getDirectionType() == DirectionType.LEFT && swordTip.getX() >= player2.getX() + player2_block.getX() - offsetHitBox && player1.getX() < player2.getX());
+            if (swordTipY <= blockY && swordTipY >= blockY - swordLength) {
 
-                if (attackBlocked)
-                    swordCollisionPoint = new Point2D(swordTip.getX(), swordTip.getY());
+                attackBlocked = (player2.getDirectionType() == DirectionType.RIGHT && swordTipX <= blockX && player1.getX() > player2.getX())
+                        || (player2.getDirectionType() == DirectionType.LEFT && swordTipX >= blockX - offsetHitBox && player1.getX() < player2.getX());
+
+                if (attackBlocked) {
+                    setSwordCollisionPoint(swordTipX, swordTipY);
+                    commitCollisionEvent(CollisionEvent.BLOCK, player1.getPlayerNumber());
+                }
             }
         }
 
         /*
          * Get x-points of the hitBox that are relevant in the sword-tip y-coordinate
          */
-        int x_front = Integer.MIN_VALUE;
-        int x_back = Integer.MIN_VALUE;
-
-        for (Point2D p : hitBox_Player2) {
-            if (swordTip.getY() == player2.getY() + p.getY()) { // X and Y must be ints
-                if (x_front == Integer.MIN_VALUE)
-                    x_front = (int) p.getX() + offset_x;
-                else
-                    x_back = (int) p.getX();
-            }
-        }
+        int row = swordTipY - player2.getY();
+        int x_left = frame_Player2.getHitBoxLeft(row);
+        int x_right = frame_Player2.getHitBoxRight(row);
 
         /*
          * No collision possible, sword not on the same y position as the player
          */
-        if (x_back == Integer.MIN_VALUE)
+        if (x_left == FrameData.NO_HITBOX || x_right == FrameData.NO_HITBOX)
             return false;
 
+        int x_front = (hitBoxInverted ? frame_Player2.getWidth() - x_left : x_left) + offset_x;
+        int x_back = hitBoxInverted ? frame_Player2.getWidth() - x_right : x_right;
+
         /*
          * Check Fist collision instead of sword collision
          */
@@ -203,8 +219,8 @@ public class CollisionController implements Controller {
         /*
          * Check Sword collision
          */
-        int firstSign = ((int) swordTip.getX() - ((x_front + player2.getX()) - offsetHitBox));
-        int secondSign = ((int) swordTip.getX() - ((x_back + player2.getX()) - offsetHitBox));
+        int firstSign = (swordTipX - ((x_front + player2.getX()) - offsetHitBox));
+        int secondSign = (swordTipX - ((x_back + player2.getX()) - offsetHitBox));
 
         return firstSign * secondSign <= 0; // Hit: negative or zero ; Miss: positive
     }
@@ -218,21 +234,21 @@ public class CollisionController implements Controller {
      * @return [true] if player1 hits player2 with his fists
      */
     private boolean checkCollisionFist(PlayerObject player1, PlayerObject player2, int p2_x_front, int p2_x_back) {
-        Point2D fist;
         Point2D fistStartPoint;
+        int fistX;
         int offsetHitBox = 0;
 
         if (player1.getDirectionType() == DirectionType.LEFT) {
             fistStartPoint = player1.getAnimation().getCurrentFrame().getSwordStartPointInverted();
-            fist = new Point2D(player1.getX() + fistStartPoint.getX() - playersWidthHeight[0], player1.getY() + fistStartPoint.getY());
+            fistX = player1.getX() + (int) fistStartPoint.getX() - playersWidthHeight[0];
         } else {
             offsetHitBox = playersWidthHeight[0] + 2;
             fistStartPoint = player1.getAnimation().getCurrentFrame().getSwordStartPoint();
-            fist = new Point2D(player1.getX() + fistStartPoint.getX(), player1.getY() + fistStartPoint.getY());
+            fistX = player1.getX() + (int) fistStartPoint.getX();
         }
 
-        int firstSign = ((int) fist.getX() - ((p2_x_front + player2.getX()) - offsetHitBox));
-        int secondSign = ((int) fist.getX() - ((p2_x_back + player2.getX()) - offsetHitBox));
+        int firstSign = (fistX - ((p2_x_front + player2.getX()) - offsetHitBox));
+        int secondSign = (fistX - ((p2_x_back + player2.getX()) - offsetHitBox));
 
         if (firstSign * secondSign <= 0) { // Hit: negative or zero ; Miss: positive
             player1.setFistCounter(player1.getFistCounter() + 1);
@@ -256,32 +272,36 @@ public class CollisionController implements Controller {
                 || nonStabAnimations.contains(player2.getAnimation().getAnimationType())) // Player 2 in hold-up animation
             return false;
 
-        Point2D swordTip1, swordGrip2, swordTip2;
+        int swordTip1X, swordTip1Y, swordTip2X, swordTip2Y, swordGrip2X;
         int offsetSword = 4;
 
         if (player1.getDirectionType() == DirectionType.RIGHT) { // --> p2 LEFT
             Point2D swordStartPoint = player1.getAnimation().getCurrentFrame().getSwordStartPoint();
-            swordTip1 = new Point2D(player1.getX() + swordStartPoint.getX() + swordLength, player1.getY() + swordStartPoint.getY());
+            swordTip1X = player1.getX() + (int) swordStartPoint.getX() + swordLength;
+            swordTip1Y = player1.getY() + (int) swordStartPoint.getY();
 
             Point2D swordStartPoint2 = player2.getAnimation().getCurrentFrame().getSwordStartPointInverted();
-            swordTip2 = new Point2D(player2.getX() + swordStartPoint2.getX() - 2 * swordLength + offsetSword, player2.getY() + swordStartPoint2.getY());
-            swordGrip2 = new Point2D(player2.getX() + swordStartPoint2.getX() - swordLength + offsetSword, player2.getY() + swordStartPoint2.getY());
+            swordTip2X = player2.getX() + (int) swordStartPoint2.getX() - 2 * swordLength + offsetSword;
+            swordTip2Y = player2.getY() + (int) swordStartPoint2.getY();
+            swordGrip2X = player2.getX() + (int) swordStartPoint2.getX() - swordLength + offsetSword;
 
         } else { // --> p2 RIGHT
             Point2D swordStartPoint = player2.getAnimation().getCurrentFrame().getSwordStartPoint();
-            swordTip1 = new Point2D(player2.getX() + swordStartPoint.getX() + swordLength, player2.getY() + swordStartPoint.getY());
+            swordTip1X = player2.getX() + (int) swordStartPoint.getX() + swordLength;
+            swordTip1Y = player2.getY() + (int) swordStartPoint.getY();
 
             Point2D swordStartPoint2 = player1.getAnimation().getCurrentFrame().getSwordStartPointInverted();
-            swordTip2 = new Point2D(player1.getX() + swordStartPoint2.getX() - 2 * swordLength + offsetSword, player1.getY() + swordStartPoint2.getY());
-            swordGrip2 = new Point2D(player1.getX() + swordStartPoint2.getX() - swordLength + offsetSword, player1.getY() + swordStartPoint2.getY());
+            swordTip2X = player1.getX() + (int) swordStartPoint2.getX() - 2 * swordLength + offsetSword;
+            swordTip2Y = player1.getY() + (int) swordStartPoint2.getY();
+            swordGrip2X = player1.getX() + (int) swordStartPoint2.getX() - swordLength + offsetSword;
         }
 
         // Offset of 2 pixels in each direction, assuming that the sword is 2-5 pixels wide
-        boolean onSameY = (swordTip1.getY() - 2 <= swordTip2.getY() && swordTip2.getY() <= swordTip1.getY() + 2);
-        boolean onSameXInterval = (swordTip1.getX() - swordTip2.getX()) * (swordTip1.getX() - swordGrip2.getX()) <= 0;
+        boolean onSameY = (swordTip1Y - 2 <= swordTip2Y && swordTip2Y <= swordTip1Y + 2);
+        boolean onSameXInterval = (long) (swordTip1X - swordTip2X) * (swordTip1X - swordGrip2X) <= 0;
 
         if (onSameY && onSameXInterval) {
-            swordCollisionPoint = new Point2D(swordTip1.getX(), swordTip1.getY());
+            setSwordCollisionPoint(swordTip1X, swordTip1Y);
             return true;
         }
 
@@ -289,6 +309,35 @@ public class CollisionController implements Controller {
     }
 
 
+    private static final int EVENT_HIT_P1 = 1, EVENT_HIT_P2 = 2, EVENT_CLASH = 4, EVENT_DISARM_P1 = 8, EVENT_DISARM_P2 = 16;
+
+    // Hits, clashes and disarms that began this tick for flight recordings, blocks are committed where they are detected
+    private void commitCollisionEvents() {
+        int flags = (player1_hit_player2 ? EVENT_HIT_P1 : 0) | (player2_hit_player1 ? EVENT_HIT_P2 : 0)
+                | (swordsHitting ? EVENT_CLASH : 0)
+                | (disarming == 1 ? EVENT_DISARM_P1 : 0) | (disarming == 2 ? EVENT_DISARM_P2 : 0);
+        int began = flags & ~prevEventFlags;
+        prevEventFlags = flags;
+        if (began == 0)
+            return;
+
+        if ((began & EVENT_HIT_P1) != 0)
+            commitCollisionEvent(CollisionEvent.HIT, PlayerType.PLAYER_ONE);
+        if ((began & EVENT_HIT_P2) != 0)
+            commitCollisionEvent(CollisionEvent.HIT, PlayerType.PLAYER_TWO);
+        if ((began & EVENT_CLASH) != 0)
+            commitCollisionEvent(CollisionEvent.CLASH, null);
+        if ((began & EVENT_DISARM_P1) != 0)
+            commitCollisionEvent(CollisionEvent.DISARM, PlayerType.PLAYER_ONE);
+        if ((began & EVENT_DISARM_P2) != 0)
+            commitCollisionEvent(CollisionEvent.DISARM, PlayerType.PLAYER_TWO);
+    }
+
+    private void commitCollisionEvent(String kind, PlayerType player) {
+        CollisionEvent.commit(kind, player, world.getBackground().getWorldState(), !world.isEffectsEnabled());
+    }
+
+
     /**
      * Checks, if a player is being disarmed
      *
@@ -336,21 +385,15 @@ public class CollisionController implements Controller {
         boolean headBump = false;
         DirectionType runningDirection = background.getCurrentEnabledRunningDirection();
 
+        // Only obstacles that are solid for the player in this map state and overlap him horizontally, see ObstacleIndex
+        int candidates = obstacleIndex.query(background.getWorldState(), player.getPlayerNumber(), runningDirection,
+                player.getX(), player.getX() + playersWidthHeight[0], obstacleCandidates);
+
         // Check Avatar-Obstacle collisions
-        for (RectangleObstacle obstacle : obstacles) {
-            int currentMapState = background.getWorldState();
-            int obstacleMapState = obstacle.getMapState();
-            PlayerType playerNumber = player.getPlayerNumber();
-
-            if (obstacleMapState != currentMapState && obstacleMapState >= 0 // Obstacle not in current map state
-                    || (!collisionRectRect(player, obstacle, 0, 0, 0, 0)) // Rect-Rect collision
-                    || ((obstacleMapState == -2 && playerNumber == PlayerType.PLAYER_ONE && runningDirection == DirectionType.RIGHT)) // Let player1 pass through right boundary
-                    || (obstacleMapState == -1 && playerNumber == PlayerType.PLAYER_TWO && runningDirection == DirectionType.LEFT) // Let player2 pass through left boundary
-                    || ((obstacleMapState == -3 || obstacleMapState == -4) && (currentMapState != 0 && currentMapState != 4)) // Let anyone pass through cave obstacles in worlds 1,2,3
-                    || (obstacleMapState == -4 && playerNumber == PlayerType.PLAYER_ONE) // Let player1 pass through right cave blocker
-                    || (obstacleMapState == -3 && playerNumber == PlayerType.PLAYER_TWO) // Let player2 pass through left cave blocker
-                    || (obstacleMapState == -3 && currentMapState == 4) // In world 4, let anyone pass through left cave blocker
-                    || (obstacleMapState == -4 && currentMapState == 0)) // In world 0, let anyone pass through right cave blocker
+        for (int i = 0; i < candidates; i++) {
+            RectangleObstacle obstacle = obstacles.get(obstacleCandidates[i]);
+
+            if (!collisionRectRect(player, obstacle, 0, 0, 0, 0)) // Rect-Rect collision
                 continue;
 
             // Ground collision
@@ -360,11 +403,11 @@ public class CollisionController implements Controller {
             }
 
             // Head collision in caves only (not in map-start-state)
-            if (collisionRectRect(player, obstacle, 10, 10, 0, playersWidthHeight[1]) && (GameLoop.currentLevel.getBackground().getWorldState() != 2))
+            if (collisionRectRect(player, obstacle, 10, 10, 0, playersWidthHeight[1]) && (background.getWorldState() != world.getLevel().getStartScreen()))
                 headBump = true;
 
             // Wall collisions
-            if (obstacle.getColor() != Color.RED) {
+            if (!Color.RED.equals(obstacle.getColor())) {
                 if (collisionRectRect(player, obstacle, playersWidthHeight[0], 0, 12, 12)) // Rect-Line collision >> Wall-right
                     hitsWallRight = true;
                 else if (collisionRectRect(player, obstacle, 0, playersWidthHeight[0], 12, 12)) // Rect-Line collision >> Wall-left
@@ -419,16 +462,16 @@ public class CollisionController implements Controller {
      */
     private void checkMapBoundaries() {
         CameraController cam = CameraController.getInstance();
-        Point2D player1 = cam.convertWorldToScreen(players.get(0).getX(), players.get(0).getY());
-        Point2D player2 = cam.convertWorldToScreen(players.get(1).getX(), players.get(0).getY());
-        Point2D map_begin = cam.convertWorldToScreen(0, 0);
-        Point2D map_end = cam.convertWorldToScreen((int) Main.canvas.getWidth(), 0);
+        double player1_x = cam.convertWorldToScreenX(players.get(0).getX());
+        double player2_x = cam.convertWorldToScreenX(players.get(1).getX());
+        double map_begin = cam.convertWorldToScreenX(0);
+        double map_end = cam.convertWorldToScreenX(Config.SCREEN_WIDTH);
         DirectionType currentRunningDirection = background.getCurrentEnabledRunningDirection();
 
-        if (player1.getX() + playersWidthHeight[0] / 2.0 > map_end.getX() && currentRunningDirection == DirectionType.RIGHT) // Player1 leaves map boundary on the right side
+        if (player1_x + playersWidthHeight[0] / 2.0 > map_end && currentRunningDirection == DirectionType.RIGHT) // Player1 leaves map boundary on the right side
             background.setWorldState(background.getWorldState() + 1, players.get(0), players.get(1));
 
-        else if (player2.getX() - playersWidthHeight[0] / 2.0 < map_begin.getX() && currentRunningDirection == DirectionType.LEFT) // Player2 leaves map boundary on the left side
+        else if (player2_x - playersWidthHeight[0] / 2.0 < map_begin && currentRunningDirection == DirectionType.LEFT) // Player2 leaves map boundary on the left side
             background.setWorldState(background.getWorldState() - 1, players.get(0), players.get(1));
     }
 
@@ -438,13 +481,13 @@ public class CollisionController implements Controller {
      */
     private void checkWinningCondition() {
         CameraController cam = CameraController.getInstance();
-        Point2D player1 = cam.convertWorldToScreen(players.get(0).getX(), players.get(0).getY());
-        Point2D player2 = cam.convertWorldToScreen(players.get(1).getX(), players.get(1).getY());
-        Point2D ground = cam.convertWorldToScreen(0, (int) Main.canvas.getHeight() * 4 / 3);
+        double player1_y = cam.convertWorldToScreenY(players.get(0).getY());
+        double player2_y = cam.convertWorldToScreenY(players.get(1).getY());
+        double ground = cam.convertWorldToScreenY(Config.SCREEN_HEIGHT * 4 / 3);
 
-        if (player1.getY() > ground.getY() && player1_onGround && background.getWorldState() == 4) {
+        if (player1_y > ground && player1_onGround && background.getWorldState() == world.getLevel().getLastScreen()) {
             inCave[0] = true;
-        } else if (player2.getY() > ground.getY() && player2_onGround && background.getWorldState() == 0) {
+        } else if (player2_y > ground && player2_onGround && background.getWorldState() == 0) {
             inCave[1] = true;
         }
     }
@@ -460,20 +503,23 @@ public class CollisionController implements Controller {
      */
     private void calculatePlayerRectangleHitBox() {
         int x_min = Integer.MAX_VALUE, x_max = Integer.MIN_VALUE, y_min = Integer.MAX_VALUE, y_max = Integer.MIN_VALUE;
-        ArrayList<Point2D> hitBoxPoints;
-
-        hitBoxPoints = players.get(0).getAnimation().getCurrentFrame().getHitBox();
-        for (Point2D currentPoint : hitBoxPoints) {
-
-            if (currentPoint.getX() < x_min)
-                x_min = (int) currentPoint.getX();
-            else if (currentPoint.getX() > x_max)
-                x_max = (int) currentPoint.getX();
-
-            if (currentPoint.getY() < y_min)
-                y_min = (int) currentPoint.getY();
-            else if (currentPoint.getY() > y_max)
-                y_max = (int) currentPoint.getY();
+        FrameData frame = players.get(0).getAnimation().getCurrentFrame();
+
+        for (int row = 0; row < frame.getBufferedImage().getHeight(); row++) {
+            for (int x : new int[]{frame.getHitBoxLeft(row), frame.getHitBoxRight(row)}) { // outline points from left to right
+                if (x == FrameData.NO_HITBOX)
+                    continue;
+
+                if (x < x_min)
+                    x_min = x;
+                else if (x > x_max)
+                    x_max = x;
+
+                if (row < y_min)
+                    y_min = row;
+                else if (row > y_max)
+                    y_max = row;
+            }
         }
 
         rectHitBoxP1_P2[0] = new Point2D(x_min, y_min);
@@ -489,7 +535,7 @@ public class CollisionController implements Controller {
     // ----------------------------------------------------------------------------------------------------
     // --- Getter/Setter - PlayerHitBox :: Player Data
 
-    public HashSet<AnimationType> getNonStabAnimations() {
+    public EnumSet<AnimationType> getNonStabAnimations() {
         return nonStabAnimations;
     }
 
@@ -501,7 +547,7 @@ public class CollisionController implements Controller {
         return playersWidthHeight;
     }
 
-    public int getSwordLength() {
+    public static int getSwordLength() {
         return swordLength;
     }
 
@@ -555,8 +601,17 @@ public class CollisionController implements Controller {
         return swordsHitting;
     }
 
-    public Point2D getSwordCollisionPoint() {
-        return swordCollisionPoint;
+    private void setSwordCollisionPoint(int x, int y) {
+        swordCollisionX = x;
+        swordCollisionY = y;
+    }
+
+    public int getSwordCollisionX() {
+        return swordCollisionX;
+    }
+
+    public int getSwordCollisionY() {
+        return swordCollisionY;
     }
 
     public boolean isAttackBlocked() {
@@ -574,4 +629,119 @@ public class CollisionController implements Controller {
         return (type == PlayerType.PLAYER_ONE) ? players.get(1) : players.get(0);
     }
 
-}
\ No newline at end of file
+
+    // ----------------------------------------------------------------------------------------------------
+    // ----------------------------------------------------------------------------------------------------
+    // --- Snapshot of the player states
+
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        player1_onGround = state.player1_onGround;
+        player1_hitsWall_Left = state.player1_hitsWall_Left;
+        player1_hitsWall_Right = state.player1_hitsWall_Right;
+        player1_headBump = state.player1_headBump;
+        player2_onGround = state.player2_onGround;
+        player2_hitsWall_Left = state.player2_hitsWall_Left;
+        player2_hitsWall_Right = state.player2_hitsWall_Right;
+        player2_headBump = state.player2_headBump;
+        inCave[0] = state.inCave_P1;
+        inCave[1] = state.inCave_P2;
+        player1_hit_player2 = state.player1_hit_player2;
+        player2_hit_player1 = state.player2_hit_player1;
+        swordCollisionX = state.swordCollisionX;
+        swordCollisionY = state.swordCollisionY;
+        swordsHitting = state.swordsHitting;
+        attackBlocked = state.attackBlocked;
+        p1_prevState = state.p1_prevState;
+        p2_prevState = state.p2_prevState;
+        disarming = state.disarming;
+        prevEventFlags = state.prevEventFlags;
+    }
+
+    public static final class State {
+        private final boolean player1_onGround, player1_hitsWall_Left, player1_hitsWall_Right, player1_headBump;
+        private final boolean player2_onGround, player2_hitsWall_Left, player2_hitsWall_Right, player2_headBump;
+        private final boolean inCave_P1, inCave_P2;
+        private final boolean player1_hit_player2, player2_hit_player1;
+        private final int swordCollisionX, swordCollisionY;
+        private final boolean swordsHitting, attackBlocked;
+        private final AnimationType p1_prevState, p2_prevState;
+        private final int disarming;
+        private final int prevEventFlags;
+
+        private State(CollisionController c) {
+            player1_onGround = c.player1_onGround;
+            player1_hitsWall_Left = c.player1_hitsWall_Left;
+            player1_hitsWall_Right = c.player1_hitsWall_Right;
+            player1_headBump = c.player1_headBump;
+            player2_onGround = c.player2_onGround;
+            player2_hitsWall_Left = c.player2_hitsWall_Left;
+            player2_hitsWall_Right = c.player2_hitsWall_Right;
+            player2_headBump = c.player2_headBump;
+            inCave_P1 = c.inCave[0];
+            inCave_P2 = c.inCave[1];
+            player1_hit_player2 = c.player1_hit_player2;
+            player2_hit_player1 = c.player2_hit_player1;
+            swordCollisionX = c.swordCollisionX;
+            swordCollisionY = c.swordCollisionY;
+            swordsHitting = c.swordsHitting;
+            attackBlocked = c.attackBlocked;
+            p1_prevState = c.p1_prevState;
+            p2_prevState = c.p2_prevState;
+            disarming = c.disarming;
+            prevEventFlags = c.prevEventFlags;
+        }
+
+        public State(KeyframeReader in) {
+            player1_onGround = in.readBoolean();
+            player1_hitsWall_Left = in.readBoolean();
+            player1_hitsWall_Right = in.readBoolean();
+            player1_headBump = in.readBoolean();
+            player2_onGround = in.readBoolean();
+            player2_hitsWall_Left = in.readBoolean();
+            player2_hitsWall_Right = in.readBoolean();
+            player2_headBump = in.readBoolean();
+            inCave_P1 = in.readBoolean();
+            inCave_P2 = in.readBoolean();
+            player1_hit_player2 = in.readBoolean();
+            player2_hit_player1 = in.readBoolean();
+            swordCollisionX = in.readInt();
+            swordCollisionY = in.readInt();
+            swordsHitting = in.readBoolean();
+            attackBlocked = in.readBoolean();
+            p1_prevState = in.readEnum(AnimationType.values());
+            p2_prevState = in.readEnum(AnimationType.values());
+            disarming = in.readInt();
+            prevEventFlags = in.readInt();
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeBoolean(player1_onGround);
+            out.writeBoolean(player1_hitsWall_Left);
+            out.writeBoolean(player1_hitsWall_Right);
+            out.writeBoolean(player1_headBump);
+            out.writeBoolean(player2_onGround);
+            out.writeBoolean(player2_hitsWall_Left);
+            out.writeBoolean(player2_hitsWall_Right);
+            out.writeBoolean(player2_headBump);
+            out.writeBoolean(inCave_P1);
+            out.writeBoolean(inCave_P2);
+            out.writeBoolean(player1_hit_player2);
+            out.writeBoolean(player2_hit_player1);
+            out.writeInt(swordCollisionX);
+            out.writeInt(swordCollisionY);
+            out.writeBoolean(swordsHitting);
+            out.writeBoolean(attackBlocked);
+            out.writeEnum(p1_prevState);
+            out.writeEnum(p2_prevState);
+            out.writeInt(disarming);
+            out.writeInt(prevEventFlags);
+        }
+    }
+
+}
@@ -1,36 +1,35 @@
 package stickfight2d.controllers;
 
 
-import stickfight2d.GameLoop;
+import stickfight2d.MatchContext;
 import stickfight2d.enums.DirectionType;
-import stickfight2d.misc.Debugger;
+import stickfight2d.interfaces.Snapshotable;
 import stickfight2d.world.GameObject;
 import stickfight2d.world.PlayerObject;
+import stickfight2d.world.WorldObject;
 
 import java.util.ArrayList;
 
-public class DirectionController implements Controller {
+public class DirectionController implements Controller, Snapshotable<boolean[]> {
 
     private ArrayList<GameObject> gameObjects;
     private ArrayList<PlayerObject> playerObjects = new ArrayList<>();
 
     private boolean manDirConP1 = false, manDirConP2 = false;
 
-    private static DirectionController instance;
+    private final WorldObject world;
 
+    // Directions of the current match, see MatchContext
     public static DirectionController getInstance() {
-        if (instance == null) {
-            Debugger.log("Direction Controller instantiated");
-            instance = new DirectionController();
-        }
-        return instance;
+        return MatchContext.current().getDirectionController();
     }
 
     /**
      * Takes care that the players look at each other at all times
      */
 
-    private DirectionController(){
+    public DirectionController(WorldObject world){
+        this.world = world;
     }
 
     @Override
@@ -40,7 +39,7 @@ public class DirectionController implements Controller {
 
 
     private void getPlayers(){
-        this.gameObjects = GameLoop.currentLevel.getGameObjects();
+        this.gameObjects = world.getGameObjects();
         for (GameObject obj : gameObjects) {
             if(obj instanceof PlayerObject){
                 playerObjects.add((PlayerObject) obj);
@@ -90,4 +89,15 @@ public class DirectionController implements Controller {
         }
     }
 
+    // State: manual direction control of player 1 and 2
+    @Override
+    public boolean[] saveState() {
+        return new boolean[]{manDirConP1, manDirConP2};
+    }
+
+    @Override
+    public void loadState(boolean[] state) {
+        manDirConP1 = state[0];
+        manDirConP2 = state[1];
+    }
 }
@@ -1,74 +1,201 @@
 package stickfight2d.controllers;
 
+import javafx.scene.Node;
 import javafx.scene.input.KeyCode;
-import stickfight2d.Main;
+import stickfight2d.MatchContext;
+import stickfight2d.interfaces.Snapshotable;
 import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
+import stickfight2d.misc.InputRing;
 import stickfight2d.misc.KeySet;
+import stickfight2d.misc.LatencyProbe;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 import stickfight2d.world.PlayerObject;
 
-import java.util.ArrayList;
-import java.util.concurrent.ConcurrentHashMap;
+/**
+ * Key state of both players as one bit per key (see {@link KeySet#getKeyBit(KeyCode)}) plus the time each key is held.
+ * Key events of the window are queued in an InputRing by the FX thread and folded into the state by the game thread
+ * once per tick, in the order they happened. Scripted input (applyInputMask) changes the state directly.
+ */
+public class KeyController implements Controller, Snapshotable<KeyController.State> {
 
-public class KeyController implements Controller {
+    private static final int PLAYERS = 2;
+    private static final int KEYS = 6;
+    private static final int PROBE_EVENT = 1 << 5;     // Injected by the LatencyProbe
 
-    private KeyObject keyObject, previousKeyObject;
+    private final KeySet[] keySets = {Config.keySet1, Config.keySet2};
 
-    private boolean keyPressBlockedP1 = false;
-    private boolean keyPressBlockedP2 = false;
+    private final int[] heldMask = new int[PLAYERS];
+    private final int[] previousMask = new int[PLAYERS];           // Held keys of the last tick
+    private final long[][] pressedTime = new long[PLAYERS][KEYS];  // ms, only valid while the key is held
 
-    private static KeyController instance;
+    private final InputRing inputRing = new InputRing(Config.input_ring_capacity);
+    private final int[] pressedThisTick = new int[PLAYERS];
+    private final int[] deferredReleaseMask = new int[PLAYERS];    // Pressed and released within one tick, released next tick
+    private long lastInputDelayNanos = 0;
 
+    // Also set by the FX thread (menus, countdown)
+    private volatile boolean keyPressBlockedP1 = false;
+    private volatile boolean keyPressBlockedP2 = false;
+
+    // Key state of the current match, see MatchContext
     public static KeyController getInstance() {
-        if (instance == null) {
-            Debugger.log("Key Controller instantiated");
-            instance = new KeyController();
+        return MatchContext.current().getKeyController();
+    }
+
+    // One per match, created by the MatchContext
+    public KeyController() {
+    }
+
+    /**
+     * Forwards the key events of the given node, not used in headless mode.
+     * The handlers run on the FX thread and only queue the events.
+     */
+    public void registerKeyHandlers(Node node) {
+        node.setOnKeyPressed(keyEvent -> queueKeyEvent(keyEvent.getCode(), true));
+        node.setOnKeyReleased(keyEvent -> queueKeyEvent(keyEvent.getCode(), false));
+    }
+
+    // Event layout: [probe (1 bit)][player (1 bit)][key index (3 bits)][pressed (1 bit)]
+    private void queueKeyEvent(KeyCode keyCode, boolean pressed) {
+        int player = playerOf(keyCode);
+        if (player < 0) {       // Not a player key, nothing reads it
+            return;
+        }
+        int event = (player << 4) | (keySets[player].getKeyIndex(keyCode) << 1) | (pressed ? 1 : 0);
+        if (Config.latency_probe_mode && LatencyProbe.getInstance().queued(keyCode, pressed)) {
+            event |= PROBE_EVENT;
         }
-        return instance;
+        inputRing.offer(System.nanoTime(), event);
     }
 
-    private KeyController() {
-        keyObject = new KeyObject();
-        previousKeyObject = new KeyObject();
+    // Applies the queued key events in the order they happened
+    private void foldQueuedEvents() {
+        for (int p = 0; p < PLAYERS; p++) {
+            heldMask[p] &= ~deferredReleaseMask[p];
+            deferredReleaseMask[p] = 0;
+            pressedThisTick[p] = 0;
+        }
 
-        Main.canvas.setOnKeyPressed(keyEvent -> {
-            if(!keyPressBlockedP2 && Config.keySet2.containsKeyCode(keyEvent.getCode())){
-                if (!keyObject.keys.containsKey(keyEvent.getCode())) {
-                    keyObject.keys.put(keyEvent.getCode(), 0L);
-                }
-            }else if(!keyPressBlockedP1 && Config.keySet1.containsKeyCode(keyEvent.getCode())){
-                if (!keyObject.keys.containsKey(keyEvent.getCode())) {
-                    keyObject.keys.put(keyEvent.getCode(), 0L);
-                }
-            }else if(!keyPressBlockedP2 && !keyPressBlockedP1){
-                if (!keyObject.keys.containsKey(keyEvent.getCode())) {
-                    keyObject.keys.put(keyEvent.getCode(), 0L);
+        int available = inputRing.available();
+        for (int i = 0; i < available; i++) {
+            int event = inputRing.eventAt(i);
+            int player = (event >> 4) & 1;
+            int key = (event >> 1) & 0b111;
+
+            if ((event & 1) != 0) {
+                if (pressKey(player, key)) {
+                    pressedThisTick[player] |= 1 << key;
+                    if ((event & PROBE_EVENT) != 0) {
+                        LatencyProbe.getInstance().consumed(inputRing.timestampAt(i));
+                    }
+                } else {
+                    deferredReleaseMask[player] &= ~(1 << key);     // Pressed again before the deferred release
                 }
+            } else if ((pressedThisTick[player] & (1 << key)) != 0) {
+                deferredReleaseMask[player] |= 1 << key;            // Held for one tick, so a short tap is never lost
+            } else {
+                heldMask[player] &= ~(1 << key);
             }
-        });
+            lastInputDelayNanos = System.nanoTime() - inputRing.timestampAt(i);
+        }
+        inputRing.consume(available);
+    }
 
-        Main.canvas.setOnKeyReleased(keyEvent -> keyObject.keys.remove(keyEvent.getCode()));
+    /**
+     * @return false if the key was already held or input of the player is blocked
+     */
+    private boolean pressKey(int player, int key) {
+        if (isBlocked(player) || (heldMask[player] & (1 << key)) != 0) {
+            return false;
+        }
+        heldMask[player] |= 1 << key;
+        pressedTime[player][key] = 0;
+        return true;
     }
 
-    @Override
-    public void update(long diffMillis) {
+    public void pressKey(KeyCode keyCode) {
+        int player = playerOf(keyCode);
+        if (player >= 0) {
+            pressKey(player, keySets[player].getKeyIndex(keyCode));
+        }
+    }
 
-        previousKeyObject = keyObject;          // Derzeitiges KeyObject abspeichern
-        keyObject = new KeyObject();            // Neues KeyObject erzeugen
+    public void releaseKey(KeyCode keyCode) {
+        int player = playerOf(keyCode);
+        if (player >= 0) {
+            heldMask[player] &= ~keySets[player].getKeyBit(keyCode);
+        }
+    }
 
-        keyObject.getKeyHashMap().putAll(previousKeyObject.getKeyHashMap());    // Alle vorherigen Keys in das neue KeyObject kopieren
+    /**
+     * Presses all keys of the set whose bit is set in the mask and releases the others (scripted input)
+     *
+     * @param keySet keys of one player
+     * @param mask   input mask, see {@link KeySet#getKeyBit(KeyCode)}
+     */
+    public void applyInputMask(KeySet keySet, int mask) {
+        int player = playerOf(keySet);
+        for (int key = 0; key < KEYS; key++) {
+            if ((mask & (1 << key)) != 0) {
+                pressKey(player, key);
+            } else {
+                heldMask[player] &= ~(1 << key);
+            }
+        }
+    }
 
-        keyObject.keys.replaceAll((c, v) -> keyObject.keys.get(c) + diffMillis);
+    /**
+     * Holds exactly the keys of the mask, even while input of the player is blocked. Replays restore the held keys
+     * recorded with getInputMask() this way, blocking was already applied when they were recorded.
+     */
+    public void restoreInputMask(KeySet keySet, int mask) {
+        int player = playerOf(keySet);
+        for (int key = 0; key < KEYS; key++) {
+            if ((mask & (1 << key)) == 0) {
+                heldMask[player] &= ~(1 << key);
+            } else if ((heldMask[player] & (1 << key)) == 0) {
+                heldMask[player] |= 1 << key;
+                pressedTime[player][key] = 0;
+            }
+        }
+    }
 
+    /**
+     * @return input mask of all keys of the set that are currently held down
+     */
+    public int getInputMask(KeySet keySet) {
+        return heldMask[playerOf(keySet)];
+    }
+
+    @Override
+    public void update(long diffMillis) {
+        for (int p = 0; p < PLAYERS; p++) {
+            previousMask[p] = heldMask[p];
+            for (int key = 0; key < KEYS; key++) {
+                if ((heldMask[p] & (1 << key)) != 0) {
+                    pressedTime[p][key] += diffMillis;
+                }
+            }
+        }
+
+        // Events of the window are visible from the next tick on
+        foldQueuedEvents();
     }
 
     public boolean isKeyPressed(KeyCode keyCode) {
-        if (!keyObject.getKeyHashMap().containsKey(keyCode)) {
+        int player = playerOf(keyCode);
+        if (player < 0) {
+            return false;
+        }
+        int bit = keySets[player].getKeyBit(keyCode);
+        if ((heldMask[player] & bit) == 0) {
             return false;
         }
 
         if (isSinglePressKey(keyCode)) {
-            return !previousKeyObject.getKeyHashMap().containsKey(keyCode);
+            return (previousMask[player] & bit) == 0;
         }
         return true;
     }
@@ -81,46 +208,66 @@ public class KeyController implements Controller {
         };
     }
 
-    public static class KeyObject {
-
-        private final ConcurrentHashMap<KeyCode, Long> keys;
-
-        public KeyObject() {
-            keys = new ConcurrentHashMap<>();
-        }
-
-        public ConcurrentHashMap<KeyCode, Long> getKeyHashMap() {
-            return keys;
-        }
-
-    }
-
     public boolean isKeyReleased(KeyCode keyCode){
-        return !keyObject.getKeyHashMap().containsKey(keyCode) && previousKeyObject.getKeyHashMap().containsKey(keyCode);
+        int player = playerOf(keyCode);
+        if (player < 0) {
+            return false;
+        }
+        int bit = keySets[player].getKeyBit(keyCode);
+        return (heldMask[player] & bit) == 0 && (previousMask[player] & bit) != 0;
     }
 
     public long getKeyPressedTime(KeyCode keyCode){
-        if(keyObject.getKeyHashMap().containsKey(keyCode)){
-            return keyObject.getKeyHashMap().get(keyCode);
+        int player = playerOf(keyCode);
+        if (player < 0) {
+            return 0;
         }
-        return 0;
+        int key = keySets[player].getKeyIndex(keyCode);
+        return ((heldMask[player] & (1 << key)) != 0) ? pressedTime[player][key] : 0;
     }
 
     public void removeKeyPress(KeyCode keycode){
-        previousKeyObject.getKeyHashMap().remove(keycode);
-        keyObject.getKeyHashMap().remove(keycode);
+        int player = playerOf(keycode);
+        if (player >= 0) {
+            int bit = keySets[player].getKeyBit(keycode);
+            previousMask[player] &= ~bit;
+            heldMask[player] &= ~bit;
+        }
     }
 
     public void removeAllKeyPress(){
-        keyObject.getKeyHashMap().clear();
+        for (int p = 0; p < PLAYERS; p++) {
+            heldMask[p] = 0;
+        }
     }
 
     public void removePlayerKeyPress(PlayerObject playerObject) {
-        ArrayList<KeyCode> keyCodes = playerObject.getKeySet().getKeyCodes();
-        for (KeyCode keyCode : keyCodes) {
-            previousKeyObject.getKeyHashMap().remove(keyCode);
-            keyObject.getKeyHashMap().remove(keyCode);
+        int player = playerOf(playerObject.getKeySet());
+        previousMask[player] = 0;
+        heldMask[player] = 0;
+    }
+
+    // Player 2 first, like the key sets were always checked
+    private int playerOf(KeyCode keyCode) {
+        for (int p = PLAYERS - 1; p >= 0; p--) {
+            if (keySets[p].containsKeyCode(keyCode)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private int playerOf(KeySet keySet) {
+        for (int p = 0; p < PLAYERS; p++) {
+            if (keySets[p] == keySet) {
+                return p;
+            }
         }
+        throw new IllegalArgumentException("Key set does not belong to a player!");
+    }
+
+    private boolean isBlocked(int player) {
+        return (player == 0) ? keyPressBlockedP1 : keyPressBlockedP2;
     }
 
     public void setKeyPressBlockedP2(boolean keyPressBlockedP2) {
@@ -132,4 +279,75 @@ public class KeyController implements Controller {
         Debugger.log("Player1 KeyBlock: "+keyPressBlockedP1);
         this.keyPressBlockedP1 = keyPressBlockedP1;
     }
+
+    /**
+     * @return time between the last window key event and the tick that applied it
+     */
+    public long getLastInputDelayNanos() {
+        return lastInputDelayNanos;
+    }
+
+    public InputRing getInputRing() {
+        return inputRing;
+    }
+
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        for (int p = 0; p < PLAYERS; p++) {
+            heldMask[p] = state.heldMask[p];
+            previousMask[p] = state.previousMask[p];
+            System.arraycopy(state.pressedTime[p], 0, pressedTime[p], 0, KEYS);
+        }
+        keyPressBlockedP1 = state.keyPressBlockedP1;
+        keyPressBlockedP2 = state.keyPressBlockedP2;
+    }
+
+    public static final class State {
+        private final int[] heldMask, previousMask;
+        private final long[][] pressedTime;
+        private final boolean keyPressBlockedP1, keyPressBlockedP2;
+
+        private State(KeyController k) {
+            heldMask = k.heldMask.clone();
+            previousMask = k.previousMask.clone();
+            pressedTime = new long[PLAYERS][];
+            for (int p = 0; p < PLAYERS; p++) {
+                pressedTime[p] = k.pressedTime[p].clone();
+            }
+            keyPressBlockedP1 = k.keyPressBlockedP1;
+            keyPressBlockedP2 = k.keyPressBlockedP2;
+        }
+
+        public State(KeyframeReader in) {
+            heldMask = new int[PLAYERS];
+            previousMask = new int[PLAYERS];
+            pressedTime = new long[PLAYERS][KEYS];
+            for (int p = 0; p < PLAYERS; p++) {
+                heldMask[p] = in.readInt();
+                previousMask[p] = in.readInt();
+                for (int key = 0; key < KEYS; key++) {
+                    pressedTime[p][key] = in.readLong();
+                }
+            }
+            keyPressBlockedP1 = in.readBoolean();
+            keyPressBlockedP2 = in.readBoolean();
+        }
+
+        public void write(KeyframeWriter out) {
+            for (int p = 0; p < PLAYERS; p++) {
+                out.writeInt(heldMask[p]);
+                out.writeInt(previousMask[p]);
+                for (int key = 0; key < KEYS; key++) {
+                    out.writeLong(pressedTime[p][key]);
+                }
+            }
+            out.writeBoolean(keyPressBlockedP1);
+            out.writeBoolean(keyPressBlockedP2);
+        }
+    }
 }
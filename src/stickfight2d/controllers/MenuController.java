@@ -14,7 +14,6 @@ import javafx.scene.paint.CycleMethod;
 import javafx.scene.paint.LinearGradient;
 import javafx.scene.paint.Stop;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.util.Duration;
@@ -25,6 +24,7 @@ import stickfight2d.enums.DirectionType;
 import stickfight2d.enums.SoundType;
 import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
+import stickfight2d.misc.FontCache;
 import stickfight2d.misc.KeySet;
 
 import java.util.ArrayList;
@@ -150,7 +150,7 @@ public class MenuController implements Controller {
                 displayMenu("none");
                 GameLoop.startCounter();
                 mainMenuMusic.stop();
-                GameLoop.currentMusic.play(false,Config.volume);
+                SoundController.getInstance().getCurrentMusic().play(false,Config.volume);
             }));
             add(new MenuItem("Options", () -> {
                 displayMenu("options");
@@ -192,7 +192,7 @@ public class MenuController implements Controller {
             add(new MenuItem("\uD83E\uDC44Volume:" + Math.round(Config.volume * 1000) + "%\uD83E\uDC46", () -> {
                 double newVolume = Config.volume + (dir.equals(DirectionType.LEFT) ? -0.005 : 0.005);
                 Config.volume = Math.min(Math.max(newVolume, 0), 0.1);
-                GameLoop.currentMusic.setVolume(Config.volume);
+                SoundController.getInstance().getCurrentMusic().setVolume(Config.volume);
                 mainMenuMusic.setVolume(Config.volume);
                 menu.getMenuItems().get(menu.getSelectedIndex()).setText("\uD83E\uDC44Volume:" + Math.round(Config.volume * 1000) + "%\uD83E\uDC46");
             }));
@@ -202,9 +202,12 @@ public class MenuController implements Controller {
             }));
             add(new MenuItem("\uD83E\uDC44FPS Counter:" + booleanToOnOff(Config.fps_print_mode) + "\uD83E\uDC46", () -> {
                 Config.fps_print_mode = !Config.fps_print_mode;
-                GameLoop.currentLevel.getFpsObject().setPrintMode(Config.fps_print_mode);
                 menu.getMenuItems().get(menu.getSelectedIndex()).setText("\uD83E\uDC44FPS Counter:" + booleanToOnOff(Config.fps_print_mode) + "\uD83E\uDC46");
             }));
+            add(new MenuItem("\uD83E\uDC44Profiler:" + booleanToOnOff(Config.profiler_enabled) + "\uD83E\uDC46", () -> {
+                Config.profiler_enabled = !Config.profiler_enabled;
+                menu.getMenuItems().get(menu.getSelectedIndex()).setText("\uD83E\uDC44Profiler:" + booleanToOnOff(Config.profiler_enabled) + "\uD83E\uDC46");
+            }));
             add(new MenuItem("Back", () -> {
                 displayMenu(lastMenu);
             }));
@@ -246,7 +249,7 @@ public class MenuController implements Controller {
             textArea.setPrefHeight(770);
             textArea.setPrefWidth(400);
             textArea.setStyle("-fx-control-inner-background:#D3D3D3;");
-            textArea.setFont(Font.loadFont("file:src/indian.ttf", 14));
+            textArea.setFont(FontCache.get("file:src/indian.ttf", 14));
             getChildren().add(textArea);
         }
 
@@ -304,7 +307,7 @@ public class MenuController implements Controller {
             });
             textField = new Text(text);
             textField.setFill(Config.FONT_COLOR);
-            textField.setFont(Font.loadFont(Config.FONT_PATH, 50));
+            textField.setFont(FontCache.get(Config.FONT_PATH, 50));
 
             Rectangle bg = new Rectangle(400, textField.getLayoutBounds().getHeight() + 3);
             LinearGradient lg = new LinearGradient(0, 0, 1, 1, true, CycleMethod.NO_CYCLE, new Stop(0, Color.TRANSPARENT), new Stop(0.2, Color.GRAY), new Stop(0.8, Color.GRAY), new Stop(1, Color.TRANSPARENT));
@@ -376,7 +379,7 @@ public class MenuController implements Controller {
             this.text = text;
             Text t = new Text(text);
             t.setFill(Config.FONT_MENU);
-            t.setFont(Font.loadFont(Config.FONT_PATH, 60));
+            t.setFont(FontCache.get(Config.FONT_PATH, 60));
 
             Rectangle bg = new Rectangle(400, t.getLayoutBounds().getHeight() + 3);
             bg.setStrokeWidth(4);
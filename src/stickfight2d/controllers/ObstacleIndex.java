@@ -0,0 +1,190 @@
+package stickfight2d.controllers;
+
+import stickfight2d.enums.DirectionType;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.world.Level;
+
+import java.util.ArrayList;
+
+/**
+ * Obstacles a player can collide with, precomputed for every combination of world state, player and enabled running
+ * direction. Each combination has a uniform grid of vertical columns, so a query only returns the few obstacles that
+ * overlap the player horizontally.
+ *
+ * Queries return obstacle indices of the level in ascending order, the collision checks see the obstacles in the same
+ * order as when looping over the whole list. Building only looks at the obstacles of one screen plus the ones of all
+ * screens per combination, so it stays linear in the size of the level.
+ */
+public class ObstacleIndex {
+
+    private static final int CELL_WIDTH = 128;
+    private static final int DIRECTIONS = DirectionType.values().length + 1;     // LEFT, RIGHT and none
+
+    private final Level level;
+    private final int worldStates;
+    private final Grid[] grids;
+
+    // Removes duplicates of obstacles spanning several columns without allocating
+    private final int[] stamps;
+    private int stamp = 0;
+
+    private static class Grid {
+        private int minX;
+        private int columns;
+        private int[] columnStart;      // Obstacles of column c are columnEntries[columnStart[c] .. columnStart[c + 1])
+        private int[] columnEntries;
+    }
+
+    public ObstacleIndex(Level level) {
+        this.level = level;
+        this.worldStates = level.getScreens();
+        this.grids = new Grid[worldStates * 2 * DIRECTIONS];
+        this.stamps = new int[level.getObstacleCount()];
+
+        // Obstacles of every screen and of all screens, in ascending order
+        ArrayList<Integer> allScreens = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> byScreen = new ArrayList<>();
+        for (int screen = 0; screen < worldStates; screen++) {
+            byScreen.add(new ArrayList<>());
+        }
+        for (int i = 0; i < level.getObstacleCount(); i++) {
+            int rule = level.getObstacleRule(i);
+            (rule < 0 ? allScreens : byScreen.get(rule)).add(i);
+        }
+
+        for (int worldState = 0; worldState < worldStates; worldState++) {
+            ArrayList<Integer> screenObstacles = merge(allScreens, byScreen.get(worldState));
+
+            for (PlayerType playerType : PlayerType.values()) {
+                for (int direction = 0; direction < DIRECTIONS; direction++) {
+                    DirectionType runningDirection = (direction < DIRECTIONS - 1) ? DirectionType.values()[direction] : null;
+                    grids[key(worldState, playerType, runningDirection)] = buildGrid(screenObstacles, worldState, playerType, runningDirection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Map state rules of the obstacles, independent of any position
+     *
+     * @param obstacleMapState screen of the obstacle or one of the Level rules
+     * @param lastMapState     last screen of the level, the caves are in the first and the last screen
+     * @return [true] if the player passes through the obstacle in this situation
+     */
+    public static boolean isPassable(int obstacleMapState, int currentMapState, int lastMapState, PlayerType playerNumber, DirectionType runningDirection) {
+        return obstacleMapState != currentMapState && obstacleMapState >= 0 // Obstacle not in current map state
+                || ((obstacleMapState == Level.BOUNDARY_RIGHT && playerNumber == PlayerType.PLAYER_ONE && runningDirection == DirectionType.RIGHT)) // Let player1 pass through right boundary
+                || (obstacleMapState == Level.BOUNDARY_LEFT && playerNumber == PlayerType.PLAYER_TWO && runningDirection == DirectionType.LEFT) // Let player2 pass through left boundary
+                || ((obstacleMapState == Level.CAVE_LEFT || obstacleMapState == Level.CAVE_RIGHT) && (currentMapState != 0 && currentMapState != lastMapState)) // Let anyone pass through cave obstacles between the caves
+                || (obstacleMapState == Level.CAVE_RIGHT && playerNumber == PlayerType.PLAYER_ONE) // Let player1 pass through right cave blocker
+                || (obstacleMapState == Level.CAVE_LEFT && playerNumber == PlayerType.PLAYER_TWO) // Let player2 pass through left cave blocker
+                || (obstacleMapState == Level.CAVE_LEFT && currentMapState == lastMapState) // In the last world, let anyone pass through left cave blocker
+                || (obstacleMapState == Level.CAVE_RIGHT && currentMapState == 0); // In world 0, let anyone pass through right cave blocker
+    }
+
+    private static ArrayList<Integer> merge(ArrayList<Integer> a, ArrayList<Integer> b) {
+        ArrayList<Integer> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() || j < b.size()) {
+            if (j == b.size() || (i < a.size() && a.get(i) < b.get(j))) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private Grid buildGrid(ArrayList<Integer> screenObstacles, int worldState, PlayerType playerType, DirectionType runningDirection) {
+        ArrayList<Integer> solid = new ArrayList<>();
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+
+        for (int i : screenObstacles) {
+            if (!isPassable(level.getObstacleRule(i), worldState, level.getLastScreen(), playerType, runningDirection)) {
+                solid.add(i);
+                minX = Math.min(minX, level.getObstacleX(i));
+                maxX = Math.max(maxX, level.getObstacleX(i) + level.getObstacleWidth(i));
+            }
+        }
+
+        Grid grid = new Grid();
+        grid.minX = solid.isEmpty() ? 0 : minX;
+        grid.columns = solid.isEmpty() ? 0 : (maxX - minX) / CELL_WIDTH + 1;
+        grid.columnStart = new int[grid.columns + 1];
+
+        // Counting pass, then filling pass (indices stay ascending within a column)
+        for (int i : solid) {
+            for (int c = column(grid, level.getObstacleX(i)); c <= column(grid, level.getObstacleX(i) + level.getObstacleWidth(i)); c++) {
+                grid.columnStart[c + 1]++;
+            }
+        }
+        for (int c = 0; c < grid.columns; c++) {
+            grid.columnStart[c + 1] += grid.columnStart[c];
+        }
+
+        grid.columnEntries = new int[grid.columnStart[grid.columns]];
+        int[] fill = grid.columnStart.clone();
+        for (int i : solid) {
+            for (int c = column(grid, level.getObstacleX(i)); c <= column(grid, level.getObstacleX(i) + level.getObstacleWidth(i)); c++) {
+                grid.columnEntries[fill[c]++] = i;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Collects the obstacles that are solid for the player and overlap [left, right] horizontally
+     *
+     * @param result receives the obstacle indices in ascending order, needs room for all obstacles
+     * @return number of indices written to result
+     */
+    public int query(int worldState, PlayerType playerType, DirectionType runningDirection, int left, int right, int[] result) {
+        if (worldState < 0 || worldState >= worldStates) {
+            throw new IllegalArgumentException("World state " + worldState + " is not part of the obstacle index!");
+        }
+        Grid grid = grids[key(worldState, playerType, runningDirection)];
+        if (grid.columns == 0) {
+            return 0;
+        }
+
+        int firstColumn = Math.max(0, column(grid, left));
+        int lastColumn = Math.min(grid.columns - 1, column(grid, right));
+        stamp++;
+        int count = 0;
+
+        for (int c = firstColumn; c <= lastColumn; c++) {
+            for (int e = grid.columnStart[c]; e < grid.columnStart[c + 1]; e++) {
+                int index = grid.columnEntries[e];
+                if (stamps[index] != stamp) {
+                    stamps[index] = stamp;
+                    count = insertSorted(result, count, index);
+                }
+            }
+        }
+        return count;
+    }
+
+    // Columns hold few obstacles, insertion keeps the result sorted without a separate pass
+    private static int insertSorted(int[] result, int count, int index) {
+        int position = count;
+        while (position > 0 && result[position - 1] > index) {
+            result[position] = result[position - 1];
+            position--;
+        }
+        result[position] = index;
+        return count + 1;
+    }
+
+    private static int column(Grid grid, int x) {
+        return Math.floorDiv(x - grid.minX, CELL_WIDTH);
+    }
+
+    private int key(int worldState, PlayerType playerType, DirectionType runningDirection) {
+        int direction = (runningDirection == null) ? DIRECTIONS - 1 : runningDirection.ordinal();
+        return (worldState * 2 + playerType.ordinal()) * DIRECTIONS + direction;
+    }
+
+    public int size() {
+        return level.getObstacleCount();
+    }
+}
@@ -3,7 +3,10 @@ package stickfight2d.controllers;
 import kuusisto.tinysound.Music;
 import kuusisto.tinysound.Sound;
 import kuusisto.tinysound.TinySound;
+import stickfight2d.MatchContext;
 import stickfight2d.enums.SoundType;
+import stickfight2d.events.AssetLoadEvent;
+import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
 
 import java.util.HashMap;
@@ -16,6 +19,8 @@ public class SoundController implements Controller {
     //TODO: add music
     private final HashMap<SoundType, Music> musicData = new HashMap<>();
     private final HashMap<SoundType, Sound> soundData = new HashMap<>();
+    private Music currentMusic;     // Music of the window, switched by its match only
+
 
     private static SoundController instance;
 
@@ -28,19 +33,39 @@ public class SoundController implements Controller {
     }
 
     private SoundController(){
+        if (Config.headless_mode) // TinySound is not initialized without a window
+            return;
+
         // Music
-        musicData.put(MUSIC_THEME_INGAME, TinySound.loadMusic(MUSIC_THEME_INGAME.getFile()));
-        musicData.put(MUSIC_MAIN_MENU, TinySound.loadMusic(MUSIC_MAIN_MENU.getFile()));
-        musicData.put(MUSIC_GAME_WON, TinySound.loadMusic(MUSIC_GAME_WON.getFile()));
+        musicData.put(MUSIC_THEME_INGAME, loadMusic(MUSIC_THEME_INGAME));
+        musicData.put(MUSIC_MAIN_MENU, loadMusic(MUSIC_MAIN_MENU));
+        musicData.put(MUSIC_GAME_WON, loadMusic(MUSIC_GAME_WON));
+        currentMusic = musicData.get(MUSIC_THEME_INGAME);     // Started by the main menu
 
         // Sound
-        soundData.put(SOUND_SWORD_HIT_SWORD, TinySound.loadSound(SOUND_SWORD_HIT_SWORD.getFile()));
-        soundData.put(SOUND_HIT_BODY_1, TinySound.loadSound(SOUND_HIT_BODY_1.getFile()));
+        soundData.put(SOUND_SWORD_HIT_SWORD, loadSound(SOUND_SWORD_HIT_SWORD));
+        soundData.put(SOUND_HIT_BODY_1, loadSound(SOUND_HIT_BODY_1));
         //soundData.put(SOUND_HIT_BODY_2, TinySound.loadSound(SOUND_HIT_BODY_2.getFile()));
-        soundData.put(SOUND_HIT_BODY_FIST_VOCAL_1, TinySound.loadSound(SOUND_HIT_BODY_FIST_VOCAL_1.getFile()));
-        soundData.put(SOUND_HIT_BODY_FIST_VOCAL_2, TinySound.loadSound(SOUND_HIT_BODY_FIST_VOCAL_2.getFile()));
-        soundData.put(SOUND_SWORD_SWING_FAST_1, TinySound.loadSound(SOUND_SWORD_SWING_FAST_1.getFile()));
-        soundData.put(SOUND_SWORD_SWING_FAST_2, TinySound.loadSound(SOUND_SWORD_SWING_FAST_2.getFile()));
+        soundData.put(SOUND_HIT_BODY_FIST_VOCAL_1, loadSound(SOUND_HIT_BODY_FIST_VOCAL_1));
+        soundData.put(SOUND_HIT_BODY_FIST_VOCAL_2, loadSound(SOUND_HIT_BODY_FIST_VOCAL_2));
+        soundData.put(SOUND_SWORD_SWING_FAST_1, loadSound(SOUND_SWORD_SWING_FAST_1));
+        soundData.put(SOUND_SWORD_SWING_FAST_2, loadSound(SOUND_SWORD_SWING_FAST_2));
+    }
+
+    private static Music loadMusic(SoundType soundType) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        Music music = TinySound.loadMusic(soundType.getFile());
+        event.commit("music", soundType.getFile().getPath(), -1);
+        return music;
+    }
+
+    private static Sound loadSound(SoundType soundType) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        Sound sound = TinySound.loadSound(soundType.getFile());
+        event.commit("sound", soundType.getFile().getPath(), -1);
+        return sound;
     }
 
     @Override
@@ -56,4 +81,32 @@ public class SoundController implements Controller {
         return soundData.get(soundType);
     }
 
+    public Music getCurrentMusic() {
+        return currentMusic;
+    }
+
+    // Plays a sound effect, does nothing if the sound is not loaded (headless mode) or the current match has no effects (re-simulated ticks)
+    public void playSound(SoundType soundType){
+        Sound sound = soundData.get(soundType);
+        if (sound != null && MatchContext.current().getWorld().isEffectsEnabled()) {
+            sound.play(Config.sfx_volume);
+        }
+    }
+
+    // Stops the current music and starts the given one, only for the match of the window and never in re-simulated ticks
+    public void switchMusic(SoundType soundType, boolean loop){
+        MatchContext context = MatchContext.current();
+        if (context != MatchContext.getShared() || !context.getWorld().isEffectsEnabled()) {
+            return;
+        }
+
+        if (currentMusic != null) {
+            currentMusic.stop();
+        }
+        currentMusic = musicData.get(soundType);
+        if (currentMusic != null) {
+            currentMusic.play(loop, Config.volume);
+        }
+    }
+
 }
@@ -1,8 +1,20 @@
 package stickfight2d.enums;
 
+import javafx.scene.paint.Color;
+
 public enum ParticleType {
 
-    BLOOD,
-    SWORD_COLLISION,
-    SWORD_FIRE;
+    BLOOD("0xFF0000"),
+    SWORD_COLLISION("0xd4af37"),
+    SWORD_FIRE("#FFFFFF");                  // ##fc5a03
+
+    private final Color color;              // Parsed once, not per emitter
+
+    ParticleType(String color){
+        this.color = Color.web(color);
+    }
+
+    public Color getColor(){
+        return color;
+    }
 }
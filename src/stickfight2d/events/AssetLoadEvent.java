@@ -0,0 +1,35 @@
+package stickfight2d.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Loading or converting an asset, begin() before the work and commit(...) after it
+ */
+@Name("stickfight2d.AssetLoad")
+@Label("Asset Load")
+@Category({"Stickfight2D", "Assets"})
+@Description("Sprite sheet row, sprite atlas, sound, music or background loaded or converted")
+public class AssetLoadEvent extends jdk.jfr.Event {
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Index")
+    @Description("Sprite sheet row or screen of a background slice, -1 otherwise")
+    public int index;
+
+    public void commit(String kind, String path, int index) {
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.path = path;
+            this.index = index;
+            commit();
+        }
+    }
+}
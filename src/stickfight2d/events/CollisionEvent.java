@@ -0,0 +1,45 @@
+package stickfight2d.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import stickfight2d.enums.PlayerType;
+
+/**
+ * Combat collision found by the CollisionController
+ */
+@Name("stickfight2d.Collision")
+@Label("Collision")
+@Category({"Stickfight2D", "Gameplay"})
+@Description("Hit, block, disarm or sword clash between the players")
+@StackTrace(false)
+public class CollisionEvent extends jdk.jfr.Event {
+
+    public static final String HIT = "hit", BLOCK = "block", DISARM = "disarm", CLASH = "clash";
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Player")
+    @Description("Attacking player, the disarming player for disarms, none for clashes")
+    public String player;
+
+    @Label("World State")
+    public int worldState;
+
+    @Label("Re-simulated")
+    public boolean resimulated;
+
+    public static void commit(String kind, PlayerType player, int worldState, boolean resimulated) {
+        CollisionEvent event = new CollisionEvent();
+        if (event.isEnabled()) {
+            event.kind = kind;
+            event.player = (player == null) ? null : player.name();
+            event.worldState = worldState;
+            event.resimulated = resimulated;
+            event.commit();
+        }
+    }
+}
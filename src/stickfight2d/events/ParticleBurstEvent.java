@@ -0,0 +1,35 @@
+package stickfight2d.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import stickfight2d.enums.ParticleType;
+
+/**
+ * New ParticleEmitter added to the world
+ */
+@Name("stickfight2d.ParticleBurst")
+@Label("Particle Burst")
+@Category({"Stickfight2D", "Gameplay"})
+@Description("Particle emitter spawned by a hit, a sword clash or a sword on fire")
+@StackTrace(false)
+public class ParticleBurstEvent extends jdk.jfr.Event {
+
+    @Label("Particle Type")
+    public String particleType;
+
+    @Label("Particles")
+    @Description("Particles the emitter spawns over its lifetime")
+    public int count;
+
+    public static void commit(ParticleType particleType, int count) {
+        ParticleBurstEvent event = new ParticleBurstEvent();
+        if (event.isEnabled()) {
+            event.particleType = particleType.name();
+            event.count = count;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package stickfight2d.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One simulation tick (Simulation.update), from the first object update to the last controller
+ */
+@Name("stickfight2d.Tick")
+@Label("Tick")
+@Category({"Stickfight2D", "Engine"})
+@Description("Simulation tick including all object and controller updates")
+@StackTrace(false)
+public class TickEvent extends jdk.jfr.Event {
+
+    @Label("Tick")
+    public long tick;
+
+    @Label("Game Objects")
+    public int objectCount;
+
+    @Label("Re-simulated")
+    @Description("Tick was simulated again after a rollback")
+    public boolean resimulated;
+
+    @Label("State Hash")
+    @Description("Rolling hash of the match state after the tick, see Simulation.getStateHash()")
+    public long stateHash;
+}
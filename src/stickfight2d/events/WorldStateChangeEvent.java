@@ -0,0 +1,27 @@
+package stickfight2d.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Screen transition (BackgroundObject.setWorldState). The slice itself is converted on the background loader, see the
+ * AssetLoadEvents of kind "background slice".
+ */
+@Name("stickfight2d.WorldStateChange")
+@Label("World State Change")
+@Category({"Stickfight2D", "Gameplay"})
+@Description("Players moved to another screen of the level")
+public class WorldStateChangeEvent extends jdk.jfr.Event {
+
+    @Label("From")
+    public int from;
+
+    @Label("To")
+    public int to;
+
+    @Label("Slice Ready")
+    @Description("Background slice of the new screen was already converted, the previous one stays visible otherwise")
+    public boolean sliceReady;
+}
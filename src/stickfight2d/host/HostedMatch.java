@@ -0,0 +1,134 @@
+package stickfight2d.host;
+
+import stickfight2d.Simulation;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.interfaces.InputScript;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One match of a MatchHost: a Simulation driven by an InputScript until one player wins or maxTicks is reached.
+ * The scheduler adds a due tick every period, a worker runs the due ticks. At most one worker runs a match at a time,
+ * so the ticks of a match never overlap and always run in order.
+ */
+public class HostedMatch {
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final long id;
+    private final InputScript script;
+    private final long maxTicks;
+    private final CompletableFuture<PlayerType> result = new CompletableFuture<>();
+
+    private Simulation simulation;                                  // Created by the first tick, on a worker
+    private final AtomicInteger dueTicks = new AtomicInteger();     // Added by the scheduler, consumed by the worker
+    private final AtomicBoolean running = new AtomicBoolean();      // A worker owns the match
+    private volatile boolean finished = false;
+
+    // Written by the owning worker, read by the scheduler for statistics
+    private volatile long ticks = 0;
+    private volatile long cpuNanos = 0;
+    private volatile long droppedTicks = 0;
+
+    HostedMatch(long id, InputScript script, long maxTicks) {
+        if (maxTicks < 1) {
+            throw new IllegalArgumentException("A hosted match needs at least one tick! maxTicks=" + maxTicks);
+        }
+        this.id = id;
+        this.script = script;
+        this.maxTicks = maxTicks;
+    }
+
+    // Scheduler: one more tick is due
+    void addDueTick() {
+        dueTicks.incrementAndGet();
+    }
+
+    // Scheduler: claims the match for a worker, false if a worker still runs it (the match is late)
+    boolean tryClaim() {
+        return running.compareAndSet(false, true);
+    }
+
+    /**
+     * Worker: runs the due ticks, at most maxCatchUpTicks. The rest of a longer backlog is dropped, like the FramePacer does.
+     *
+     * @return number of ticks run
+     */
+    int runDueTicks(int maxCatchUpTicks) {
+        long cpuStart = cpuTime();
+        int ticksRun = 0;
+        try {
+            if (simulation == null) {
+                simulation = new Simulation();
+            }
+
+            int due = dueTicks.getAndSet(0);
+            if (due > maxCatchUpTicks) {
+                droppedTicks += due - maxCatchUpTicks;
+                due = maxCatchUpTicks;
+            }
+
+            for (int i = 0; i < due && !finished; i++) {
+                long tick = simulation.getTick();
+                simulation.step(script.getInputMask(PlayerType.PLAYER_ONE, tick), script.getInputMask(PlayerType.PLAYER_TWO, tick));
+                ticks = simulation.getTick();
+                ticksRun++;
+
+                PlayerType winner = simulation.getWinner();
+                if (winner != null || ticks >= maxTicks) {
+                    finished = true;
+                    result.complete(winner);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            finished = true;
+            result.completeExceptionally(e);
+        } finally {
+            cpuNanos += cpuTime() - cpuStart;
+            running.set(false);
+        }
+        return ticksRun;
+    }
+
+    // CPU time of the calling thread in ns
+    static long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /**
+     * Getter Methods
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return completes with the winner once the match is over, null if nobody won within maxTicks
+     */
+    public CompletableFuture<PlayerType> getResult() {
+        return result;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return CPU time the workers spent on this match in ns (wall time if the JVM does not measure thread CPU time)
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+}
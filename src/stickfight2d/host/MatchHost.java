@@ -0,0 +1,240 @@
+package stickfight2d.host;
+
+import stickfight2d.interfaces.InputScript;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.Debugger;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs many headless matches at the fixed tick rate. One scheduler thread makes a tick of every running match due
+ * each period (1 / TICKS_PER_SECOND) and hands the match to a pool of workers, one per core by default. A match only
+ * holds a worker while it ticks, so hundreds of matches share a few threads.
+ *
+ * New matches wait in a bounded admission queue: offer() rejects and submit() blocks while it is full. The scheduler
+ * admits at most Config.host_admissions_per_tick matches per period and none at all while the host is behind, i.e.
+ * while the share of ticks that could not start on time (the worker was still busy with the previous one) is above
+ * Config.host_max_late_ratio. The number of running matches settles where the host keeps up, see MatchHostMain.
+ */
+public class MatchHost {
+
+    private static final long TICK_NANOS = 1_000_000_000L / Config.TICKS_PER_SECOND;
+    private static final double LATE_RATIO_SMOOTHING = 0.05;       // Weight of the last period in the late ratio
+
+    private final int workerCount;
+    private final int maxMatches;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler;
+    private final ArrayBlockingQueue<HostedMatch> admissions;
+
+    // Scheduler thread only
+    private final ArrayList<HostedMatch> matches = new ArrayList<>();
+    private long nextId = 0;
+
+    // Written by the scheduler, read by any thread
+    private volatile int runningMatches = 0;
+    private volatile double lateRatio = 0;
+    private volatile long dueTicks = 0;
+    private volatile long lateTicks = 0;
+    private volatile long finishedMatches = 0;
+    private volatile long finishedTicks = 0;       // Ticks and CPU time of the finished matches
+    private volatile long finishedCpuNanos = 0;
+    private volatile long droppedTicks = 0;
+
+    // Added by the workers
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    /**
+     * @param workerCount   threads that run the ticks, e.g. the number of cores
+     * @param maxMatches    matches running at the same time at most
+     * @param queueCapacity matches waiting for admission at most
+     */
+    public MatchHost(int workerCount, int maxMatches, int queueCapacity) {
+        if (workerCount < 1 || maxMatches < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Invalid match host settings! workers=" + workerCount + ", maxMatches=" + maxMatches + ", queueCapacity=" + queueCapacity);
+        }
+        this.workerCount = workerCount;
+        this.maxMatches = maxMatches;
+        this.admissions = new ArrayBlockingQueue<>(queueCapacity);
+
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "Match Worker " + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Match Scheduler");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::schedule, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queues a match without waiting
+     *
+     * @return the queued match, null if the admission queue is full
+     */
+    public HostedMatch offer(InputScript script, long maxTicks) {
+        HostedMatch match = createMatch(script, maxTicks);
+        return admissions.offer(match) ? match : null;
+    }
+
+    /**
+     * Queues a match, waits while the admission queue is full
+     */
+    public HostedMatch submit(InputScript script, long maxTicks) throws InterruptedException {
+        HostedMatch match = createMatch(script, maxTicks);
+        admissions.put(match);
+        return match;
+    }
+
+    private synchronized HostedMatch createMatch(InputScript script, long maxTicks) {
+        return new HostedMatch(nextId++, script, maxTicks);
+    }
+
+    // Once per period on the scheduler thread
+    private void schedule() {
+        try {
+            retireFinished();
+            admit();
+
+            int late = 0;
+            for (HostedMatch match : matches) {
+                match.addDueTick();
+                if (match.tryClaim()) {
+                    workers.execute(() -> run(match));
+                } else {
+                    late++;
+                }
+            }
+
+            if (!matches.isEmpty()) {
+                dueTicks += matches.size();
+                lateTicks += late;
+                lateRatio += LATE_RATIO_SMOOTHING * (late / (double) matches.size() - lateRatio);
+            }
+            runningMatches = matches.size();
+        } catch (RuntimeException e) {     // An exception would cancel the periodic task
+            Debugger.log("MatchHost - Scheduling failed: " + e);
+        }
+    }
+
+    // On a worker
+    private void run(HostedMatch match) {
+        long cpuStart = HostedMatch.cpuTime();
+        ticks.add(match.runDueTicks(Config.max_catch_up_ticks));
+        cpuNanos.add(HostedMatch.cpuTime() - cpuStart);
+    }
+
+    private void retireFinished() {
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            HostedMatch match = matches.get(i);
+            if (match.isFinished() && match.tryClaim()) {   // Claimed, so the last worker run is visible here
+                matches.remove(i);
+                finishedMatches++;
+                finishedTicks += match.getTicks();
+                finishedCpuNanos += match.getCpuNanos();
+                droppedTicks += match.getDroppedTicks();
+            }
+        }
+    }
+
+    private void admit() {
+        for (int i = 0; i < Config.host_admissions_per_tick && matches.size() < maxMatches && !isBehind(); i++) {
+            HostedMatch match = admissions.poll();
+            if (match == null) {
+                return;
+            }
+            matches.add(match);
+        }
+    }
+
+    /**
+     * @return true while too many ticks start late, no matches are admitted meanwhile
+     */
+    public boolean isBehind() {
+        return lateRatio > Config.host_max_late_ratio;
+    }
+
+    /**
+     * Stops the scheduler, running matches are abandoned
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Getter Methods
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getRunningMatches() {
+        return runningMatches;
+    }
+
+    public int getQueuedMatches() {
+        return admissions.size();
+    }
+
+    /**
+     * @return smoothed share of ticks that could not start on time, between 0 and 1
+     */
+    public double getLateRatio() {
+        return lateRatio;
+    }
+
+    public long getDueTicks() {
+        return dueTicks;
+    }
+
+    public long getLateTicks() {
+        return lateTicks;
+    }
+
+    /**
+     * @return ticks of all matches so far
+     */
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * @return CPU time of all matches so far in ns
+     */
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+
+    public long getFinishedMatches() {
+        return finishedMatches;
+    }
+
+    public long getFinishedTicks() {
+        return finishedTicks;
+    }
+
+    /**
+     * @return CPU time of all finished matches in ns
+     */
+    public long getFinishedCpuNanos() {
+        return finishedCpuNanos;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+}
@@ -0,0 +1,83 @@
+package stickfight2d.host;
+
+import stickfight2d.HeadlessMain;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.misc.Config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a MatchHost busy with random bot matches and prints its load once per second. The host admits matches until
+ * it falls behind, so the number of running matches shows how many 60 Hz matches this machine sustains:
+ * MatchHostMain [seconds] [workers] [maxMatches] [maxSecondsPerMatch] [seed]
+ */
+public class MatchHostMain {
+
+    public static void main(String[] args) throws InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        Config.headless_mode = true;
+
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : 60;
+        int workers = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int maxMatches = (args.length > 2) ? Integer.parseInt(args[2]) : 10_000;
+        long maxTicks = ((args.length > 3) ? Long.parseLong(args[3]) : 120) * Config.TICKS_PER_SECOND;
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : 42;
+
+        AnimationFactory.getInstance();
+        MatchHost host = new MatchHost(workers, maxMatches, 2 * Config.TICKS_PER_SECOND * Config.host_admissions_per_tick);
+
+        AtomicLong winsP1 = new AtomicLong(), winsP2 = new AtomicLong(), undecided = new AtomicLong();
+        Thread feeder = new Thread(() -> {
+            try {
+                for (long match = 0; ; match++) {
+                    host.submit(HeadlessMain.randomInput(seed + match), maxTicks).getResult().thenAccept(winner -> {
+                        if (winner == PlayerType.PLAYER_ONE)
+                            winsP1.incrementAndGet();
+                        else if (winner == PlayerType.PLAYER_TWO)
+                            winsP2.incrementAndGet();
+                        else
+                            undecided.incrementAndGet();
+                    });
+                }
+            } catch (InterruptedException e) {
+                // Done
+            }
+        }, "Match Feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+
+        int sustained = 0;
+        long lastTicks = 0, lastCpuNanos = 0, lastNanos = System.nanoTime();
+        for (int second = 1; second <= seconds; second++) {
+            Thread.sleep(1000);
+
+            long now = System.nanoTime();
+            long ticks = host.getTicks(), cpuNanos = host.getCpuNanos();
+            double elapsed = (now - lastNanos) / 1e9;
+            long tickDelta = ticks - lastTicks;
+            double cpuPerTick = (tickDelta == 0) ? 0 : (cpuNanos - lastCpuNanos) / 1e3 / tickDelta;
+            double load = (cpuNanos - lastCpuNanos) / 1e9 / elapsed / workers;
+
+            int running = host.getRunningMatches();
+            if (!host.isBehind()) {
+                sustained = Math.max(sustained, running);
+            }
+            System.out.printf("%4d s: %5d matches (%d queued), %7.0f ticks/s, %6.1f us CPU per tick, %5.1f %% worker load, %5.2f %% late%s%n",
+                    second, running, host.getQueuedMatches(), tickDelta / elapsed, cpuPerTick, 100 * load, 100 * host.getLateRatio(), host.isBehind() ? ", behind" : "");
+
+            lastTicks = ticks;
+            lastCpuNanos = cpuNanos;
+            lastNanos = now;
+        }
+
+        feeder.interrupt();
+        host.shutdown();
+
+        long finished = host.getFinishedMatches();
+        System.out.printf("Sustained %d matches at %d Hz on %d workers, %d dropped ticks%n", sustained, Config.TICKS_PER_SECOND, workers, host.getDroppedTicks());
+        System.out.printf("%d matches finished, %.1f ms CPU per match second%n", finished,
+                (host.getFinishedTicks() == 0) ? 0 : host.getFinishedCpuNanos() / 1e6 / host.getFinishedTicks() * Config.TICKS_PER_SECOND);
+        System.out.printf("Player 1 won %d, Player 2 won %d, %d undecided%n", winsP1.get(), winsP2.get(), undecided.get());
+    }
+}
@@ -0,0 +1,11 @@
+package stickfight2d.interfaces;
+
+import stickfight2d.enums.PlayerType;
+
+public interface InputScript {
+
+    /**
+     * @return input mask of the given player for the given tick, see {@link stickfight2d.misc.KeySet#getKeyBit}
+     */
+    int getInputMask(PlayerType playerType, long tick);
+}
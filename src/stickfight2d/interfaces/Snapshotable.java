@@ -0,0 +1,13 @@
+package stickfight2d.interfaces;
+
+/**
+ * Objects whose complete state can be saved and restored later, e.g. for rollbacks
+ *
+ * @param <S> copy of the state, must not change after it was saved
+ */
+public interface Snapshotable<S> {
+
+    S saveState();
+
+    void loadState(S state);
+}
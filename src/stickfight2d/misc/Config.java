@@ -23,6 +23,11 @@ public class Config {
     public static final int DROPKICK_VX = 30;
     public static final int JUMP_VY = 20;
     public static boolean swordCollisionParticles = true;
+    public static boolean swordFireParticles = true;
+
+    // PARTICLES
+    public static int particle_parallel_threshold = 20000;                  // Emitters with more live particles are integrated in parallel
+    public static int particle_threads = Runtime.getRuntime().availableProcessors();
 
     // MAIN MENU
     public static final String CREDITS = "Team:\n" +
@@ -49,9 +54,52 @@ public class Config {
             "-\tFast paced melee combat with exciting highs and \n"+
             "\tlows and close calls  \n";
 
+    // SCREEN
+    public static final int SCREEN_WIDTH = 1032;
+    public static final int SCREEN_HEIGHT = 810;
+
+    // RENDERING
+    public static double render_scale = 1.5;                // Window size relative to the screen size, the scene is scaled while drawing
+    public static boolean render_integer_scale = false;     // Rounds render_scale down to a whole factor without smoothing, keeps the pixel art sharp
+    public static boolean render_interpolation = true;      // Draws positions between the last two ticks when the frame rate is above the tick rate
+    public static int interpolation_snap_distance = 100;    // Larger moves within one tick (respawn, new screen) are not interpolated
+
+    // SIMULATION
+    public static final int TICKS_PER_SECOND = 60;
+    public static boolean headless_mode = false;    // No window, no FX images, no sound
+    public static int frame_rate = 60;                      // Frames per second of the GameLoop, e.g. 60, 120, 144 or 240 Hz
+    public static int max_catch_up_ticks = 5;               // Ticks run in one frame at most, the rest of a longer stall is dropped
+    public static long frame_pacer_spin_nanos = 1_000_000;  // The last part of the wait before a frame yields instead of sleeping
+    public static long match_seed = 42;                     // Seed of the random numbers of every match, peers and replays need the same one
+
+    // ASSETS
+    public static final String LEVEL_PATH = "src/levels/default.level";    // See Level for the format
+    public static int background_prefetch_radius = 1;                       // Neighbouring screens whose background is kept converted, see BackgroundSlices
+    public static boolean sprite_atlas_enabled = true;                      // Load the analysed sprites from the baked atlas, see SpriteAtlas
+    public static final String SPRITE_ATLAS_PATH = "cache/sprites.atlas";
+    public static int sword_rotation_cache_size = 128;                      // Resident sword angles, see SwordRotationCache
+    public static int sword_angle_step = 1;                                 // Sword angles are rounded to multiples of this step
+
+    // INPUT
+    public static int input_ring_capacity = 256;            // Key events queued between two ticks at most, see InputRing
+    public static boolean latency_probe_mode = false;       // Injects key presses and prints the input lag of every stage, see LatencyProbe
+    public static int latency_probe_interval_millis = 250;
+    public static int latency_probe_samples = 200;          // Probes per report
+
+    // HOST
+    public static int host_admissions_per_tick = 1;         // Matches a MatchHost starts per tick at most, ramps up slowly enough to notice when it falls behind
+    public static double host_max_late_ratio = 0.02;        // Share of late ticks above which a MatchHost admits no more matches
+
+    // REPLAY
+    public static boolean replay_recording = false;                     // Records every match of the window into REPLAY_DIR, see ReplayRecorder
+    public static final String REPLAY_DIR = "replays";
+    public static int replay_keyframe_interval = 5 * TICKS_PER_SECOND;  // Ticks between two keyframes, a seek replays at most this many ticks
+    public static int replay_fast_forward_speed = 100;                  // Speed of ReplayPlayer.fastForward relative to the match, 0 is unpaced
+
     // MISC
     public static boolean debug_mode = false;
     public static boolean fps_print_mode = true;
+    public static boolean profiler_enabled = false;     // Times every subsystem per frame and shows the ProfilerOverlay, see Profiler
     public static double volume = 0.05;
     public static double sfx_volume = 2*volume;
     public static final String FONT_PATH = "file:src/caesar.ttf";
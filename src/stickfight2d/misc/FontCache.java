@@ -0,0 +1,35 @@
+package stickfight2d.misc;
+
+import javafx.scene.text.Font;
+
+import java.util.HashMap;
+
+/**
+ * Font.loadFont reads and parses the font file on every call, the menus ask for the same fonts again and again.
+ * Fonts are loaded once per file and size, StartupPipeline loads the common ones before the menu is shown.
+ */
+public class FontCache {
+
+    private static final HashMap<String, Font> fonts = new HashMap<>();
+
+    private FontCache() {
+    }
+
+    /**
+     * @param url  file URL like Config.FONT_PATH
+     * @return the loaded font, the default font of the given size if the file could not be loaded
+     */
+    public static synchronized Font get(String url, double size) {
+        String key = url + "@" + size;
+        Font font = fonts.get(key);
+        if (font == null) {
+            font = Font.loadFont(url, size);
+            if (font == null) {
+                Debugger.log("Font " + url + " could not be loaded");
+                font = Font.font(size);
+            }
+            fonts.put(key, font);
+        }
+        return font;
+    }
+}
@@ -0,0 +1,119 @@
+package stickfight2d.misc;
+
+import java.util.Arrays;
+
+/**
+ * Rolling histogram of the frame time error (measured frame time minus target frame time) of the last frames.
+ * Errors are counted in buckets of fixed width, everything outside the range ends up in the first or last bucket.
+ * Recording does not allocate, the oldest frame leaves the histogram when a new one is recorded.
+ */
+public class FrameTimeHistogram {
+
+    private final long[] window;            // Errors of the last frames in ns, ring buffer
+    private int next = 0;
+    private int count = 0;
+
+    private final long bucketWidthNanos;
+    private final long minErrorNanos;
+    private final int[] buckets;
+
+    private long absErrorSumNanos = 0;
+
+    /**
+     * @param windowSize       number of frames the histogram covers
+     * @param bucketWidthNanos width of one bucket
+     * @param minErrorNanos    lower bound of the first bucket (usually negative, frames can be early)
+     * @param bucketCount      number of buckets
+     */
+    public FrameTimeHistogram(int windowSize, long bucketWidthNanos, long minErrorNanos, int bucketCount) {
+        if (windowSize < 1 || bucketWidthNanos < 1 || bucketCount < 1) {
+            throw new IllegalArgumentException("Window size, bucket width and bucket count of the FrameTimeHistogram have to be positive!");
+        }
+        this.window = new long[windowSize];
+        this.bucketWidthNanos = bucketWidthNanos;
+        this.minErrorNanos = minErrorNanos;
+        this.buckets = new int[bucketCount];
+    }
+
+    public void record(long errorNanos) {
+        if (count == window.length) {       // Oldest frame leaves the window
+            long oldest = window[next];
+            buckets[bucketOf(oldest)]--;
+            absErrorSumNanos -= Math.abs(oldest);
+        } else {
+            count++;
+        }
+
+        window[next] = errorNanos;
+        next = (next + 1) % window.length;
+        buckets[bucketOf(errorNanos)]++;
+        absErrorSumNanos += Math.abs(errorNanos);
+    }
+
+    private int bucketOf(long errorNanos) {
+        long bucket = Math.floorDiv(errorNanos - minErrorNanos, bucketWidthNanos);
+        return (int) Math.max(0, Math.min(buckets.length - 1, bucket));
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket that contains the percentile, 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= threshold) {
+                return getBucketLowerBoundNanos(i) + bucketWidthNanos;
+            }
+        }
+        return getBucketLowerBoundNanos(buckets.length - 1) + bucketWidthNanos;
+    }
+
+    public void clear() {
+        next = 0;
+        count = 0;
+        absErrorSumNanos = 0;
+        Arrays.fill(buckets, 0);
+    }
+
+    /**
+     * Getter Methods
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    public int getBucket(int index) {
+        return buckets[index];
+    }
+
+    public long getBucketLowerBoundNanos(int index) {
+        return minErrorNanos + index * bucketWidthNanos;
+    }
+
+    public long getMeanAbsErrorNanos() {
+        return (count == 0) ? 0 : absErrorSumNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Frame time error over %d frames: mean |error| %.3f ms, p50 %.2f ms, p99 %.2f ms%n",
+                count, getMeanAbsErrorNanos() / 1e6, getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6));
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                sb.append(String.format("%7.2f ms %6d%n", getBucketLowerBoundNanos(i) / 1e6, buckets[i]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package stickfight2d.misc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ring of timestamped input events for exactly one producer thread (FX thread) and one consumer thread
+ * (game thread). Events are plain ints, the slots are preallocated so neither side allocates.
+ * The producer publishes a slot by moving the tail with release semantics, the consumer frees slots by moving the head.
+ */
+public class InputRing {
+
+    private final long[] timestamps;
+    private final int[] events;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();     // Next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong();     // Next slot to write, written by the producer
+
+    private volatile long droppedEvents = 0;               // Written by the producer only, read from any thread
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public InputRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity of the InputRing has to be positive! capacity=" + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.timestamps = new long[size];
+        this.events = new int[size];
+        this.mask = size - 1;
+    }
+
+    // --- Producer
+
+    /**
+     * @return false if the ring is full and the event was dropped
+     */
+    public boolean offer(long timestampNanos, int event) {
+        long t = tail.get();
+        if (t - head.getAcquire() == events.length) {
+            droppedEvents++;
+            return false;
+        }
+        int slot = (int) t & mask;
+        timestamps[slot] = timestampNanos;
+        events[slot] = event;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    // --- Consumer
+
+    /**
+     * @return number of events that can be read with timestampAt and eventAt
+     */
+    public int available() {
+        return (int) (tail.getAcquire() - head.get());
+    }
+
+    /**
+     * @param index between 0 and available() - 1, 0 is the oldest event
+     */
+    public long timestampAt(int index) {
+        return timestamps[(int) (head.get() + index) & mask];
+    }
+
+    public int eventAt(int index) {
+        return events[(int) (head.get() + index) & mask];
+    }
+
+    /**
+     * Frees the oldest count events for the producer
+     */
+    public void consume(int count) {
+        head.setRelease(head.get() + count);
+    }
+
+    public int getCapacity() {
+        return events.length;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+}
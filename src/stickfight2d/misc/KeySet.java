@@ -3,6 +3,7 @@ package stickfight2d.misc;
 import javafx.scene.input.KeyCode;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 
 
 public class KeySet {
@@ -19,6 +20,7 @@ public class KeySet {
     private final KeyCode jumpKey;
 
     private final ArrayList<KeyCode> keyCodes = new ArrayList<>();
+    private final EnumMap<KeyCode, Integer> keyIndices = new EnumMap<>(KeyCode.class);   // Lookup without searching the list
 
 
     public KeySet(KeyCode moveLeftKey, KeyCode moveRightKey, KeyCode downKey, KeyCode upKey, KeyCode stabKey, KeyCode jumpKey){
@@ -34,6 +36,10 @@ public class KeySet {
         keyCodes.add(stabKey);
         keyCodes.add(jumpKey);
         keyCodes.add(upKey);
+
+        for (int i = 0; i < keyCodes.size(); i++) {
+            keyIndices.put(keyCodes.get(i), i);
+        }
     }
 
     public ArrayList<KeyCode> getKeyCodes() {
@@ -65,6 +71,24 @@ public class KeySet {
     }
 
     public boolean containsKeyCode(KeyCode keyCode){
-        return keyCodes.contains(keyCode);
+        return keyIndices.containsKey(keyCode);
+    }
+
+    /**
+     * @return position of the key in {@link #getKeyCodes()}, -1 if the key is not part of this set
+     */
+    public int getKeyIndex(KeyCode keyCode){
+        Integer index = keyIndices.get(keyCode);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * Input masks store one bit per key, in the order of {@link #getKeyCodes()}
+     *
+     * @return bit of the given key in an input mask, 0 if the key is not part of this set
+     */
+    public int getKeyBit(KeyCode keyCode){
+        int index = getKeyIndex(keyCode);
+        return (index < 0) ? 0 : 1 << index;
     }
 }
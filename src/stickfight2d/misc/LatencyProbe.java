@@ -0,0 +1,228 @@
+package stickfight2d.misc;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import stickfight2d.animation.Animation;
+import stickfight2d.world.PlayerObject;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the input lag of the pipeline: injects a synthetic key press into the canvas at a fixed interval and
+ * tracks it through every stage until the frame showing its effect is drawn.
+ *
+ * Stages (FX thread -> game thread -> FX thread):
+ * QUEUED    key event handled and queued in the InputRing
+ * CONSUMED  event applied to the key state at the end of a tick
+ * SIMULATED first tick after which the animation of player one changed (the probe is a jump)
+ * RECORDED  frame containing that tick published to the RenderPipeline
+ * PRESENTED frame drawn to the canvas on an FX pulse (the display adds its own scan-out delay on top)
+ *
+ * Only one probe is in flight at a time. Every latency_probe_samples probes the percentiles of each stage are printed.
+ * A probe that is blocked (menu, countdown) or has no visible effect times out and is not part of the percentiles.
+ *
+ * The stage moves on with compareAndSet, tagged with the number of the probe, so a late hook of a timed out probe
+ * cannot continue the next one. Each timestamp slot is only written by the thread of its stage, before the stage is
+ * published.
+ */
+public class LatencyProbe extends AnimationTimer {
+
+    private static final int IDLE = 0, INJECTING = 1, QUEUED = 2, CONSUMED = 3, SIMULATED = 4, RECORDED = 5, PRESENTED = 6;
+    private static final int STAGE_BITS = 3, STAGE_MASK = (1 << STAGE_BITS) - 1;     // Probe number above the stage
+    private static final String[] STAGE_NAMES = {"event -> queued", "queued -> consumed", "consumed -> simulated",
+            "simulated -> recorded", "recorded -> presented", "total"};
+    private static final long TIMEOUT_NANOS = 1_000_000_000L;
+
+    private static LatencyProbe instance;
+
+    private final KeyCode probeKey = Config.keySet1.getJumpKey();      // Changes the animation in the next tick
+    private Node target;
+
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private final long[] stageNanos = new long[PRESENTED + 1];     // FX thread: INJECTING, QUEUED, PRESENTED, game thread: the others
+    private long lastInjection = 0;
+
+    // Game thread
+    private Animation consumedAnimation;    // Animation after the tick that consumed the probe
+    private long simulatedTick;
+
+    // FX thread
+    private long recordedFrame = -1;        // Written by the game thread before RECORDED is published
+
+    private final long[][] samples = new long[STAGE_NAMES.length][Config.latency_probe_samples];
+    private int sampleCount = 0;
+    private long timeouts = 0;
+
+    public static LatencyProbe getInstance() {
+        if (instance == null) {
+            Debugger.log("Latency Probe instantiated");
+            instance = new LatencyProbe();
+        }
+        return instance;
+    }
+
+    private LatencyProbe() {
+    }
+
+    /**
+     * Starts injecting key events into the given node (the canvas the KeyController listens to)
+     */
+    public void start(Node target) {
+        this.target = target;
+        start();
+    }
+
+    // FX pulse: injects the next probe or finishes the current one
+    @Override
+    public void handle(long now) {
+        int current = state.get();
+        int stage = current & STAGE_MASK;
+
+        if (stage == PRESENTED) {
+            collectSample();
+            release(current);
+        } else if (stage != IDLE && System.nanoTime() - stageNanos[INJECTING] > TIMEOUT_NANOS) {
+            if (release(current))
+                timeouts++;     // Input blocked (menu, countdown) or the frame was never drawn
+        } else if (stage == IDLE && now - lastInjection >= Config.latency_probe_interval_millis * 1_000_000L) {
+            lastInjection = now;
+            stageNanos[INJECTING] = System.nanoTime();
+            state.set((((current >>> STAGE_BITS) + 1) << STAGE_BITS) | INJECTING);     // Only the FX thread leaves IDLE
+            target.fireEvent(new KeyEvent(KeyEvent.KEY_PRESSED, "", "", probeKey, false, false, false, false));
+        }
+    }
+
+    // Fails if the game thread moved the probe on meanwhile, it is released on the next pulse then
+    private boolean release(int current) {
+        if (!state.compareAndSet(current, (current & ~STAGE_MASK) | IDLE))
+            return false;
+        target.fireEvent(new KeyEvent(KeyEvent.KEY_RELEASED, "", "", probeKey, false, false, false, false));
+        return true;
+    }
+
+    // Moves the probe from one stage to the next, the timestamp of the new stage has to be written already
+    private boolean advance(int current, int to) {
+        return state.compareAndSet(current, (current & ~STAGE_MASK) | to);
+    }
+
+    private static boolean isStage(int current, int stage) {
+        return (current & STAGE_MASK) == stage;
+    }
+
+    // --- Stage hooks, only called if Config.latency_probe_mode is set
+
+    /**
+     * FX thread, KeyController: called for every queued key event
+     *
+     * @return true if the event is the injected probe and has to be tagged
+     */
+    public boolean queued(KeyCode keyCode, boolean pressed) {
+        int current = state.get();
+        if (!isStage(current, INJECTING) || !pressed || keyCode != probeKey) {
+            return false;
+        }
+        stageNanos[QUEUED] = System.nanoTime();
+        return advance(current, QUEUED);
+    }
+
+    /**
+     * Game thread, KeyController: the tagged press was applied to the key state, blocked presses are not reported
+     *
+     * @param queuedNanos timestamp of the event in the InputRing, older events belong to a probe that timed out
+     */
+    public void consumed(long queuedNanos) {
+        int current = state.get();
+        if (!isStage(current, QUEUED) || queuedNanos < stageNanos[QUEUED]) {
+            return;
+        }
+        stageNanos[CONSUMED] = System.nanoTime();
+        if (advance(current, CONSUMED)) {
+            consumedAnimation = null;
+        }
+    }
+
+    /**
+     * Game thread, GameLoop: a tick finished. Events are applied at the end of a tick, so the animation after that
+     * tick is the reference and the probe is simulated once a later tick replaced it.
+     */
+    public void ticked(PlayerObject player, long tick) {
+        int current = state.get();
+        if (!isStage(current, CONSUMED)) {
+            return;
+        }
+        if (consumedAnimation == null) {
+            consumedAnimation = player.getAnimation();
+        } else if (player.getAnimation() != consumedAnimation) {
+            stageNanos[SIMULATED] = System.nanoTime();
+            simulatedTick = tick;
+            advance(current, SIMULATED);
+        }
+    }
+
+    /**
+     * Game thread, GameLoop: a frame was published
+     *
+     * @param lastTick last tick contained in the frame
+     */
+    public void recorded(long frameNumber, long lastTick) {
+        int current = state.get();
+        if (!isStage(current, SIMULATED) || lastTick < simulatedTick) {
+            return;
+        }
+        stageNanos[RECORDED] = System.nanoTime();
+        recordedFrame = frameNumber;
+        advance(current, RECORDED);
+    }
+
+    /**
+     * FX thread, Renderer: a frame was drawn to the canvas
+     */
+    public void presented(long frameNumber) {
+        int current = state.get();
+        if (!isStage(current, RECORDED) || frameNumber < recordedFrame) {
+            return;
+        }
+        stageNanos[PRESENTED] = System.nanoTime();
+        advance(current, PRESENTED);
+    }
+
+    private void collectSample() {
+        for (int s = QUEUED; s <= PRESENTED; s++) {
+            samples[s - QUEUED][sampleCount] = stageNanos[s] - stageNanos[s - 1];
+        }
+        samples[STAGE_NAMES.length - 1][sampleCount] = stageNanos[PRESENTED] - stageNanos[INJECTING];
+
+        if (++sampleCount == samples[0].length) {
+            System.out.println(report());      // The output of the probe mode, not a debug message
+            sampleCount = 0;
+        }
+    }
+
+    /**
+     * @return percentiles of every stage over the collected samples
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Input latency over %d probes (%d timed out)%n", sampleCount, timeouts));
+        sb.append(String.format("%-24s %8s %8s %8s %8s%n", "stage [ms]", "p50", "p90", "p99", "max"));
+
+        for (int s = 0; s < STAGE_NAMES.length; s++) {
+            long[] sorted = Arrays.copyOf(samples[s], sampleCount);
+            Arrays.sort(sorted);
+            sb.append(String.format("%-24s %8.2f %8.2f %8.2f %8.2f%n", STAGE_NAMES[s],
+                    percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6, percentile(sorted, 100) / 1e6));
+        }
+        return sb.toString();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
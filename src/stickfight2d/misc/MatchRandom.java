@@ -0,0 +1,51 @@
+package stickfight2d.misc;
+
+/**
+ * Seeded random numbers of a match (SplitMix64). Unlike java.util.Random the whole generator is one long, so it is
+ * saved and restored with the match state and produces the same sequence on every JVM.
+ * Not thread safe, a match is only stepped by one thread at a time.
+ */
+public class MatchRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public MatchRandom(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * @return value in [0, bound)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("The bound has to be positive! bound=" + bound);
+        }
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    // Finalizer of SplitMix64, also used for state hashes (see Simulation)
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
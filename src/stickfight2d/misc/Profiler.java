@@ -0,0 +1,201 @@
+package stickfight2d.misc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Frame profiler: nanoTime scopes around every controller update, the update and draw of every GameObject class and the
+ * render handoff. The game thread sums the scopes of a section over one frame and records the sum once per frame, the
+ * FX thread records every drawn frame directly. Every section has exactly one writing thread.
+ *
+ * Scopes are taken with start() and one of the stop methods. Config.profiler_enabled is latched once per frame
+ * (beginFrame on the game thread, startRender on the FX thread), so start and stop of a scope always agree and a
+ * disabled profiler costs one branch per scope. See ProfilerOverlay for the in-game view.
+ */
+public class Profiler {
+
+    public static final int FRAME_HISTORY = 180;        // Frame times kept for the graph
+
+    public static final class Section {
+        private final String name;
+        private final ScopeHistogram histogram = new ScopeHistogram();
+        private long frameNanos = 0;                     // Sum of the current frame, writer only
+        private boolean active = false;
+
+        private Section(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ScopeHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    private static Profiler instance;
+    private static final Profiler DISABLED = new Profiler();      // Never enabled, for matches that are not profiled
+
+    private final CopyOnWriteArrayList<Section> sections = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Section> frameSections = new CopyOnWriteArrayList<>();    // Flushed by beginFrame
+
+    // One section per class, created when a class is profiled for the first time (game thread)
+    private final ClassValue<Section> updateSections = new ClassValue<>() {
+        @Override
+        protected Section computeValue(Class<?> type) {
+            return addSection(type.getSimpleName() + ".update", true);
+        }
+    };
+    private final ClassValue<Section> drawSections = new ClassValue<>() {
+        @Override
+        protected Section computeValue(Class<?> type) {
+            return addSection(type.getSimpleName() + ".draw", true);
+        }
+    };
+
+    private final Section frame = addSection("frame", false);
+    private final Section publish = addSection("RenderPipeline.publish", true);
+    private final Section render = addSection("Renderer.render", false);
+
+    private final long[] frameHistory = new long[FRAME_HISTORY];     // Ring of frame times in ns, game thread only
+    private int frameHistoryNext = 0;
+    private long lastFrameStart;
+
+    private boolean enabled = false;            // Game thread, latched by beginFrame
+    private boolean renderEnabled = false;      // FX thread, latched by startRender
+
+    public static synchronized Profiler getInstance() {
+        if (instance == null) {
+            Debugger.log("Profiler instantiated");
+            instance = new Profiler();
+        }
+        return instance;
+    }
+
+    private Profiler() {
+    }
+
+    /**
+     * @return profiler that never records, e.g. for matches besides the one of the window
+     */
+    public static Profiler disabled() {
+        return DISABLED;
+    }
+
+    private Section addSection(String name, boolean perFrame) {
+        Section section = new Section(name);
+        sections.add(section);
+        if (perFrame) {
+            frameSections.add(section);
+        }
+        return section;
+    }
+
+    // --- Game thread
+
+    /**
+     * @return token for one of the stop methods, meaningless while the profiler is disabled
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Adds the time since start to the update section of the object's class
+     */
+    public void stopUpdate(Object object, long token) {
+        if (enabled)
+            stop(updateSections.get(object.getClass()), token);
+    }
+
+    /**
+     * Adds the time since start to the draw section of the object's class
+     */
+    public void stopDraw(Object object, long token) {
+        if (enabled)
+            stop(drawSections.get(object.getClass()), token);
+    }
+
+    public void stopPublish(long token) {
+        if (enabled)
+            stop(publish, token);
+    }
+
+    private static void stop(Section section, long token) {
+        section.frameNanos += System.nanoTime() - token;
+        section.active = true;
+    }
+
+    /**
+     * Called once at the start of every frame: latches Config.profiler_enabled and records the sums of the last frame
+     * and the frame time. The disabled time before the profiler is switched on is not recorded.
+     */
+    public void beginFrame() {
+        boolean wasEnabled = enabled;
+        enabled = Config.profiler_enabled;
+        if (!enabled)
+            return;
+
+        long now = System.nanoTime();
+        if (!wasEnabled) {
+            lastFrameStart = now;
+            Arrays.fill(frameHistory, 0);
+            for (Section section : frameSections) {
+                section.frameNanos = 0;
+                section.active = false;
+            }
+            return;
+        }
+
+        long frameNanos = now - lastFrameStart;
+        frame.histogram.record(frameNanos);
+        frameHistory[frameHistoryNext] = frameNanos;
+        frameHistoryNext = (frameHistoryNext + 1) % FRAME_HISTORY;
+        lastFrameStart = now;
+
+        for (Section section : frameSections) {
+            if (section.active) {
+                section.histogram.record(section.frameNanos);
+                section.frameNanos = 0;
+                section.active = false;
+            }
+        }
+    }
+
+    /**
+     * @param age 0 is the last finished frame
+     * @return frame time in ns, 0 if there are not that many frames yet
+     */
+    public long getFrameTime(int age) {
+        return frameHistory[Math.floorMod(frameHistoryNext - 1 - age, FRAME_HISTORY)];
+    }
+
+    // --- FX thread
+
+    /**
+     * Starts the scope of drawing one frame, latches Config.profiler_enabled for stopRender
+     */
+    public long startRender() {
+        renderEnabled = Config.profiler_enabled;
+        return renderEnabled ? System.nanoTime() : 0;
+    }
+
+    public void stopRender(long token) {
+        if (renderEnabled)
+            render.histogram.record(System.nanoTime() - token);
+    }
+
+    /**
+     * @return all sections in the order they were created, safe to iterate while sections are added
+     */
+    public List<Section> getSections() {
+        return sections;
+    }
+
+    public Section getFrameSection() {
+        return frame;
+    }
+}
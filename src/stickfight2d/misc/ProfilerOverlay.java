@@ -0,0 +1,137 @@
+package stickfight2d.misc;
+
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.stage.Stage;
+import stickfight2d.Main;
+import stickfight2d.enums.DirectionType;
+import stickfight2d.render.RenderFrame;
+import stickfight2d.world.GameObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FPS counter (Config.fps_print_mode) and, if Config.profiler_enabled is set, a table with p50/p99/max of the slowest
+ * Profiler sections over the last second plus a graph of the last frame times. The table is only rebuilt once per
+ * second, nothing is read from the Profiler while it is disabled.
+ */
+public class ProfilerOverlay extends GameObject {
+
+    private static final int SHOWN_SECTIONS = 12;
+    private static final double GRAPH_X = 10, GRAPH_BASE_Y = Config.SCREEN_HEIGHT - 10;
+    private static final double GRAPH_BAR_WIDTH = 2, GRAPH_PIXELS_PER_MS = 3, GRAPH_MAX_HEIGHT = 100;
+    private static final Color GRAPH_OK = Color.LIMEGREEN, GRAPH_SLOW = Color.ORANGERED, GRAPH_BUDGET = Color.WHITE;
+
+    private final Text fpsText = new Text();
+    private final Text tableText = new Text();
+
+    private String fps = "60 FPS";
+    private String table = "";
+    private long secondStart = 0;
+    private int framesPerSecond = 0;
+
+    // Counts of every section at the start of the current interval, index = section index
+    private final ArrayList<long[]> previousCounts = new ArrayList<>();
+    private final long[] currentCounts = new long[ScopeHistogram.BUCKETS];
+
+    private static final class Row {
+        private String name;
+        private long p50, p99, max;
+    }
+
+    private final ArrayList<Row> rows = new ArrayList<>();
+
+    public ProfilerOverlay() {
+        super(0, 0, DirectionType.RIGHT);
+
+        Stage stage = Main.getPrimaryStage();
+        fpsText.setText(fps);
+        fpsText.setX(stage.getWidth() - 90);
+        fpsText.setY(25);
+        fpsText.setFill(Config.FONT_FPS);
+        fpsText.setFont(FontCache.get(Config.FONT_PATH, 18));
+
+        tableText.setX(10);
+        tableText.setY(20);
+        tableText.setFill(Config.FONT_FPS);
+        tableText.setFont(Font.font("Monospaced", 11));
+        tableText.setVisible(false);
+
+        Main.getRoot().getChildren().addAll(fpsText, tableText);
+    }
+
+    @Override
+    public void update(long diffMillis) {
+    }
+
+    // Counts drawn frames, the simulation ticks at a fixed rate independent of the frame rate
+    @Override
+    public void draw(RenderFrame frame) {
+        long now = System.nanoTime();
+        framesPerSecond++;
+        if (now - secondStart >= 1_000_000_000L) {
+            secondStart = now;
+            fps = framesPerSecond + " FPS";    // The text nodes are only touched on the FX thread
+            framesPerSecond = 0;
+            if (Config.profiler_enabled) {
+                table = buildTable();
+            }
+        }
+        frame.setText(fpsText, fps, Config.fps_print_mode);
+        frame.setText(tableText, table, Config.profiler_enabled);
+
+        if (Config.profiler_enabled) {
+            drawFrameGraph(frame);
+        }
+    }
+
+    private String buildTable() {
+        List<Profiler.Section> sections = Profiler.getInstance().getSections();
+
+        for (int i = 0; i < sections.size(); i++) {
+            if (i == previousCounts.size()) {
+                previousCounts.add(new long[ScopeHistogram.BUCKETS]);
+            }
+            if (i == rows.size()) {
+                rows.add(new Row());
+            }
+            long[] previous = previousCounts.get(i);
+            sections.get(i).getHistogram().copyCounts(currentCounts);
+
+            Row row = rows.get(i);
+            row.name = sections.get(i).getName();
+            row.p50 = ScopeHistogram.percentile(currentCounts, previous, 50);
+            row.p99 = ScopeHistogram.percentile(currentCounts, previous, 99);
+            row.max = sections.get(i).getHistogram().takeMax();
+            System.arraycopy(currentCounts, 0, previous, 0, currentCounts.length);
+        }
+
+        ArrayList<Row> sorted = new ArrayList<>(rows.subList(0, sections.size()));
+        sorted.sort((a, b) -> Long.compare(b.p99, a.p99));
+
+        StringBuilder sb = new StringBuilder(String.format("%-30s %7s %7s %7s%n", "section [ms]", "p50", "p99", "max"));
+        for (int i = 0; i < Math.min(SHOWN_SECTIONS, sorted.size()); i++) {
+            Row row = sorted.get(i);
+            sb.append(String.format("%-30s %7.3f %7.3f %7.3f%n", row.name, row.p50 / 1e6, row.p99 / 1e6, row.max / 1e6));
+        }
+        return sb.toString();
+    }
+
+    // Oldest frame on the left, bars above the budget of one frame are highlighted
+    private void drawFrameGraph(RenderFrame frame) {
+        Profiler profiler = Profiler.getInstance();
+        double budgetMs = 1000.0 / Config.frame_rate;
+
+        for (int age = 0; age < Profiler.FRAME_HISTORY; age++) {
+            double ms = profiler.getFrameTime(age) / 1e6;
+            double height = Math.min(GRAPH_MAX_HEIGHT, ms * GRAPH_PIXELS_PER_MS);
+            double x = GRAPH_X + (Profiler.FRAME_HISTORY - 1 - age) * GRAPH_BAR_WIDTH;
+            frame.fillScreenRect(ms > budgetMs * 1.25 ? GRAPH_SLOW : GRAPH_OK, x, GRAPH_BASE_Y - height, GRAPH_BAR_WIDTH, height);
+        }
+
+        double budgetY = GRAPH_BASE_Y - Math.min(GRAPH_MAX_HEIGHT, budgetMs * GRAPH_PIXELS_PER_MS);
+        frame.fillScreenRect(GRAPH_BUDGET, GRAPH_X, budgetY, Profiler.FRAME_HISTORY * GRAPH_BAR_WIDTH, 1);
+    }
+}
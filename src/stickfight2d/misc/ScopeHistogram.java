@@ -0,0 +1,95 @@
+package stickfight2d.misc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cumulative histogram of durations in ns with a relative bucket error of at most 12.5 % (8 linear sub-buckets per power
+ * of two). Exactly one thread records, any other thread can copy the counts without locks. Interval statistics are the
+ * difference between two copies, see {@link #percentile(long[], long[], double)}. The exact maximum is tracked apart
+ * from the buckets, see {@link #takeMax()}.
+ */
+public class ScopeHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    public static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();      // Since the last takeMax
+
+    /**
+     * Only called by the owning thread, publishes the new count with release semantics
+     */
+    public void record(long nanos) {
+        int index = bucketOf(Math.max(0, nanos));
+        counts.setRelease(index, counts.getPlain(index) + 1);
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);     // The reader may reset it meanwhile
+        }
+    }
+
+    /**
+     * Callable from any thread
+     *
+     * @return largest recorded duration since the last call, 0 if nothing was recorded
+     */
+    public long takeMax() {
+        return max.getAndSet(0);
+    }
+
+    /**
+     * Copies the current counts, callable from any thread
+     */
+    public void copyCounts(long[] into) {
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] = counts.getAcquire(i);
+        }
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return largest duration that falls into the bucket
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * @param current    counts copied at the end of the interval
+     * @param previous   counts copied at the start of the interval
+     * @param percentile between 0 and 100, 100 is the maximum
+     * @return upper bound of the bucket that contains the percentile, 0 if nothing was recorded in the interval
+     */
+    public static long percentile(long[] current, long[] previous, double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += current[i] - previous[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += current[i] - previous[i];
+            if (seen >= threshold) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+}
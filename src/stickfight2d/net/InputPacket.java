@@ -0,0 +1,72 @@
+package stickfight2d.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Datagram layout: [int ack] [int firstTick] [byte count] [count x byte inputMask]
+ * <p>
+ * ack is the last tick up to which the sender received all inputs of the receiver. Every packet repeats
+ * all inputs the receiver has not acknowledged yet, so lost or reordered packets need no resending.
+ */
+public class InputPacket {
+
+    public static final int MAX_INPUTS = 64;
+    public static final int MAX_SIZE = 9 + MAX_INPUTS;
+
+    private long ack;
+    private long firstTick;
+    private int count;
+    private final int[] inputs = new int[MAX_INPUTS];
+
+    /**
+     * @param inputs    ring buffer of input masks, indexed by tick & (inputs.length - 1)
+     * @param firstTick first tick to send, at most MAX_INPUTS ticks are sent ending with lastTick
+     * @return length of the packet in buffer
+     */
+    public static int write(byte[] buffer, long ack, int[] inputs, long firstTick, long lastTick) {
+        firstTick = Math.max(firstTick, lastTick - MAX_INPUTS + 1);
+        int count = (int) Math.max(lastTick - firstTick + 1, 0);
+
+        ByteBuffer packet = ByteBuffer.wrap(buffer);
+        packet.putInt((int) ack);
+        packet.putInt((int) firstTick);
+        packet.put((byte) count);
+        for (int i = 0; i < count; i++) {
+            packet.put((byte) inputs[(int) ((firstTick + i) & (inputs.length - 1))]);
+        }
+        return packet.position();
+    }
+
+    public boolean read(byte[] buffer, int length) {
+        if (length < 9)
+            return false;
+
+        ByteBuffer packet = ByteBuffer.wrap(buffer, 0, length);
+        ack = packet.getInt();
+        firstTick = packet.getInt();
+        count = packet.get();
+        if (count < 0 || count > MAX_INPUTS || length < 9 + count)
+            return false;
+
+        for (int i = 0; i < count; i++) {
+            inputs[i] = packet.get();
+        }
+        return true;
+    }
+
+    public long getAck() {
+        return ack;
+    }
+
+    public long getFirstTick() {
+        return firstTick;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getInput(int i) {
+        return inputs[i];
+    }
+}
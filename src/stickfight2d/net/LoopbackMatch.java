@@ -0,0 +1,77 @@
+package stickfight2d.net;
+
+import stickfight2d.Simulation;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.misc.Config;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Plays a headless rollback match against a scripted peer over a lossy loopback connection and checks that
+ * the result equals a plain simulation of the same inputs:
+ * LoopbackMatch [ticks] [latencyTicks] [jitterTicks] [lossRate] [maxRollback]
+ */
+public class LoopbackMatch {
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Config.headless_mode = true;
+
+        int ticks = (args.length > 0) ? Integer.parseInt(args[0]) : 60 * Config.TICKS_PER_SECOND;
+        int latency = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        int jitter = (args.length > 2) ? Integer.parseInt(args[2]) : 2;
+        double lossRate = (args.length > 3) ? Double.parseDouble(args[3]) : 0.05;
+        int maxRollback = (args.length > 4) ? Integer.parseInt(args[4]) : 8;
+
+        AnimationFactory.getInstance();
+        int[] localInputs = randomInputs(ticks, 1);
+        int[] remoteInputs = randomInputs(ticks, 2);
+
+        // Rollback match
+        LoopbackTransport[] transports = LoopbackTransport.createPair(latency, jitter, lossRate, 3);
+        RollbackSession session = new RollbackSession(new Simulation(), PlayerType.PLAYER_ONE, transports[0], maxRollback);
+        ScriptedPeer peer = new ScriptedPeer(transports[1], remoteInputs, maxRollback);
+
+        long start = System.nanoTime();
+        int tick = 0;
+        while (tick < ticks) {
+            peer.advance();
+            if (session.advance(localInputs[tick]))
+                tick++;
+        }
+        while (session.getLastRemoteTick() < ticks - 1) { // wait for the last remote inputs
+            peer.advance();
+            session.poll();
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        String rollbackResult = session.getSimulation().fingerprint();
+
+        System.out.printf("%d ticks in %.1f ms, %d rollbacks, %d ticks re-simulated, %d ticks waited%n",
+                ticks, millis, session.getRollbacks(), session.getResimulatedTicks(), session.getWaitingTicks());
+
+        // Same inputs without network
+        Simulation reference = new Simulation();
+        for (int i = 0; i < ticks; i++) {
+            reference.step(localInputs[i], remoteInputs[i]);
+        }
+        String referenceResult = reference.fingerprint();
+
+        System.out.println("Rollback:  " + rollbackResult);
+        System.out.println("Reference: " + referenceResult);
+        System.out.println(rollbackResult.equals(referenceResult) ? "IN SYNC" : "DESYNC");
+    }
+
+    private static int[] randomInputs(int ticks, long seed) {
+        Random rng = new Random(seed);
+        int[] inputs = new int[ticks];
+        int mask = 0;
+        for (int i = 0; i < ticks; i++) {
+            if (rng.nextInt(20) == 0)
+                mask = rng.nextInt(1 << 6);
+            inputs[i] = mask;
+        }
+        return inputs;
+    }
+}
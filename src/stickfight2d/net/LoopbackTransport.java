@@ -0,0 +1,81 @@
+package stickfight2d.net;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * In-memory transport for a local stand-in peer. Datagrams are delivered after a latency (counted in
+ * receive calls of the other side, usually one per tick), with optional jitter and packet loss.
+ */
+public class LoopbackTransport implements Transport {
+
+    private final ArrayList<Datagram> inbox = new ArrayList<>();
+    private LoopbackTransport peer;
+
+    private final int latency;
+    private final int jitter;
+    private final double lossRate;
+    private final Random rng;
+    private long receiveCalls = 0;
+
+    private LoopbackTransport(int latency, int jitter, double lossRate, long seed) {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.lossRate = lossRate;
+        this.rng = new Random(seed);
+    }
+
+    /**
+     * @return two connected transports
+     */
+    public static LoopbackTransport[] createPair(int latency, int jitter, double lossRate, long seed) {
+        LoopbackTransport a = new LoopbackTransport(latency, jitter, lossRate, seed);
+        LoopbackTransport b = new LoopbackTransport(latency, jitter, lossRate, seed + 1);
+        a.peer = b;
+        b.peer = a;
+        return new LoopbackTransport[]{a, b};
+    }
+
+    @Override
+    public void send(byte[] data, int length) {
+        if (rng.nextDouble() < lossRate)
+            return;
+
+        byte[] copy = new byte[length];
+        System.arraycopy(data, 0, copy, 0, length);
+        int delay = latency + ((jitter > 0) ? rng.nextInt(jitter + 1) : 0);
+        peer.inbox.add(new Datagram(copy, peer.receiveCalls + delay));
+    }
+
+    @Override
+    public int receive(byte[] buffer) {
+        receiveCalls++;
+
+        Iterator<Datagram> itr = inbox.iterator();
+        while (itr.hasNext()) {
+            Datagram datagram = itr.next();
+            if (datagram.deliverAt <= receiveCalls) {
+                itr.remove();
+                System.arraycopy(datagram.data, 0, buffer, 0, datagram.data.length);
+                return datagram.data.length;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        inbox.clear();
+    }
+
+    private static class Datagram {
+        private final byte[] data;
+        private final long deliverAt;
+
+        private Datagram(byte[] data, long deliverAt) {
+            this.data = data;
+            this.deliverAt = deliverAt;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package stickfight2d.net;
+
+import stickfight2d.Simulation;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.misc.Debugger;
+
+import java.io.IOException;
+
+/**
+ * Rollback netcode for one local and one remote player.
+ * <p>
+ * Every tick is simulated immediately, the missing remote input is predicted by repeating the last known one.
+ * The match state at the start of every tick is saved. When a remote input arrives that differs from the
+ * prediction, the state of that tick is restored and all ticks up to the current one are simulated again.
+ * If the remote inputs fall more than maxRollback ticks behind, the session waits for them.
+ */
+public class RollbackSession {
+
+    private static final int HISTORY = 128; // power of two, ticks kept for rollbacks and resending
+
+    private final Simulation simulation;
+    private final PlayerType localPlayer;
+    private final Transport transport;
+    private final int maxRollback;
+
+    private final int[] localInputs = new int[HISTORY];
+    private final int[] remoteInputs = new int[HISTORY];            // confirmed remote inputs
+    private final int[] simulatedRemoteInputs = new int[HISTORY];   // confirmed or predicted input a tick was simulated with
+    private final Simulation.State[] states = new Simulation.State[HISTORY];
+
+    private long lastRemoteTick = -1; // all remote inputs up to this tick are confirmed
+    private long lastAckedTick = -1;  // the remote player received all local inputs up to this tick
+
+    private final byte[] buffer = new byte[InputPacket.MAX_SIZE];
+    private final InputPacket packet = new InputPacket();
+
+    private int rollbacks = 0;
+    private long resimulatedTicks = 0;
+    private long waitingTicks = 0;
+
+    public RollbackSession(Simulation simulation, PlayerType localPlayer, Transport transport, int maxRollback) {
+        if (maxRollback < 1 || maxRollback > HISTORY - InputPacket.MAX_INPUTS)
+            throw new IllegalArgumentException("maxRollback has to be between 1 and " + (HISTORY - InputPacket.MAX_INPUTS));
+
+        this.simulation = simulation;
+        this.localPlayer = localPlayer;
+        this.transport = transport;
+        this.maxRollback = maxRollback;
+    }
+
+    /**
+     * Called once per tick with the current local input
+     *
+     * @return [true] if the tick was simulated, [false] if the session is waiting for remote inputs
+     */
+    public boolean advance(int localInput) {
+        poll();
+        long tick = simulation.getTick();
+
+        if (tick - lastRemoteTick > maxRollback) {
+            waitingTicks++;
+            sendInputs(tick - 1);
+            return false;
+        }
+
+        localInputs[index(tick)] = localInput;
+        sendInputs(tick);
+        simulateTick(tick);
+        return true;
+    }
+
+    /**
+     * Receives all waiting remote inputs and rolls back if a prediction was wrong
+     */
+    public void poll() {
+        long currentTick = simulation.getTick();
+        long firstMismatch = currentTick;
+
+        try {
+            int length;
+            while ((length = transport.receive(buffer)) >= 0) {
+                if (!packet.read(buffer, length))
+                    continue;
+
+                lastAckedTick = Math.max(lastAckedTick, packet.getAck());
+
+                for (int i = 0; i < packet.getCount(); i++) {
+                    long tick = packet.getFirstTick() + i;
+                    if (tick != lastRemoteTick + 1) // already known, or a gap that gets filled by a later packet
+                        continue;
+
+                    int input = packet.getInput(i);
+                    remoteInputs[index(tick)] = input;
+                    lastRemoteTick = tick;
+
+                    if (tick < firstMismatch && simulatedRemoteInputs[index(tick)] != input)
+                        firstMismatch = tick;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        if (firstMismatch < currentTick)
+            rollback(firstMismatch, currentTick);
+    }
+
+    private void rollback(long fromTick, long toTick) {
+        Debugger.log("Rollback " + fromTick + " -> " + toTick);
+        simulation.loadState(states[index(fromTick)]);
+
+        simulation.setEffectsEnabled(false);
+        for (long tick = fromTick; tick < toTick; tick++) {
+            simulateTick(tick);
+        }
+        simulation.setEffectsEnabled(true);
+
+        rollbacks++;
+        resimulatedTicks += toTick - fromTick;
+    }
+
+    private void simulateTick(long tick) {
+        int i = index(tick);
+        int remoteInput = (tick <= lastRemoteTick) ? remoteInputs[i] : predictRemoteInput();
+        simulatedRemoteInputs[i] = remoteInput;
+        states[i] = simulation.saveState();
+
+        if (localPlayer == PlayerType.PLAYER_ONE)
+            simulation.step(localInputs[i], remoteInput);
+        else
+            simulation.step(remoteInput, localInputs[i]);
+    }
+
+    private int predictRemoteInput() {
+        return (lastRemoteTick < 0) ? 0 : remoteInputs[index(lastRemoteTick)];
+    }
+
+    private void sendInputs(long lastTick) {
+        try {
+            int length = InputPacket.write(buffer, lastRemoteTick, localInputs, lastAckedTick + 1, lastTick);
+            transport.send(buffer, length);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int index(long tick) {
+        return (int) (tick & (HISTORY - 1));
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public long getLastRemoteTick() {
+        return lastRemoteTick;
+    }
+
+    public int getRollbacks() {
+        return rollbacks;
+    }
+
+    public long getResimulatedTicks() {
+        return resimulatedTicks;
+    }
+
+    public long getWaitingTicks() {
+        return waitingTicks;
+    }
+}
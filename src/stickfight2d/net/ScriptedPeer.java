@@ -0,0 +1,51 @@
+package stickfight2d.net;
+
+import java.io.IOException;
+
+/**
+ * Local stand-in for the remote player: sends recorded inputs like a RollbackSession would, without simulating
+ */
+public class ScriptedPeer {
+
+    private final Transport transport;
+    private final int[] script;
+    private final int maxRollback;
+    private final int[] inputs = new int[128];
+
+    private long tick = 0;
+    private long lastRemoteTick = -1;
+    private long lastAckedTick = -1;
+
+    private final byte[] buffer = new byte[InputPacket.MAX_SIZE];
+    private final InputPacket packet = new InputPacket();
+
+    public ScriptedPeer(Transport transport, int[] script, int maxRollback) {
+        this.transport = transport;
+        this.script = script;
+        this.maxRollback = maxRollback;
+    }
+
+    /**
+     * Sends the input of the next tick, unless the other side is too far behind
+     */
+    public void advance() throws IOException {
+        int length;
+        while ((length = transport.receive(buffer)) >= 0) {
+            if (!packet.read(buffer, length))
+                continue;
+
+            lastAckedTick = Math.max(lastAckedTick, packet.getAck());
+            for (int i = 0; i < packet.getCount(); i++) {
+                if (packet.getFirstTick() + i == lastRemoteTick + 1)
+                    lastRemoteTick++;
+            }
+        }
+
+        if (tick - lastRemoteTick <= maxRollback && tick < script.length) {
+            inputs[(int) (tick & (inputs.length - 1))] = script[(int) tick];
+            tick++;
+        }
+        length = InputPacket.write(buffer, lastRemoteTick, inputs, lastAckedTick + 1, tick - 1);
+        transport.send(buffer, length);
+    }
+}
@@ -0,0 +1,20 @@
+package stickfight2d.net;
+
+import java.io.IOException;
+
+/**
+ * Unreliable, unordered datagram connection to the other player
+ */
+public interface Transport {
+
+    void send(byte[] data, int length) throws IOException;
+
+    /**
+     * Does not block
+     *
+     * @return length of the datagram copied into buffer, -1 if there is none
+     */
+    int receive(byte[] buffer) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,52 @@
+package stickfight2d.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Non-blocking UDP connection to the other player
+ */
+public class UdpTransport implements Transport {
+
+    private final DatagramChannel channel;
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(InputPacket.MAX_SIZE);
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(InputPacket.MAX_SIZE);
+
+    public UdpTransport(int localPort, InetSocketAddress remote) throws IOException {
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(localPort));
+        channel.connect(remote);
+        channel.configureBlocking(false);
+    }
+
+    @Override
+    public void send(byte[] data, int length) throws IOException {
+        sendBuffer.clear();
+        sendBuffer.put(data, 0, length);
+        sendBuffer.flip();
+        channel.write(sendBuffer);
+    }
+
+    @Override
+    public int receive(byte[] buffer) throws IOException {
+        receiveBuffer.clear();
+        if (channel.receive(receiveBuffer) == null)
+            return -1;
+
+        receiveBuffer.flip();
+        int length = Math.min(receiveBuffer.remaining(), buffer.length);
+        receiveBuffer.get(buffer, 0, length);
+        return length;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package stickfight2d.render;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Text;
+import stickfight2d.animation.FrameData;
+import stickfight2d.misc.Config;
+
+import java.util.ArrayList;
+
+/**
+ * Everything that is drawn in one frame, recorded by the game thread and replayed on the FX thread.
+ * Coordinates are world coordinates unless a method says otherwise, the camera offset is applied while drawing.
+ * Frames are reused: once a frame has been published it is never written again until the renderer handed it back,
+ * see RenderPipeline.
+ */
+public class RenderFrame {
+
+    private enum CommandType {
+        SPRITE, IMAGE, SCREEN_IMAGE, FILL_RECT, SCREEN_FILL_RECT, STROKE_RECT, FILL_POLYGON, OVALS, TEXT_NODE
+    }
+
+    // Pooled command, only the fields of its type are used
+    private static class Command {
+        private CommandType type;
+        private Object ref;                 // FrameData, Image, Paint or Text
+        private String text;
+        private double x, y, width, height;
+        private boolean flipped;
+        private boolean visible;
+        private int from, count;            // Range of polygon points or ovals
+    }
+
+    private final ArrayList<Command> commands = new ArrayList<>();
+    private int commandCount = 0;
+
+    // Shared storage of polygon points and ovals, grows once and is reused afterwards
+    private double[] pointsX = new double[64];
+    private double[] pointsY = new double[64];
+    private int pointCount = 0;
+    private double[] ovalsX = new double[1024];
+    private double[] ovalsY = new double[1024];
+    private double[] ovalsAlpha = new double[1024];
+    private int ovalCount = 0;
+
+    private Command openOvals = null;      // Oval batch that addOval appends to
+
+    private long frameNumber = -1;
+    private double alpha = 1;
+    private double camX, camY;
+
+    // Scratch arrays of the renderer, only used on the FX thread
+    private double[] screenX = new double[8];
+    private double[] screenY = new double[8];
+
+    /**
+     * Empties the frame for the next recording
+     *
+     * @param alpha progress between the last and the next tick, positions are interpolated by it
+     */
+    public void begin(long frameNumber, double alpha, double camX, double camY) {
+        this.frameNumber = frameNumber;
+        this.alpha = alpha;
+        this.camX = camX;
+        this.camY = camY;
+        commandCount = 0;
+        pointCount = 0;
+        ovalCount = 0;
+        openOvals = null;
+    }
+
+    // --- Recording (game thread)
+
+    /**
+     * @return position between the state before and after the last tick, the current one if it jumped
+     */
+    public double interpolate(int previous, int current) {
+        if (Math.abs(current - previous) > Config.interpolation_snap_distance) {
+            return current;
+        }
+        return previous + (current - previous) * alpha;
+    }
+
+    /**
+     * Sprite of an animation frame, flipped sprites are mirrored at x + width/2 like FrameData.drawHorizontallyFlipped
+     */
+    public void drawSprite(FrameData frame, double x, double y, boolean flipped) {
+        Command command = next(CommandType.SPRITE);
+        command.ref = frame;
+        command.x = x;
+        command.y = y;
+        command.flipped = flipped;
+    }
+
+    public void drawImage(Image image, double x, double y) {
+        Command command = next(CommandType.IMAGE);
+        command.ref = image;
+        command.x = x;
+        command.y = y;
+    }
+
+    // Screen coordinates, not moved by the camera
+    public void drawScreenImage(Image image, double x, double y) {
+        Command command = next(CommandType.SCREEN_IMAGE);
+        command.ref = image;
+        command.x = x;
+        command.y = y;
+    }
+
+    public void fillRect(Paint paint, double x, double y, double width, double height) {
+        rect(CommandType.FILL_RECT, paint, x, y, width, height);
+    }
+
+    // Screen coordinates, not moved by the camera (overlays)
+    public void fillScreenRect(Paint paint, double x, double y, double width, double height) {
+        rect(CommandType.SCREEN_FILL_RECT, paint, x, y, width, height);
+    }
+
+    public void strokeRect(Paint paint, double x, double y, double width, double height) {
+        rect(CommandType.STROKE_RECT, paint, x, y, width, height);
+    }
+
+    private void rect(CommandType type, Paint paint, double x, double y, double width, double height) {
+        Command command = next(type);
+        command.ref = paint;
+        command.x = x;
+        command.y = y;
+        command.width = width;
+        command.height = height;
+    }
+
+    /**
+     * The points are copied, the arrays can be reused by the caller
+     */
+    public void fillPolygon(Paint paint, double[] xPoints, double[] yPoints, int nPoints) {
+        Command command = next(CommandType.FILL_POLYGON);
+        command.ref = paint;
+        command.from = pointCount;
+        command.count = nPoints;
+
+        if (pointCount + nPoints > pointsX.length) {
+            pointsX = grow(pointsX, pointCount + nPoints);
+            pointsY = grow(pointsY, pointCount + nPoints);
+        }
+        System.arraycopy(xPoints, 0, pointsX, pointCount, nPoints);
+        System.arraycopy(yPoints, 0, pointsY, pointCount, nPoints);
+        pointCount += nPoints;
+    }
+
+    /**
+     * Starts a batch of equally sized ovals (particles), see addOval
+     */
+    public void beginOvals(Paint paint, double size) {
+        Command command = next(CommandType.OVALS);
+        command.ref = paint;
+        command.width = size;
+        command.from = ovalCount;
+        command.count = 0;
+        openOvals = command;
+    }
+
+    public void addOval(double x, double y, double alpha) {
+        if (ovalCount == ovalsX.length) {
+            ovalsX = grow(ovalsX, ovalCount + 1);
+            ovalsY = grow(ovalsY, ovalCount + 1);
+            ovalsAlpha = grow(ovalsAlpha, ovalCount + 1);
+        }
+        ovalsX[ovalCount] = x;
+        ovalsY[ovalCount] = y;
+        ovalsAlpha[ovalCount] = alpha;
+        ovalCount++;
+        openOvals.count++;
+    }
+
+    /**
+     * Text of a scene graph node (overlays), applied on the FX thread
+     */
+    public void setText(Text node, String text, boolean visible) {
+        Command command = next(CommandType.TEXT_NODE);
+        command.ref = node;
+        command.text = text;
+        command.visible = visible;
+    }
+
+    private Command next(CommandType type) {
+        openOvals = null;
+        if (commandCount == commands.size()) {
+            commands.add(new Command());
+        }
+        Command command = commands.get(commandCount++);
+        command.type = type;
+        return command;
+    }
+
+    private static double[] grow(double[] array, int minLength) {
+        double[] grown = new double[Math.max(minLength, array.length * 2)];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    // --- Replay (FX thread)
+
+    public void render(GraphicsContext gc) {
+        gc.clearRect(0, 0, Config.SCREEN_WIDTH, Config.SCREEN_HEIGHT);
+
+        for (int i = 0; i < commandCount; i++) {
+            Command command = commands.get(i);
+
+            switch (command.type) {
+                case SPRITE -> {
+                    Image image = ((FrameData) command.ref).getImage();
+                    if (command.flipped) {
+                        FrameData.drawHorizontallyFlipped(gc, image, command.x - camX, command.y - camY);
+                    } else {
+                        gc.drawImage(image, command.x - camX, command.y - camY);
+                    }
+                }
+                case IMAGE -> gc.drawImage((Image) command.ref, command.x - camX, command.y - camY);
+                case SCREEN_IMAGE -> gc.drawImage((Image) command.ref, command.x, command.y);
+                case FILL_RECT -> {
+                    gc.setFill((Paint) command.ref);
+                    gc.fillRect(command.x - camX, command.y - camY, command.width, command.height);
+                }
+                case SCREEN_FILL_RECT -> {
+                    gc.setFill((Paint) command.ref);
+                    gc.fillRect(command.x, command.y, command.width, command.height);
+                }
+                case STROKE_RECT -> {
+                    gc.setStroke((Paint) command.ref);
+                    gc.strokeRect(command.x - camX, command.y - camY, command.width, command.height);
+                }
+                case FILL_POLYGON -> {
+                    if (command.count > screenX.length) {
+                        screenX = new double[command.count];
+                        screenY = new double[command.count];
+                    }
+                    for (int p = 0; p < command.count; p++) {
+                        screenX[p] = pointsX[command.from + p] - camX;
+                        screenY[p] = pointsY[command.from + p] - camY;
+                    }
+                    gc.setFill((Paint) command.ref);
+                    gc.fillPolygon(screenX, screenY, command.count);
+                }
+                case OVALS -> {
+                    double globalAlpha = gc.getGlobalAlpha();
+                    gc.setFill((Paint) command.ref);
+                    for (int o = command.from; o < command.from + command.count; o++) {
+                        gc.setGlobalAlpha(globalAlpha * ovalsAlpha[o]);
+                        gc.fillOval(ovalsX[o] - camX, ovalsY[o] - camY, command.width, command.width);
+                    }
+                    gc.setGlobalAlpha(globalAlpha);
+                }
+                case TEXT_NODE -> {
+                    Text node = (Text) command.ref;
+                    if (!command.text.equals(node.getText())) {
+                        node.setText(command.text);
+                    }
+                    node.setVisible(command.visible);
+                }
+            }
+        }
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    public int getCommandCount() {
+        return commandCount;
+    }
+}
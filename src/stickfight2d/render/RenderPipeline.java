@@ -0,0 +1,45 @@
+package stickfight2d.render;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands finished frames from the game thread to the FX thread without locks and without allocating.
+ * Three frames rotate between the two threads: the game thread records into its own frame, the renderer draws its own
+ * frame and the third one is the latest published frame. Neither side ever waits for the other, a slow renderer
+ * simply skips frames.
+ */
+public class RenderPipeline {
+
+    private final AtomicReference<RenderFrame> latest = new AtomicReference<>(new RenderFrame());
+    private RenderFrame recording = new RenderFrame();      // Owned by the game thread
+    private RenderFrame presented = new RenderFrame();      // Owned by the FX thread
+    private long frameNumber = 0;
+
+    /**
+     * Game thread: empties the own frame and returns it for recording
+     */
+    public RenderFrame beginFrame(double alpha, double camX, double camY) {
+        recording.begin(frameNumber++, alpha, camX, camY);
+        return recording;
+    }
+
+    /**
+     * Game thread: publishes the recorded frame, the frame that comes back is recorded next
+     */
+    public void publish() {
+        recording = latest.getAndSet(recording);
+    }
+
+    /**
+     * FX thread: takes the latest published frame, if there is a newer one than the last presented
+     *
+     * @return null if nothing new was published since the last call
+     */
+    public RenderFrame takeLatest() {
+        if (latest.get().getFrameNumber() <= presented.getFrameNumber()) {
+            return null;
+        }
+        presented = latest.getAndSet(presented);
+        return presented;
+    }
+}
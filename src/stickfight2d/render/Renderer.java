@@ -0,0 +1,67 @@
+package stickfight2d.render;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.LatencyProbe;
+import stickfight2d.misc.Profiler;
+
+/**
+ * Draws the latest published frame once per JavaFX pulse, the only place that touches the canvas.
+ * The scene is recorded in screen size and scaled by the transform of the graphics context, so the frame is drawn
+ * once at window resolution without reading the canvas back.
+ */
+public class Renderer extends AnimationTimer {
+
+    private final RenderPipeline renderPipeline;
+    private final GraphicsContext gc;
+
+    private long presentedFrames = 0;
+    private long skippedPulses = 0;
+
+    public Renderer(RenderPipeline renderPipeline, Canvas canvas) {
+        this.renderPipeline = renderPipeline;
+        this.gc = canvas.getGraphicsContext2D();
+
+        double scale = getScale();
+        gc.scale(scale, scale);
+        gc.setImageSmoothing(!Config.render_integer_scale);     // Nearest neighbour keeps the sprite pixels square
+    }
+
+    /**
+     * @return factor between screen size and window size, at least 1 when integer scaling is enabled
+     */
+    public static double getScale() {
+        if (Config.render_scale <= 0) {
+            throw new IllegalArgumentException("Render scale has to be positive! render_scale=" + Config.render_scale);
+        }
+        return Config.render_integer_scale ? Math.max(1, Math.floor(Config.render_scale)) : Config.render_scale;
+    }
+
+    @Override
+    public void handle(long now) {
+        RenderFrame frame = renderPipeline.takeLatest();
+        if (frame == null) {        // No new frame, the canvas still shows the last one
+            skippedPulses++;
+            return;
+        }
+
+        Profiler profiler = Profiler.getInstance();
+        long token = profiler.startRender();
+        frame.render(gc);
+        profiler.stopRender(token);
+
+        if (Config.latency_probe_mode)
+            LatencyProbe.getInstance().presented(frame.getFrameNumber());
+        presentedFrames++;
+    }
+
+    public long getPresentedFrames() {
+        return presentedFrames;
+    }
+
+    public long getSkippedPulses() {
+        return skippedPulses;
+    }
+}
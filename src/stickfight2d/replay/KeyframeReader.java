@@ -0,0 +1,158 @@
+package stickfight2d.replay;
+
+import javafx.geometry.Point2D;
+import stickfight2d.animation.Animation;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.enums.AnimationType;
+import stickfight2d.enums.DirectionType;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.world.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Decodes a keyframe of the KeyframeWriter into a Simulation.State of another match. References are resolved against
+ * the world of that match: background, obstacles and players are the existing objects, the swords of the keyframe
+ * are created new.
+ */
+public class KeyframeReader {
+
+    private static final AnimationType[] ANIMATION_TYPES = AnimationType.values();
+    private static final PlayerType[] PLAYER_TYPES = PlayerType.values();
+
+    private final ByteBuffer buffer;
+    private final WorldObject world;
+    private final ArrayList<RectangleObstacle> obstacles = new ArrayList<>();
+    private final ArrayList<SwordObject> swords = new ArrayList<>();
+
+    /**
+     * @param keyframe encoded keyframe between position and limit
+     * @param world    world the state will be loaded into
+     */
+    public KeyframeReader(ByteBuffer keyframe, WorldObject world) {
+        this.buffer = keyframe;
+        this.world = world;
+        for (GameObject obj : world.getGameObjects()) {
+            if (obj instanceof RectangleObstacle obstacle)
+                obstacles.add(obstacle);
+        }
+    }
+
+    public WorldObject getWorld() {
+        return world;
+    }
+
+    public int readInt() {
+        long value = readLong();
+        if (value != (int) value) {
+            throw new IllegalArgumentException("Keyframe value " + value + " does not fit into an int!");
+        }
+        return (int) value;
+    }
+
+    public long readLong() {
+        return Varint.getSigned(buffer);
+    }
+
+    private int readUnsigned(int limit) {
+        long value = Varint.getUnsigned(buffer);
+        if (value < 0 || value > limit) {
+            throw new IllegalArgumentException("Keyframe value " + value + " is out of range, at most " + limit + " expected!");
+        }
+        return (int) value;
+    }
+
+    public long readRawLong() {
+        return buffer.getLong();
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public <E extends Enum<E>> E readEnum(E[] values) {
+        int value = readUnsigned(values.length);
+        return (value == 0) ? null : values[value - 1];
+    }
+
+    public Point2D readPoint() {
+        if (!readBoolean())
+            return null;
+        double x = readDouble();
+        return new Point2D(x, readDouble());
+    }
+
+    /**
+     * Creates the swords of the keyframe, their state is loaded afterwards
+     */
+    public ArrayList<SwordObject> readSwords() {
+        int count = readUnsigned(buffer.remaining());
+        swords.clear();
+        for (int i = 0; i < count; i++) {
+            swords.add(new SwordObject(0, 0, DirectionType.RIGHT, world.getPlayer1()));     // The constructor needs a holder
+        }
+        return swords;
+    }
+
+    public SwordObject readSword() {
+        int id = readUnsigned(swords.size());
+        return (id == 0) ? null : swords.get(id - 1);
+    }
+
+    public PlayerObject readPlayer() {
+        return player(readEnum(PLAYER_TYPES));
+    }
+
+    private PlayerObject player(PlayerType playerType) {
+        if (playerType == null)
+            return null;
+        return (playerType == PlayerType.PLAYER_ONE) ? world.getPlayer1() : world.getPlayer2();
+    }
+
+    public RectangleObstacle readObstacle() {
+        int index = readUnsigned(obstacles.size());
+        return (index == 0) ? null : obstacles.get(index - 1);
+    }
+
+    public GameObject readObject() {
+        long code = Varint.getUnsigned(buffer);
+        int index = (int) (code >>> 2);
+        switch ((int) (code & 3)) {
+            case KeyframeWriter.OBJECT_BACKGROUND:
+                return world.getBackground();
+            case KeyframeWriter.OBJECT_OBSTACLE:
+                checkIndex(index, obstacles.size());
+                return obstacles.get(index);
+            case KeyframeWriter.OBJECT_PLAYER:
+                checkIndex(index, PLAYER_TYPES.length);
+                return player(PLAYER_TYPES[index]);
+            default:
+                checkIndex(index, swords.size());
+                return swords.get(index);
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Keyframe object " + index + " does not exist, only " + size + " are known!");
+        }
+    }
+
+    /**
+     * @return new animation of the written type and sword angle, its progress is loaded from Animation.State
+     */
+    public Animation readAnimation() {
+        AnimationType type = readEnum(ANIMATION_TYPES);
+        int angle = readInt();
+        if (type == null) {
+            throw new IllegalArgumentException("Keyframe animation without a type!");
+        }
+        AnimationFactory animationFactory = AnimationFactory.getInstance();
+        return (type == AnimationType.SWORD) ? animationFactory.getSwordAnimAngle(angle) : animationFactory.getAnimation(type);
+    }
+}
@@ -0,0 +1,158 @@
+package stickfight2d.replay;
+
+import javafx.geometry.Point2D;
+import stickfight2d.Simulation;
+import stickfight2d.animation.Animation;
+import stickfight2d.world.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes a Simulation.State into a self-contained keyframe. Every State writes its own fields (see their write
+ * methods), this class provides the encoding: integers as zigzag varints, doubles, hashes and random states as their
+ * 8 raw bytes so the restored match continues bit for bit, enums by ordinal. Game objects are written as references
+ * (background, obstacle index, player number, sword id) and resolved against the world of the replaying match by the
+ * KeyframeReader.
+ */
+public class KeyframeWriter {
+
+    static final int OBJECT_BACKGROUND = 0, OBJECT_OBSTACLE = 1, OBJECT_PLAYER = 2, OBJECT_SWORD = 3;
+
+    private final ArrayList<RectangleObstacle> obstacles = new ArrayList<>();
+    private final ArrayList<SwordObject> swords = new ArrayList<>();
+    private ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+    public KeyframeWriter(WorldObject world) {
+        for (GameObject obj : world.getGameObjects()) {
+            if (obj instanceof RectangleObstacle obstacle)
+                obstacles.add(obstacle);
+        }
+    }
+
+    /**
+     * @return the encoded keyframe between position and limit, only valid until the next call
+     */
+    ByteBuffer encode(Simulation.State state) {
+        buffer.clear();
+        swords.clear();
+        state.write(this);
+        buffer.flip();
+        return buffer;
+    }
+
+    // Grows the buffer, keyframes have a few hundred bytes so this rarely happens
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    public void writeInt(int value) {
+        writeLong(value);
+    }
+
+    public void writeLong(long value) {
+        ensureRemaining(Varint.MAX_BYTES);
+        Varint.putSigned(buffer, value);
+    }
+
+    private void writeUnsigned(long value) {
+        ensureRemaining(Varint.MAX_BYTES);
+        Varint.putUnsigned(buffer, value);
+    }
+
+    // Hashes and random states, their 8 raw bytes are shorter than a varint
+    public void writeRawLong(long value) {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void writeDouble(double value) {
+        ensureRemaining(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void writeBoolean(boolean value) {
+        ensureRemaining(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    // null is written as 0
+    public void writeEnum(Enum<?> value) {
+        writeUnsigned((value == null) ? 0 : value.ordinal() + 1);
+    }
+
+    public void writePoint(Point2D point) {
+        writeBoolean(point != null);
+        if (point != null) {
+            writeDouble(point.getX());
+            writeDouble(point.getY());
+        }
+    }
+
+    /**
+     * Declares the swords of the keyframe, swords are referenced by their position in this list afterwards
+     */
+    public void writeSwords(List<SwordObject> swords) {
+        this.swords.clear();
+        this.swords.addAll(swords);
+        writeUnsigned(swords.size());
+    }
+
+    public void writeSword(SwordObject sword) {
+        writeUnsigned((sword == null) ? 0 : swordId(sword) + 1);
+    }
+
+    private int swordId(SwordObject sword) {
+        int id = swords.indexOf(sword);
+        if (id < 0) {
+            throw new IllegalStateException("Sword " + sword + " is not part of the keyframe!");
+        }
+        return id;
+    }
+
+    public void writePlayer(PlayerObject player) {
+        writeEnum((player == null) ? null : player.getPlayerNumber());
+    }
+
+    public void writeObstacle(RectangleObstacle obstacle) {
+        writeUnsigned((obstacle == null) ? 0 : obstacleIndex(obstacle) + 1);
+    }
+
+    private int obstacleIndex(RectangleObstacle obstacle) {
+        int index = obstacles.indexOf(obstacle);
+        if (index < 0) {
+            throw new IllegalStateException("Obstacle " + obstacle + " is not part of the level!");
+        }
+        return index;
+    }
+
+    // Kind in the lowest two bits, obstacle index, player number or sword id above
+    public void writeObject(GameObject obj) {
+        if (obj instanceof BackgroundObject) {
+            writeUnsigned(OBJECT_BACKGROUND);
+        } else if (obj instanceof RectangleObstacle obstacle) {
+            writeUnsigned(((long) obstacleIndex(obstacle) << 2) | OBJECT_OBSTACLE);
+        } else if (obj instanceof PlayerObject player) {
+            writeUnsigned(((long) player.getPlayerNumber().ordinal() << 2) | OBJECT_PLAYER);
+        } else if (obj instanceof SwordObject sword) {
+            writeUnsigned(((long) swordId(sword) << 2) | OBJECT_SWORD);
+        } else {
+            throw new IllegalArgumentException("Game object " + obj + " cannot be part of a keyframe!");
+        }
+    }
+
+    /**
+     * Writes which animation is running (type and sword angle), its progress is part of Animation.State
+     */
+    public void writeAnimation(Animation animation) {
+        writeEnum(animation.getAnimationType());
+        writeInt(animation.getCurrentFrame().getAngle());
+    }
+}
@@ -0,0 +1,89 @@
+package stickfight2d.replay;
+
+import stickfight2d.HeadlessMain;
+import stickfight2d.Simulation;
+import stickfight2d.controllers.AnimationFactory;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.interfaces.InputScript;
+import stickfight2d.misc.Config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Records and plays replays without a window:
+ * ReplayMain record [file] [maxSecondsPerMatch] [seed]   records a match of two random bots, seeded like their inputs
+ * ReplayMain play [file] [fromSecond] [toSecond]         seeks and fast-forwards at Config.replay_fast_forward_speed
+ * ReplayMain verify [file]                               checks that playback reproduces every recorded keyframe
+ */
+public class ReplayMain {
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Config.headless_mode = true;
+
+        String mode = (args.length > 0) ? args[0] : "verify";
+        Path path = Paths.get((args.length > 1) ? args[1] : Config.REPLAY_DIR + "/bots.replay");
+
+        AnimationFactory.getInstance();
+        switch (mode) {
+            case "record" -> {
+                long maxTicks = ((args.length > 2) ? Long.parseLong(args[2]) : 120) * Config.TICKS_PER_SECOND;
+                long seed = (args.length > 3) ? Long.parseLong(args[3]) : 42;
+                record(path, maxTicks, seed, HeadlessMain.randomInput(seed));
+            }
+            case "play" -> {
+                long from = (args.length > 2) ? Long.parseLong(args[2]) * Config.TICKS_PER_SECOND : 0;
+                long to = (args.length > 3) ? Long.parseLong(args[3]) * Config.TICKS_PER_SECOND : Long.MAX_VALUE;
+                play(path, from, to);
+            }
+            case "verify" -> verify(path);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + ", use record, play or verify!");
+        }
+    }
+
+    private static void record(Path path, long maxTicks, long seed, InputScript script) throws IOException {
+        Files.deleteIfExists(path);
+        Simulation simulation = new Simulation(seed);
+
+        long start = System.nanoTime();
+        PlayerType winner;
+        try (ReplayRecorder recorder = new ReplayRecorder(path, Config.replay_keyframe_interval, seed)) {
+            simulation.setRecorder(recorder);
+            winner = simulation.runMatch(script, maxTicks);
+        }
+
+        System.out.printf("Recorded %d ticks in %.1f ms to %s, %d bytes (%.1f bytes per second of play)%n", simulation.getTick(),
+                (System.nanoTime() - start) / 1e6, path, Files.size(path), Files.size(path) * (double) Config.TICKS_PER_SECOND / simulation.getTick());
+        System.out.println("Winner: " + winner);
+        System.out.println(simulation.fingerprint());
+    }
+
+    private static void play(Path path, long from, long to) throws IOException {
+        ReplayPlayer player = ReplayPlayer.open(path);
+        to = Math.min(to, player.getEndTick());
+
+        long start = System.nanoTime();
+        player.seek(from);
+        System.out.printf("Seeked to tick %d in %.1f ms: %s%n", player.getTick(), (System.nanoTime() - start) / 1e6, player.getSimulation().fingerprint());
+
+        start = System.nanoTime();
+        long fromTick = player.getTick();
+        player.fastForward(to);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Fast-forwarded %d ticks in %.2f s (%.0fx real time): %s%n", player.getTick() - fromTick, seconds,
+                (player.getTick() - fromTick) / (double) Config.TICKS_PER_SECOND / seconds, player.getSimulation().fingerprint());
+        System.out.println("Winner: " + (player.isComplete() ? player.getWinner() : "unknown, the replay is cut off"));
+    }
+
+    private static void verify(Path path) throws IOException {
+        ReplayPlayer player = ReplayPlayer.open(path);
+
+        long start = System.nanoTime();
+        int mismatches = player.verify();
+        System.out.printf("%d ticks, %d keyframes replayed in %.1f ms%n", player.getEndTick(), player.getKeyframeTicks().length, (System.nanoTime() - start) / 1e6);
+        System.out.println(mismatches == 0 ? "REPLAY MATCHES" : mismatches + " KEYFRAMES DIFFER");
+    }
+}
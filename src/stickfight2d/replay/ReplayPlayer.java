@@ -0,0 +1,339 @@
+package stickfight2d.replay;
+
+import stickfight2d.Simulation;
+import stickfight2d.controllers.KeyController;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.misc.Config;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays a replay of the ReplayRecorder on its own Simulation without rendering. Opening the file maps it and builds
+ * the keyframe index, seek() then loads the last keyframe before the wanted tick and replays the recorded inputs
+ * from there, so any tick is reached with at most one keyframe interval of simulation.
+ *
+ * A replay cut off by a crash is played up to its last complete record.
+ */
+public class ReplayPlayer {
+
+    private static final PlayerType[] PLAYER_TYPES = PlayerType.values();
+    private static final int INPUT_MASK = (1 << ReplayRecorder.INPUT_BITS) - 1;
+
+    private final ByteBuffer file;
+    private final int keyframeInterval;
+    private final long[] keyframeTicks;
+    private final int[] keyframePositions;          // Position of the record in the file
+    private final int endPosition;                  // Behind the last complete record
+    private final long endTick;
+    private final boolean complete;
+    private final PlayerType winner;
+
+    private final Simulation simulation;
+
+    // Next record that is not applied yet
+    private int position;
+    private byte recordType;
+    private long recordTick;
+    private int inputMaskP1, inputMaskP2;
+
+    private ReplayPlayer(ByteBuffer file, int keyframeInterval, long seed, int recordsPosition) throws IOException {
+        this.file = file;
+        this.keyframeInterval = keyframeInterval;
+        this.simulation = new Simulation(seed);
+
+        // Keyframe index, the file is scanned without decoding the keyframes
+        ArrayList<long[]> keyframes = new ArrayList<>();
+        int position = recordsPosition;
+        long tick = 0;
+        boolean complete = false;
+        PlayerType winner = null;
+        try {
+            while (position < file.limit()) {
+                file.position(position);
+                byte type = file.get();
+                long recordTick = tick + Varint.getUnsigned(file);
+                switch (type) {
+                    case ReplayRecorder.RECORD_INPUT -> Varint.getUnsigned(file);
+                    case ReplayRecorder.RECORD_KEYFRAME -> {
+                        int length = (int) Varint.getUnsigned(file);
+                        file.position(file.position() + length);
+                        keyframes.add(new long[]{recordTick, position});
+                    }
+                    case ReplayRecorder.RECORD_END -> {
+                        int winnerNumber = file.get();
+                        winner = (winnerNumber > 0 && winnerNumber <= PLAYER_TYPES.length) ? PLAYER_TYPES[winnerNumber - 1] : null;
+                        complete = true;
+                    }
+                    default -> throw new IOException("Unknown replay record " + type + " at position " + position + "!");
+                }
+                position = file.position();
+                tick = recordTick;
+                if (complete)
+                    break;
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // Cut off record, the replay ends with the previous one
+        }
+
+        if (keyframes.isEmpty()) {
+            throw new IOException("The replay has no keyframe!");
+        }
+        this.keyframeTicks = keyframes.stream().mapToLong(keyframe -> keyframe[0]).toArray();
+        this.keyframePositions = keyframes.stream().mapToInt(keyframe -> (int) keyframe[1]).toArray();
+        this.endPosition = position;
+        this.endTick = complete ? tick : tick + 1;      // Without an end record only the inputs up to the last record are known
+        this.complete = complete;
+        this.winner = winner;
+
+        loadKeyframe(0);
+    }
+
+    /**
+     * Maps the replay and builds its keyframe index, playback starts at the first keyframe
+     *
+     * @throws IOException if the file is no replay, was recorded with another version, tick rate or level
+     */
+    public static ReplayPlayer open(Path path) throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            if (file.getInt() != ReplayRecorder.MAGIC) {
+                throw new IOException(path + " is no replay!");
+            }
+            byte version = file.get();
+            if (version != ReplayRecorder.VERSION) {
+                throw new IOException(path + " has version " + version + ", only version " + ReplayRecorder.VERSION + " can be played!");
+            }
+            long ticksPerSecond = Varint.getUnsigned(file);
+            if (ticksPerSecond != Config.TICKS_PER_SECOND) {
+                throw new IOException(path + " was recorded at " + ticksPerSecond + " ticks per second, the game runs at " + Config.TICKS_PER_SECOND + "!");
+            }
+            int keyframeInterval = (int) Varint.getUnsigned(file);
+            long seed = file.getLong();
+            byte[] level = new byte[(int) Varint.getUnsigned(file)];
+            file.get(level);
+            String levelPath = new String(level, StandardCharsets.UTF_8);
+            if (!levelPath.equals(Config.LEVEL_PATH)) {
+                throw new IOException(path + " was recorded on " + levelPath + ", the game uses " + Config.LEVEL_PATH + "!");
+            }
+            return new ReplayPlayer(file, keyframeInterval, seed, file.position());
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(path + " has a broken header!", e);
+        }
+    }
+
+    /**
+     * Jumps to the given tick, clamped to the length of the replay: loads the last keyframe before it (unless the
+     * match is already between that keyframe and the tick) and replays the remaining ticks
+     */
+    public void seek(long tick) {
+        tick = Math.max(keyframeTicks[0], Math.min(tick, endTick));
+        int index = Arrays.binarySearch(keyframeTicks, tick);
+        if (index < 0) {
+            index = Math.max(0, -index - 2);
+        }
+
+        long currentTick = simulation.getTick();
+        if (tick < currentTick || keyframeTicks[index] > currentTick) {
+            loadKeyframe(index);
+        }
+        advanceTo(tick);
+    }
+
+    /**
+     * Replays the ticks up to the given tick as fast as possible
+     */
+    public void advanceTo(long tick) {
+        while (simulation.getTick() < tick && step()) {
+            // Replaying
+        }
+    }
+
+    /**
+     * Replays the ticks up to the given tick at Config.replay_fast_forward_speed times the real speed of the match
+     */
+    public void fastForward(long tick) {
+        int speed = Config.replay_fast_forward_speed;
+        if (speed <= 0) {
+            advanceTo(tick);
+            return;
+        }
+
+        long periodNanos = 1_000_000_000L / Config.TICKS_PER_SECOND;
+        long nextPeriod = System.nanoTime();
+        while (simulation.getTick() < tick && simulation.getTick() < endTick) {
+            advanceTo(Math.min(tick, simulation.getTick() + speed));
+
+            nextPeriod += periodNanos;
+            long wait = nextPeriod - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    /**
+     * Applies the recorded inputs of the current tick and advances the match by it
+     *
+     * @return false at the end of the replay
+     */
+    public boolean step() {
+        if (simulation.getTick() >= endTick)
+            return false;
+
+        applyRecords();
+        restoreInputMasks();
+        simulation.step();
+        return true;
+    }
+
+    /**
+     * Plays the whole replay and compares the match at every keyframe with the recorded keyframe
+     *
+     * Replays of the window may differ in the blocked keys, the countdown changes them between two ticks.
+     *
+     * @return number of keyframes that differ, 0 if playback reproduces the recorded match exactly
+     */
+    public int verify() {
+        loadKeyframe(0);
+        KeyframeWriter keyframeWriter = new KeyframeWriter(simulation.getWorld());
+
+        int mismatches = 0;
+        for (int i = 0; i < keyframeTicks.length; i++) {
+            advanceTo(keyframeTicks[i]);
+
+            // Keyframes are recorded after the inputs of their tick were applied
+            applyRecords();
+            restoreInputMasks();
+
+            if (!keyframeWriter.encode(simulation.saveState()).equals(keyframe(i))) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    // Held keys are restored as recorded, see KeyController.restoreInputMask
+    private void restoreInputMasks() {
+        KeyController keyController = simulation.getContext().getKeyController();
+        keyController.restoreInputMask(Config.keySet1, inputMaskP1);
+        keyController.restoreInputMask(Config.keySet2, inputMaskP2);
+    }
+
+    private void loadKeyframe(int index) {
+        simulation.loadState(new Simulation.State(new KeyframeReader(keyframe(index), simulation.getWorld())));
+
+        KeyController keyController = simulation.getContext().getKeyController();
+        inputMaskP1 = keyController.getInputMask(Config.keySet1);
+        inputMaskP2 = keyController.getInputMask(Config.keySet2);
+
+        readRecordHeader(keyframePositions[index], 0);
+        recordTick = keyframeTicks[index];      // Known from the index, the record only has the distance to its predecessor
+        skipRecord();
+    }
+
+    // Encoded state of the keyframe, between position and limit
+    private ByteBuffer keyframe(int index) {
+        ByteBuffer keyframe = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        keyframe.position(keyframePositions[index]);
+        keyframe.get();
+        Varint.getUnsigned(keyframe);
+        int length = (int) Varint.getUnsigned(keyframe);
+        keyframe.limit(keyframe.position() + length);
+        return keyframe;
+    }
+
+    // Applies the input records of the current tick, the held keys of a keyframe were recorded right before it
+    private void applyRecords() {
+        long tick = simulation.getTick();
+        while (position < endPosition && recordTick == tick) {
+            if (recordType == ReplayRecorder.RECORD_INPUT) {
+                file.position(position);
+                file.get();
+                Varint.getUnsigned(file);
+                int input = (int) Varint.getUnsigned(file);
+                inputMaskP1 = input & INPUT_MASK;
+                inputMaskP2 = (input >>> ReplayRecorder.INPUT_BITS) & INPUT_MASK;
+            }
+            skipRecord();
+        }
+    }
+
+    private void readRecordHeader(int position, long tick) {
+        this.position = position;
+        if (position < endPosition) {
+            file.position(position);
+            recordType = file.get();
+            recordTick = tick + Varint.getUnsigned(file);
+        }
+    }
+
+    // Moves on to the next record
+    private void skipRecord() {
+        file.position(position);
+        file.get();
+        Varint.getUnsigned(file);
+        switch (recordType) {
+            case ReplayRecorder.RECORD_INPUT -> Varint.getUnsigned(file);
+            case ReplayRecorder.RECORD_KEYFRAME -> {
+                int length = (int) Varint.getUnsigned(file);
+                file.position(file.position() + length);
+            }
+            default -> file.position(endPosition);
+        }
+        readRecordHeader(file.position(), recordTick);
+    }
+
+    /**
+     * Getter Methods
+     */
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    public long getTick() {
+        return simulation.getTick();
+    }
+
+    /**
+     * @return number of ticks of the replay
+     */
+    public long getEndTick() {
+        return endTick;
+    }
+
+    /**
+     * @return false if the replay was cut off before its end record
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return recorded winner, null if nobody won or the replay is not complete
+     */
+    public PlayerType getWinner() {
+        return winner;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public long[] getKeyframeTicks() {
+        return keyframeTicks.clone();
+    }
+}
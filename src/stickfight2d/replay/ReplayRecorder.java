@@ -0,0 +1,174 @@
+package stickfight2d.replay;
+
+import stickfight2d.Simulation;
+import stickfight2d.enums.PlayerType;
+import stickfight2d.misc.Config;
+import stickfight2d.misc.Debugger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records a match into an append-only replay file. The Simulation calls record() at the start of every tick, after
+ * the inputs of the tick were applied. Only changes of the held keys are written, so a replay costs a few bytes per
+ * second of play plus a keyframe every Config.replay_keyframe_interval ticks.
+ *
+ * Layout (little endian, v = unsigned varint, see Varint):
+ * header:   [int magic][byte version][v ticksPerSecond][v keyframeInterval][long seed][v levelPathLength][level path bytes]
+ * records:  [byte type][v ticks since the previous record] and
+ *           INPUT:    [v input mask of player 1 | input mask of player 2 << 6]
+ *           KEYFRAME: [v length][Simulation.State, see KeyframeWriter]
+ *           END:      [byte winner, 0 for none or 1 + ordinal]
+ *
+ * Records are collected in a buffer and written to the channel whenever a keyframe was added or the buffer is full,
+ * a replay cut off by a crash can still be played up to the last complete record.
+ */
+public class ReplayRecorder implements Closeable {
+
+    static final int MAGIC = 0x53463252;    // "SF2R"
+    static final byte VERSION = 3;          // Increase whenever the layout or a State.write changes
+    static final byte RECORD_INPUT = 1, RECORD_KEYFRAME = 2, RECORD_END = 3;
+    static final int INPUT_BITS = 6;        // Keys per player, see KeySet
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int RECORD_HEADER_BYTES = 1 + 2 * Varint.MAX_BYTES;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final int keyframeInterval;
+
+    private Simulation simulation;          // Recorded match, known from the first tick on
+    private KeyframeWriter keyframeWriter;
+    private long lastRecordTick = 0;
+    private long recordedTicks = 0;
+    private int lastInput = -1;
+    private long keyframes = 0;
+    private boolean closed = false;
+    private IOException failure;
+
+    /**
+     * @param path             new replay file, an existing file is never overwritten
+     * @param keyframeInterval ticks between two keyframes
+     * @param seed             seed of the recorded match, see MatchContext.getSeed()
+     */
+    public ReplayRecorder(Path path, int keyframeInterval, long seed) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("The keyframe interval has to be at least one tick! keyframeInterval=" + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        byte[] level = Config.LEVEL_PATH.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        Varint.putUnsigned(buffer, Config.TICKS_PER_SECOND);
+        Varint.putUnsigned(buffer, keyframeInterval);
+        buffer.putLong(seed);
+        Varint.putUnsigned(buffer, level.length);
+        buffer.put(level);
+    }
+
+    /**
+     * Called by the Simulation at the start of every tick. A failing disk stops the recording instead of the match,
+     * the error is thrown by close().
+     */
+    public synchronized void record(Simulation simulation, int inputMaskP1, int inputMaskP2) {
+        if (closed || failure != null)
+            return;
+        if (this.simulation == null) {
+            this.simulation = simulation;
+            this.keyframeWriter = new KeyframeWriter(simulation.getWorld());
+        }
+
+        try {
+            long tick = simulation.getTick();
+            int input = inputMaskP1 | inputMaskP2 << INPUT_BITS;
+
+            // Also at keyframes, a linear playback passes them without decoding
+            if (input != lastInput) {
+                putRecordHeader(RECORD_INPUT, tick, Varint.MAX_BYTES);
+                Varint.putUnsigned(buffer, input);
+                lastInput = input;
+            }
+            if (tick % keyframeInterval == 0 || keyframes == 0) {     // A replay starts with a keyframe
+                ByteBuffer keyframe = keyframeWriter.encode(simulation.saveState());
+                putRecordHeader(RECORD_KEYFRAME, tick, Varint.MAX_BYTES + keyframe.remaining());
+                Varint.putUnsigned(buffer, keyframe.remaining());
+                put(keyframe);
+                keyframes++;
+                flush();
+            }
+            recordedTicks = tick + 1;
+        } catch (IOException e) {
+            failure = e;
+            Debugger.log("ReplayRecorder - Recording stopped: " + e);
+        }
+    }
+
+    private void putRecordHeader(byte type, long tick, int payloadBytes) throws IOException {
+        if (buffer.remaining() < RECORD_HEADER_BYTES + payloadBytes) {
+            flush();
+        }
+        buffer.put(type);
+        Varint.putUnsigned(buffer, tick - lastRecordTick);
+        lastRecordTick = tick;
+    }
+
+    // Keyframes larger than the buffer are written in parts
+    private void put(ByteBuffer bytes) throws IOException {
+        while (bytes.remaining() > buffer.remaining()) {
+            int limit = bytes.limit();
+            bytes.limit(bytes.position() + buffer.remaining());
+            buffer.put(bytes);
+            bytes.limit(limit);
+            flush();
+        }
+        buffer.put(bytes);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Ends the replay with the number of recorded ticks and the winner and closes the file
+     *
+     * @throws IOException if writing failed now or during the match
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        try (channel) {
+            if (failure != null)
+                throw failure;
+
+            PlayerType winner = (simulation == null) ? null : simulation.getWinner();
+            putRecordHeader(RECORD_END, recordedTicks, 1);
+            buffer.put((byte) ((winner == null) ? 0 : winner.ordinal() + 1));
+            flush();
+        }
+    }
+
+    public synchronized long getKeyframes() {
+        return keyframes;
+    }
+}
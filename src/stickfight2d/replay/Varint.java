@@ -0,0 +1,44 @@
+package stickfight2d.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 variable length integers: 7 bits per byte, the high bit marks that another byte follows.
+ * Signed values are zigzag encoded first (0, -1, 1, -2, ... -> 0, 1, 2, 3, ...), so small negative numbers stay short.
+ */
+final class Varint {
+
+    static final int MAX_BYTES = 10;       // 64 bits in 7 bit groups
+
+    private Varint() {
+    }
+
+    static void putUnsigned(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static void putSigned(ByteBuffer buffer, long value) {
+        putUnsigned(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    static long getUnsigned(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than " + MAX_BYTES + " bytes at position " + buffer.position());
+    }
+
+    static long getSigned(ByteBuffer buffer) {
+        long value = getUnsigned(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
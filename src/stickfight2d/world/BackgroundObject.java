@@ -2,52 +2,39 @@ package stickfight2d.world;
 
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import stickfight2d.GameLoop;
-import stickfight2d.controllers.CameraController;
+import javafx.scene.paint.Color;
+import stickfight2d.MatchContext;
 import stickfight2d.controllers.CollisionController;
 import stickfight2d.enums.DirectionType;
 import stickfight2d.enums.PlayerType;
+import stickfight2d.events.WorldStateChangeEvent;
+import stickfight2d.interfaces.Snapshotable;
 import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
+import stickfight2d.render.RenderFrame;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 
 import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 
-public class BackgroundObject extends GameObject {
+public class BackgroundObject extends GameObject implements Snapshotable<BackgroundObject.State> {
 
-    /**
-     * map.png
-     */
-    private BufferedImage defaultImage;
+    private final Level level;
 
     /**
-     * Current world background
+     * World backgrounds, one slice of the level background (map.png) per world state, null in headless mode
      */
-    private Image worldSubImage = null;
+    private BackgroundSlices slices;
+    private static final Color SLICE_PLACEHOLDER = Color.BLACK;     // Drawn while the slice of the screen is converted
 
     /**
-     * Map split into 5 world states [0, 4], "2" being the middle
+     * Map split into one world state per screen of the level, starting in the start screen (the middle)
      */
     private boolean worldStateChanged = true;
-    private int worldState = 2;
-
-    /**
-     * Key :: MapState
-     * Value :: Spawn location of player
-     */
-    private final HashMap<Integer, HashMap<PlayerType, Point2D>> spawnPoints = initializeSpawnMap();
-
-    /**
-     * For calculating the current sub image that has to be displayed in the background
-     */
-    private final int subImageHeight = 810 * 2;
-    private final int subImageWidth = 1032;
-    private int subImageStartX = worldState * subImageWidth;
+    private int worldState;
 
     /**
      * For enabling players to run out of opposite bounds if they get a hit on the enemy
@@ -57,18 +44,19 @@ public class BackgroundObject extends GameObject {
     private Image arrow_right;
 
     /**
-     * Read map image and save first sub image
-     *
-     * @param x             has to be 0
-     * @param y             has to be 0
-     * @param directionType has to be null
+     * Map image of the level, decoded here unless the StartupPipeline preloaded it. The first sub image is shown right
+     * away, the neighbours are converted in the background
      */
-    public BackgroundObject(int x, int y, DirectionType directionType) {
-        super(x, y, directionType);
+    public BackgroundObject(Level level) {
+        super(0, 0, null);
+        this.level = level;
+        this.worldState = level.getStartScreen();
+
+        if (Config.headless_mode) // Nothing to draw
+            return;
+
         try {
-            String PATH_MAP = "src/map.png";
-            defaultImage = ImageIO.read(new File(PATH_MAP));
-            worldSubImage = SwingFXUtils.toFXImage(defaultImage.getSubimage(subImageStartX, 0, subImageWidth, subImageHeight), null);
+            slices = new BackgroundSlices(level, Config.background_prefetch_radius);
 
             String PATH_ARROW_LEFT = "src/arrow_left.png";
             String PATH_ARROW_RIGHT = "src/arrow_right.png";
@@ -81,46 +69,6 @@ public class BackgroundObject extends GameObject {
         }
     }
 
-    private static HashMap<Integer, HashMap<PlayerType, Point2D>> initializeSpawnMap() {
-        HashMap<Integer, HashMap<PlayerType, Point2D>> map = new HashMap<>();
-        int width = 1032;
-
-        Point2D symmetricSpawns_P1 = new Point2D(150, 500);
-        Point2D symmetricSpawns_P2 = new Point2D(width - 150, 500);
-
-        // Spawns Map_0
-        HashMap<PlayerType, Point2D> spawns_0 = new HashMap<>();
-        spawns_0.put(PlayerType.PLAYER_ONE, new Point2D(580, 500));
-        spawns_0.put(PlayerType.PLAYER_TWO, new Point2D(width - 100, 500));
-        map.put(0, spawns_0);
-
-        // Spawns Map_1
-        HashMap<PlayerType, Point2D> spawns_1 = new HashMap<>();
-        spawns_1.put(PlayerType.PLAYER_ONE, symmetricSpawns_P1);
-        spawns_1.put(PlayerType.PLAYER_TWO, symmetricSpawns_P2);
-        map.put(1, spawns_1);
-
-        // Spawns Map_2
-        HashMap<PlayerType, Point2D> spawns_2 = new HashMap<>();
-        spawns_2.put(PlayerType.PLAYER_ONE, new Point2D(275, 500));
-        spawns_2.put(PlayerType.PLAYER_TWO, new Point2D(width - 275, 500));
-        map.put(2, spawns_2);
-
-        // Spawns Map_3
-        HashMap<PlayerType, Point2D> spawns_3 = new HashMap<>();
-        spawns_3.put(PlayerType.PLAYER_ONE, symmetricSpawns_P1);
-        spawns_3.put(PlayerType.PLAYER_TWO, symmetricSpawns_P2);
-        map.put(3, spawns_3);
-
-        // Spawns Map_4
-        HashMap<PlayerType, Point2D> spawns_4 = new HashMap<>();
-        spawns_4.put(PlayerType.PLAYER_ONE, new Point2D(100, 500));
-        spawns_4.put(PlayerType.PLAYER_TWO, new Point2D(400, 500));
-        map.put(4, spawns_4);
-
-        return map;
-    }
-
     @Override
     public void update(long diffMillis) {
         if (worldStateChanged) {
@@ -141,15 +89,20 @@ public class BackgroundObject extends GameObject {
     }
 
     @Override
-    public void draw(GraphicsContext gc) {
-        Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(0, 0);
-        gc.drawImage(worldSubImage, drawPoint.getX(), drawPoint.getY());
+    public void draw(RenderFrame frame) {
+        if (slices != null) {
+            Image slice = slices.getCurrentSlice();
+            if (slice != null)
+                frame.drawImage(slice, 0, 0);
+            else
+                frame.fillRect(SLICE_PLACEHOLDER, 0, 0, level.getSliceWidth(), level.getSliceHeight());
+        }
 
-        if (currentEnabledRunningDirection == DirectionType.RIGHT && worldState != 4)
-            gc.drawImage(arrow_right, 676 + 200, 156 + 50);
+        if (currentEnabledRunningDirection == DirectionType.RIGHT && worldState != level.getLastScreen())
+            frame.drawScreenImage(arrow_right, 676 + 200, 156 + 50);
 
         else if (currentEnabledRunningDirection == DirectionType.LEFT && worldState != 0)
-            gc.drawImage(arrow_left, 356 - 130, 156 + 50);
+            frame.drawScreenImage(arrow_left, 356 - 130, 156 + 50);
     }
 
     /**
@@ -160,18 +113,23 @@ public class BackgroundObject extends GameObject {
      * @param p2         player2
      */
     public void setWorldState(int worldState, PlayerObject p1, PlayerObject p2) {
+        WorldStateChangeEvent event = new WorldStateChangeEvent();
+        event.begin();
+        event.from = this.worldState;
+        event.to = worldState;
+        event.sliceReady = slices != null && slices.isReady(worldState);
+
         this.worldState = worldState;
-        this.subImageStartX = worldState * subImageWidth;
-        worldSubImage = SwingFXUtils.toFXImage(defaultImage.getSubimage(subImageStartX, 0, subImageWidth, subImageHeight), null);
+        updateSubImage();
         worldStateChanged = true;
 
-        GameLoop.currentLevel.clearSwordsOnGround();
+        MatchContext.current().getWorld().clearSwordsOnGround();
 
         p1.checkSwordInNewScreen();
         p2.checkSwordInNewScreen();
 
-        Point2D pointP1 = spawnPoints.get(this.worldState).get(p1.getPlayerNumber());
-        Point2D pointP2 = spawnPoints.get(this.worldState).get(p2.getPlayerNumber());
+        Point2D pointP1 = getCurrentSpawnPoint(p1.getPlayerNumber());
+        Point2D pointP2 = getCurrentSpawnPoint(p2.getPlayerNumber());
 
         p1.setDeadAndMapChanged(true);
         p2.setDeadAndMapChanged(true);
@@ -184,6 +142,14 @@ public class BackgroundObject extends GameObject {
 
         p1.setXY((int) pointP1.getX(), (int) pointP1.getY());
         p2.setXY((int) pointP2.getX(), (int) pointP2.getY());
+
+        event.commit();
+    }
+
+    // Never blocks, the slice is converted or already resident (see BackgroundSlices)
+    private void updateSubImage() {
+        if (slices != null)
+            slices.focus(worldState);
     }
 
     public int getWorldState() {
@@ -195,10 +161,52 @@ public class BackgroundObject extends GameObject {
      * @return Location where the given player should be spawning relative to the current map state
      */
     public Point2D getCurrentSpawnPoint(PlayerType type) {
-        return spawnPoints.get(worldState).get(type);
+        return new Point2D(level.getSpawnX(worldState, type), level.getSpawnY(worldState, type));
     }
 
     public DirectionType getCurrentEnabledRunningDirection() {
         return currentEnabledRunningDirection;
     }
-}
\ No newline at end of file
+
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    /**
+     * Players are not touched, they are restored separately
+     */
+    @Override
+    public void loadState(State state) {
+        if (worldState != state.worldState) {
+            worldState = state.worldState;
+            updateSubImage();
+        }
+        worldStateChanged = state.worldStateChanged;
+        currentEnabledRunningDirection = state.currentEnabledRunningDirection;
+    }
+
+    public static final class State {
+        private final int worldState;
+        private final boolean worldStateChanged;
+        private final DirectionType currentEnabledRunningDirection;
+
+        private State(BackgroundObject b) {
+            worldState = b.worldState;
+            worldStateChanged = b.worldStateChanged;
+            currentEnabledRunningDirection = b.currentEnabledRunningDirection;
+        }
+
+        public State(KeyframeReader in) {
+            worldState = in.readInt();
+            worldStateChanged = in.readBoolean();
+            currentEnabledRunningDirection = in.readEnum(DirectionType.values());
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeInt(worldState);
+            out.writeBoolean(worldStateChanged);
+            out.writeEnum(currentEnabledRunningDirection);
+        }
+    }
+}
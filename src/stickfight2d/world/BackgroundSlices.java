@@ -0,0 +1,186 @@
+package stickfight2d.world;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import stickfight2d.events.AssetLoadEvent;
+import stickfight2d.misc.Debugger;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background slices of a level, one per screen, converted to FX images on a worker thread. The slice of the current
+ * screen and its neighbours within the prefetch radius are kept resident, slices further away are evicted.
+ * Switching screens never converts on the game thread: until the new slice is ready there is no slice to show, the
+ * BackgroundObject draws a placeholder instead of the previous screen.
+ */
+public class BackgroundSlices {
+
+    // Shared by all matches, idle most of the time
+    private static ExecutorService loader;
+
+    // Decoded backgrounds and the slices of their start screens, see preload
+    private static final HashMap<String, BufferedImage> images = new HashMap<>();
+    private static final HashMap<String, Image> startSlices = new HashMap<>();
+
+    private final BufferedImage image;
+    private final String path;
+    private final int sliceWidth, sliceHeight;
+    private final int radius;
+    private final List<CompletableFuture<Image>> slices;     // [screen], null if not resident
+
+    private int currentScreen;
+
+    private long prefetches = 0;
+    private long evictions = 0;
+    private long pendingFrames = 0;     // Frames without a slice to show
+
+    /**
+     * Shows the slice of the start screen right away and prefetches its neighbours. The background is decoded here
+     * unless it was preloaded.
+     *
+     * @param radius neighbours on each side that are kept resident
+     */
+    public BackgroundSlices(Level level, int radius) throws IOException {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Prefetch radius of the BackgroundSlices must not be negative! radius=" + radius);
+        }
+        this.path = level.getBackgroundPath();
+        this.sliceWidth = level.getSliceWidth();
+        this.sliceHeight = level.getSliceHeight();
+        this.radius = radius;
+        this.slices = new ArrayList<>(Collections.nCopies(level.getScreens(), null));
+
+        preload(level);
+        Image startSlice;
+        synchronized (BackgroundSlices.class) {
+            this.image = images.get(path);
+            startSlice = startSlices.get(path);
+        }
+
+        int start = level.getStartScreen();
+        slices.set(start, CompletableFuture.completedFuture(startSlice));
+        focus(start);
+    }
+
+    /**
+     * Decodes the background of the level (the slice of screen s starts at s * slice width) and converts the slice of
+     * its start screen. Does nothing if that was done before, can be called from any thread (see StartupPipeline).
+     */
+    public static synchronized void preload(Level level) throws IOException {
+        String path = level.getBackgroundPath();
+        if (images.containsKey(path)) {
+            return;
+        }
+
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        BufferedImage image = ImageIO.read(new File(path));
+        event.commit("background", path, -1);
+        if (image == null) {
+            throw new IOException("Background " + path + " is not a readable image");
+        }
+        if (image.getWidth() < level.getScreens() * level.getSliceWidth() || image.getHeight() < level.getSliceHeight()) {
+            throw new IllegalArgumentException("Background " + path + " is too small for " + level.getScreens() + " slices of " + level.getSliceWidth() + "x" + level.getSliceHeight());
+        }
+
+        images.put(path, image);
+        startSlices.put(path, convert(image, path, level.getStartScreen(), level.getSliceWidth(), level.getSliceHeight()));
+    }
+
+    private static synchronized ExecutorService getLoader() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Background Loader");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return loader;
+    }
+
+    private Image convert(int screen) {
+        return convert(image, path, screen, sliceWidth, sliceHeight);
+    }
+
+    private static Image convert(BufferedImage image, String path, int screen, int sliceWidth, int sliceHeight) {
+        AssetLoadEvent event = new AssetLoadEvent();
+        event.begin();
+        Image slice = SwingFXUtils.toFXImage(image.getSubimage(screen * sliceWidth, 0, sliceWidth, sliceHeight), null);
+        event.commit("background slice", path, screen);
+        return slice;
+    }
+
+    /**
+     * Makes the screen current: requests its slice and the neighbours, evicts the rest. Does not wait for the worker.
+     */
+    public void focus(int screen) {
+        currentScreen = screen;
+
+        for (int s = 0; s < slices.size(); s++) {
+            boolean resident = Math.abs(s - screen) <= radius;
+
+            if (resident && slices.get(s) == null) {
+                int slice = s;
+                slices.set(s, CompletableFuture.supplyAsync(() -> convert(slice), getLoader()));
+                prefetches++;
+            } else if (!resident && slices.get(s) != null) {
+                slices.get(s).cancel(false);
+                slices.set(s, null);
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * @return true if the slice of the screen is converted and can be shown right away
+     */
+    public boolean isReady(int screen) {
+        CompletableFuture<Image> slice = slices.get(screen);
+        return slice != null && slice.isDone() && !slice.isCompletedExceptionally();
+    }
+
+    /**
+     * @return slice of the current screen, null while it is still being converted
+     */
+    public Image getCurrentSlice() {
+        CompletableFuture<Image> slice = slices.get(currentScreen);
+
+        if (slice.isDone() && !slice.isCompletedExceptionally()) {
+            return slice.join();
+        }
+
+        if (slice.isCompletedExceptionally()) {
+            Debugger.log("BackgroundSlices - Slice " + currentScreen + " could not be converted, retrying.");
+            slices.set(currentScreen, null);
+            focus(currentScreen);
+        }
+        pendingFrames++;
+        return null;
+    }
+
+    /**
+     * Getter Methods
+     */
+    public long getPrefetches() {
+        return prefetches;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getPendingFrames() {
+        return pendingFrames;
+    }
+}
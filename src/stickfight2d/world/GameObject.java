@@ -1,17 +1,22 @@
 package stickfight2d.world;
 
-import javafx.scene.canvas.GraphicsContext;
 import stickfight2d.enums.DirectionType;
+import stickfight2d.render.RenderFrame;
 
 public abstract class GameObject {
 
+    public static final int FIXED_ONE = 100;    // Velocities are fixed point numbers with two decimal places
+
     protected int x,y;
-    protected double vx, vy;
+    protected int previousX, previousY;     // Position before the last tick, drawing interpolates between both
+    protected int vx, vy;                   // Fixed point, FIXED_ONE is one pixel per time unit of the object
     protected DirectionType directionType;
 
     public GameObject(int x, int y, DirectionType directionType){
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
         this.vx = 0;
         this.vy = 0;
         this.directionType = directionType;
@@ -19,7 +24,25 @@ public abstract class GameObject {
 
     public abstract void update(long diffMillis);
 
-    public abstract void draw(GraphicsContext gc);
+    // Records what has to be drawn, called on the game thread (see RenderFrame)
+    public abstract void draw(RenderFrame frame);
+
+    /**
+     * Integer replacement of position += velocity * millis / unitMillis with a double velocity: exact and truncated
+     * towards zero like the int cast, so the result is the same on every JVM
+     *
+     * @param velocity fixed point pixels per unitMillis
+     */
+    protected static int move(int position, long velocity, long millis, int unitMillis) {
+        long scale = (long) FIXED_ONE * unitMillis;
+        return (int) ((position * scale + velocity * millis) / scale);
+    }
+
+    // Called by the Simulation before every tick
+    public void storePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
 
     public int getX() {
         return x;
@@ -45,19 +68,20 @@ public abstract class GameObject {
         this.directionType = directionType;
     }
 
-    public double getVx() {
+    // Velocities are fixed point, see FIXED_ONE
+    public int getVx() {
         return vx;
     }
 
-    public void setVx(double vx) {
+    public void setVx(int vx) {
         this.vx = vx;
     }
 
-    public double getVy() {
+    public int getVy() {
         return vy;
     }
 
-    public void setVy(double vy) {
+    public void setVy(int vy) {
         this.vy = vy;
     }
 }
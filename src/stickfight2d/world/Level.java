@@ -0,0 +1,245 @@
+package stickfight2d.world;
+
+import javafx.scene.paint.Color;
+import stickfight2d.enums.PlayerType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Level loaded from a text file (see src/levels/default.level for the format): screens, spawn points, background
+ * slices and obstacles with their collision rules. The obstacles are compiled into parallel primitive arrays, the
+ * CollisionController indexes them once per match (see ObstacleIndex).
+ * Levels are immutable, every file is parsed once and shared by all matches.
+ */
+public class Level {
+
+    // Obstacle rules that are not bound to one screen (RectangleObstacle.mapState)
+    public static final int BOUNDARY_LEFT = -1;     // Player 2 passes while he may run to the left
+    public static final int BOUNDARY_RIGHT = -2;    // Player 1 passes while he may run to the right
+    public static final int CAVE_LEFT = -3;         // Blocks the cave of the first screen for player 1
+    public static final int CAVE_RIGHT = -4;        // Blocks the cave of the last screen for player 2
+
+    private static final HashMap<String, Level> loadedLevels = new HashMap<>();
+
+    private final String path;
+    private int screens = -1;
+    private int startScreen = -1;
+
+    private String backgroundPath;
+    private int sliceWidth, sliceHeight;
+
+    private int[] spawnX, spawnY;       // [screen * 2 + player]
+
+    private int obstacleCount = 0;
+    private int[] obstacleX = new int[64], obstacleY = new int[64], obstacleWidth = new int[64], obstacleHeight = new int[64];
+    private int[] obstacleRule = new int[64];
+    private Color[] obstacleColor = new Color[64];
+    private int[] groundObstacle;       // [screen] -> obstacle index
+
+    private Level(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return the parsed level, files are only read on the first call
+     * @throws IllegalArgumentException if the file is not a valid level
+     */
+    public static synchronized Level load(String path) {
+        Level level = loadedLevels.get(path);
+        if (level == null) {
+            try {
+                level = parse(path, Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Level " + path + " could not be read", e);
+            }
+            loadedLevels.put(path, level);
+        }
+        return level;
+    }
+
+    private static Level parse(String path, List<String> lines) {
+        Level level = new Level(path);
+
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].isEmpty()) {
+                continue;
+            }
+
+            try {
+                switch (tokens[0]) {
+                    case "screens" -> {
+                        level.screens = positive(tokens[1]);
+                        level.spawnX = new int[level.screens * 2];
+                        level.spawnY = new int[level.screens * 2];
+                        level.groundObstacle = new int[level.screens];
+                        Arrays.fill(level.groundObstacle, -1);
+                    }
+                    case "start" -> level.startScreen = level.screen(tokens[1]);
+                    case "background" -> {
+                        level.backgroundPath = tokens[1];
+                        level.sliceWidth = positive(tokens[2]);
+                        level.sliceHeight = positive(tokens[3]);
+                    }
+                    case "spawn" -> {
+                        int screen = level.screen(tokens[1]);
+                        level.spawnX[screen * 2] = Integer.parseInt(tokens[2]);
+                        level.spawnY[screen * 2] = Integer.parseInt(tokens[3]);
+                        level.spawnX[screen * 2 + 1] = Integer.parseInt(tokens[4]);
+                        level.spawnY[screen * 2 + 1] = Integer.parseInt(tokens[5]);
+                    }
+                    case "obstacle" -> level.addObstacle(tokens);
+                    default -> throw new IllegalArgumentException("unknown keyword " + tokens[0]);
+                }
+            } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+                String reason = (e instanceof ArrayIndexOutOfBoundsException) ? "missing value" : e.getMessage();
+                throw new IllegalArgumentException("Level " + path + ", line " + lineNumber + ": " + reason, e);
+            }
+        }
+
+        if (level.screens < 0 || level.startScreen < 0 || level.backgroundPath == null) {
+            throw new IllegalArgumentException("Level " + path + " needs screens, start and background!");
+        }
+        for (int screen = 0; screen < level.screens; screen++) {
+            if (level.groundObstacle[screen] < 0) {
+                throw new IllegalArgumentException("Level " + path + ": screen " + screen + " has no ground obstacle!");
+            }
+        }
+        return level;
+    }
+
+    private void addObstacle(String[] tokens) {
+        if (screens < 0) {
+            throw new IllegalArgumentException("screens has to be set before the first obstacle");
+        }
+        if (obstacleCount == obstacleX.length) {
+            int capacity = obstacleCount * 2;
+            obstacleX = Arrays.copyOf(obstacleX, capacity);
+            obstacleY = Arrays.copyOf(obstacleY, capacity);
+            obstacleWidth = Arrays.copyOf(obstacleWidth, capacity);
+            obstacleHeight = Arrays.copyOf(obstacleHeight, capacity);
+            obstacleRule = Arrays.copyOf(obstacleRule, capacity);
+            obstacleColor = Arrays.copyOf(obstacleColor, capacity);
+        }
+
+        int i = obstacleCount;
+        obstacleX[i] = Integer.parseInt(tokens[1]);
+        obstacleY[i] = Integer.parseInt(tokens[2]);
+        obstacleWidth[i] = positive(tokens[3]);
+        obstacleHeight[i] = positive(tokens[4]);
+        obstacleColor[i] = Color.web(tokens[5]);
+        obstacleRule[i] = switch (tokens[6]) {
+            case "boundary-left" -> BOUNDARY_LEFT;
+            case "boundary-right" -> BOUNDARY_RIGHT;
+            case "cave-left" -> CAVE_LEFT;
+            case "cave-right" -> CAVE_RIGHT;
+            default -> screen(tokens[6]);
+        };
+
+        if (tokens.length > 7) {
+            if (!tokens[7].equals("ground") || obstacleRule[i] < 0) {
+                throw new IllegalArgumentException("only obstacles of one screen can be marked as ground");
+            }
+            groundObstacle[obstacleRule[i]] = i;
+        }
+        obstacleCount++;
+    }
+
+    private int screen(String token) {
+        int screen = Integer.parseInt(token);
+        if (screen < 0 || screen >= screens) {
+            throw new IllegalArgumentException("screen " + screen + " does not exist");
+        }
+        return screen;
+    }
+
+    private static int positive(String token) {
+        int value = Integer.parseInt(token);
+        if (value <= 0) {
+            throw new IllegalArgumentException(value + " has to be positive");
+        }
+        return value;
+    }
+
+    /**
+     * @return new obstacle objects in file order, indices match the obstacle getters
+     */
+    public RectangleObstacle[] createObstacles() {
+        RectangleObstacle[] obstacles = new RectangleObstacle[obstacleCount];
+        for (int i = 0; i < obstacleCount; i++) {
+            obstacles[i] = new RectangleObstacle(obstacleX[i], obstacleY[i], obstacleWidth[i], obstacleHeight[i], obstacleColor[i], obstacleRule[i]);
+        }
+        return obstacles;
+    }
+
+    /**
+     * Getter Methods
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public int getScreens() {
+        return screens;
+    }
+
+    public int getLastScreen() {
+        return screens - 1;
+    }
+
+    public int getStartScreen() {
+        return startScreen;
+    }
+
+    public String getBackgroundPath() {
+        return backgroundPath;
+    }
+
+    public int getSliceWidth() {
+        return sliceWidth;
+    }
+
+    public int getSliceHeight() {
+        return sliceHeight;
+    }
+
+    public int getSpawnX(int screen, PlayerType playerType) {
+        return spawnX[screen * 2 + playerType.ordinal()];
+    }
+
+    public int getSpawnY(int screen, PlayerType playerType) {
+        return spawnY[screen * 2 + playerType.ordinal()];
+    }
+
+    public int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    public int getObstacleX(int i) {
+        return obstacleX[i];
+    }
+
+    public int getObstacleWidth(int i) {
+        return obstacleWidth[i];
+    }
+
+    public int getObstacleRule(int i) {
+        return obstacleRule[i];
+    }
+
+    public int getGroundObstacle(int screen) {
+        return groundObstacle[screen];
+    }
+}
@@ -0,0 +1,225 @@
+package stickfight2d.world;
+
+import javafx.scene.paint.Color;
+import stickfight2d.enums.ParticleType;
+import stickfight2d.misc.Config;
+import stickfight2d.render.RenderFrame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Particles of one emitter as parallel primitive arrays with a fixed capacity (structure of arrays).
+ * The live particles are always packed into [0, size), dead particles are replaced by the last one (swap remove),
+ * so neither emitting nor removing allocates.
+ */
+public class ParticleBuffer {
+
+    private ParticleType particleType;
+    private final int capacity;
+    private int size = 0;
+
+    private final int[] x, y;
+    private final int[] previousX, previousY;      // Before the last update, drawing interpolates between both
+    private final double[] vx, vy;
+    private final int[] lifetime;
+    private final int[] lifetimeRemaining;
+    private final boolean[] onGround;
+
+    public ParticleBuffer(ParticleType particleType, int capacity) {
+        this.particleType = particleType;
+        this.capacity = capacity;
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.previousX = new int[capacity];
+        this.previousY = new int[capacity];
+        this.vx = new double[capacity];
+        this.vy = new double[capacity];
+        this.lifetime = new int[capacity];
+        this.lifetimeRemaining = new int[capacity];
+        this.onGround = new boolean[capacity];
+    }
+
+    // Empties the buffer for the next emitter, see ParticlePool
+    public void reset(ParticleType particleType) {
+        this.particleType = particleType;
+        this.size = 0;
+    }
+
+    /**
+     * @return false if the buffer is full and the particle was dropped
+     */
+    public boolean add(int x, int y, double vx, double vy, int lifetime) {
+        if (size == capacity) {
+            return false;
+        }
+        this.x[size] = x;
+        this.y[size] = y;
+        this.previousX[size] = x;
+        this.previousY[size] = y;
+        this.vx[size] = vx;
+        this.vy[size] = vy;
+        this.lifetime[size] = lifetime;
+        this.lifetimeRemaining[size] = lifetime;
+        this.onGround[size] = false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves all particles and removes the ones that died or fell out of the screen.
+     * Large buffers are integrated in parallel, the result is the same as on a single thread: every particle only
+     * depends on itself and dead particles are removed afterwards in index order.
+     */
+    public void update(long diffMillis, RectangleObstacle ground) {
+        ForkJoinPool pool = getPool();
+
+        if (pool != null && size >= Config.particle_parallel_threshold) {
+            int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 4));
+            pool.invoke(new IntegrationTask(this, 0, size, chunk, diffMillis, ground));
+        } else {
+            integrate(0, size, diffMillis, ground);
+        }
+
+        // Swap remove, the particle moved to i is checked next
+        int i = 0;
+        while (i < size) {
+            if (lifetimeRemaining[i] < 0 || y[i] > Config.SCREEN_HEIGHT) {
+                remove(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    // Particles [from, to), only writes to these indices
+    private void integrate(int from, int to, long diffMillis, RectangleObstacle ground) {
+        int groundLeft = ground.getX();
+        int groundRight = ground.getX() + ground.getWidth();
+        int groundTop = ground.getY();
+        int groundBottom = ground.getY() + ground.getHeight();
+
+        for (int i = from; i < to; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            lifetimeRemaining[i] -= diffMillis;
+
+            if (lifetimeRemaining[i] < 0) {     // Dead, removed afterwards
+                continue;
+            }
+
+            // Gravity after hitting the ground
+            if (onGround[i]) {
+                vy[i] = vy[i] * 0.999;
+                vx[i] = vx[i] * 0.999;
+            }
+
+            // Gravity while hitting the ground
+            else if (x[i] <= groundRight && x[i] >= groundLeft && y[i] <= groundBottom && y[i] >= groundTop) {
+                onGround[i] = true;
+            }
+
+            // Gravity above the ground
+            else if (particleType == ParticleType.SWORD_FIRE) {
+                vy[i] *= 0.8;   // no gravity
+                vx[i] *= 0.9;
+            } else {
+                vy[i] -= (diffMillis / 9.81);
+            }
+
+            y[i] -= vy[i] * diffMillis / 100.0;
+            x[i] += vx[i] * diffMillis / 100.0;
+        }
+    }
+
+    // Splits the integration into ranges of at most chunk particles, never serialized (the buffer is not Serializable)
+    @SuppressWarnings("serial")
+    private static class IntegrationTask extends RecursiveAction {
+
+        private final ParticleBuffer buffer;
+        private final int from, to, chunk;
+        private final long diffMillis;
+        private final RectangleObstacle ground;
+
+        IntegrationTask(ParticleBuffer buffer, int from, int to, int chunk, long diffMillis, RectangleObstacle ground) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.diffMillis = diffMillis;
+            this.ground = ground;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                buffer.integrate(from, to, diffMillis, ground);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new IntegrationTask(buffer, from, middle, chunk, diffMillis, ground),
+                    new IntegrationTask(buffer, middle, to, chunk, diffMillis, ground));
+        }
+    }
+
+    // --- Thread pool shared by all particle buffers
+
+    private static final int MIN_CHUNK = 4096;
+    private static ForkJoinPool pool;
+    private static boolean poolCreated = false;
+
+    /**
+     * @return null if the particles are integrated on the calling thread only
+     */
+    private static synchronized ForkJoinPool getPool() {
+        if (!poolCreated) {
+            poolCreated = true;
+            pool = (Config.particle_threads > 1) ? new ForkJoinPool(Config.particle_threads) : null;
+        }
+        return pool;
+    }
+
+    /**
+     * Changes the number of threads used for large buffers, 1 integrates on the calling thread only
+     */
+    public static synchronized void setParallelism(int threads) {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        Config.particle_threads = threads;
+        poolCreated = false;
+    }
+
+    // Fading by the remaining lifetime, the color itself is resolved once per ParticleType
+    public void draw(RenderFrame frame, Color color, int particleSize) {
+        frame.beginOvals(color, particleSize);
+        for (int i = 0; i < size; i++) {
+            frame.addOval(frame.interpolate(previousX[i], x[i]), frame.interpolate(previousY[i], y[i]), lifetimeRemaining[i] / (float) lifetime[i]);
+        }
+    }
+
+    private void remove(int i) {
+        int last = --size;
+        x[i] = x[last];
+        y[i] = y[last];
+        previousX[i] = previousX[last];
+        previousY[i] = previousY[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        lifetime[i] = lifetime[last];
+        lifetimeRemaining[i] = lifetimeRemaining[last];
+        onGround[i] = onGround[last];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
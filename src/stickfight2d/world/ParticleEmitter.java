@@ -1,19 +1,15 @@
 package stickfight2d.world;
 
-import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
-import stickfight2d.GameLoop;
-import stickfight2d.Main;
-import stickfight2d.controllers.CameraController;
-import stickfight2d.enums.DirectionType;
+import stickfight2d.MatchContext;
 import stickfight2d.enums.ParticleType;
 import stickfight2d.interfaces.ParticleOwner;
-
-import java.util.*;
-import java.lang.Math;
+import stickfight2d.misc.MatchRandom;
+import stickfight2d.render.RenderFrame;
 
 public class ParticleEmitter extends GameObject {
 
+    private static final int PARTICLE_LIFETIME = 1000;
+
     private final GameObject gameObject;
     private final ParticleType particleType;
 
@@ -23,12 +19,20 @@ public class ParticleEmitter extends GameObject {
     private double angle;
     private int angleRandomness;
     private boolean mirrored = true;
-    private final List<ParticleObject> particles;
+    private final int capacity;
+    private final ParticlePool pool;
+    private ParticleBuffer particles;           // Taken from the pool on the first update, returned when the emitter is finished
+    private boolean finished = false;
+    private final MatchRandom rng = MatchContext.current().getEffectsRandom();     // Seeded, but apart from the game logic
     private int totalTime;
-    private String color;
     private int size;
 
-    public ParticleEmitter(ParticleType particleType, GameObject gameObject, int x, int y, int amount, int decayTime, int speed, int speedRandomness, int angle, int angleRandomness, String color, int size) {
+    /**
+     * Allocates nothing, emitters dropped by the world (headless, re-simulated ticks) never take a buffer
+     *
+     * @param amount particles spawned over decayTime, also the capacity of the emitter
+     */
+    public ParticleEmitter(ParticleType particleType, GameObject gameObject, int x, int y, int amount, int decayTime, int speed, int speedRandomness, int angle, int angleRandomness, int size) {
         super(x, y, null);
         this.gameObject = gameObject;
         this.totalTime = decayTime;
@@ -37,15 +41,25 @@ public class ParticleEmitter extends GameObject {
         this.speedRandomness = speedRandomness;
         this.angle = angle;
         this.angleRandomness = angleRandomness;
-        this.color = color;
         this.size = size;
         this.particleType = particleType;
-        this.particles = new ArrayList<>();
+        this.capacity = amount;
+        this.pool = MatchContext.current().getParticlePool();
+    }
+
+    private ParticleBuffer particles() {
+        if (particles == null) {
+            particles = pool.acquire(particleType, capacity);
+        }
+        return particles;
     }
 
 
     @Override
     public void update(long diffMillis) {
+        if (finished)
+            return;
+
         // Spawning particles until the amount and totalTime is 0
         if (amount > 0 && totalTime > 0) {
             int count = (int) (amount * diffMillis) / totalTime;
@@ -54,58 +68,72 @@ public class ParticleEmitter extends GameObject {
             totalTime -= diffMillis;
         }
 
-        // Check to remove dead particles
+        // Move particles and remove dead ones
+        ParticleBuffer particles = particles();
         if (particles.size() > 0) {
-            ListIterator<ParticleObject> itr = particles.listIterator();
-
-            while (itr.hasNext()) {
-
-                ParticleObject p = itr.next();
-                p.update(diffMillis);
-
-                if (p.y > Main.canvas.getHeight() || !p.alive) {
-                    itr.remove();
-                }
-
-            }
+            particles.update(diffMillis, MatchContext.current().getWorld().getGround());
         }else{  // Remove Particle Emitter from GameObjects when finished
-            GameLoop.currentLevel.removeGameObject(this);
+            finish();
+            return;
         }
 
         // Instantly clear all the particles if map state changes
         if(gameObject != null){
             if(ParticleOwner.class.isAssignableFrom(gameObject.getClass())){
                 if(((ParticleOwner) gameObject).isClearCondition()){
-                    this.particles.clear();
-                    GameLoop.currentLevel.removeGameObject(this);
+                    finish();
                 }
             }
         }
 
     }
 
-    @Override
-    public void draw(GraphicsContext gc) {
-        for (ParticleObject particle: particles) {
-            particle.draw(gc);
+    // Removes the emitter from the world and returns its buffer
+    private void finish() {
+        finished = true;
+        if (particles != null) {
+            pool.release(particles);
+            particles = null;
         }
+        MatchContext.current().getWorld().removeGameObject(this);
     }
 
-    public void emit(long diffMillis, int count) {
-        Random rng = new Random();
-
+    @Override
+    public void draw(RenderFrame frame) {
+        if (particles != null)
+            particles.draw(frame, particleType.getColor(), size);
+    }
 
+    /**
+     * Particles beyond the capacity (amount) of the emitter are dropped
+     */
+    public void emit(long diffMillis, int count) {
+        ParticleBuffer particles = particles();
         for (int i = 0; i < count; i++) {
             //TODO BUG: No continuous degree possible
             //TODO BUG: Particles left from emitter behave slightly differently than right from it
 
             double rngAngle = randomAngleInvert(angle + rng.nextInt(angleRandomness) - angleRandomness / 2.0);//randomAngleInvert
             double rngSpeed = (speed + continuousRng((totalTime + (count-i)*diffMillis/(double)count)/150.0) * speedRandomness - speedRandomness/2.0); //(continuousRng((totalTime)/100.0)*speedRandomness)
-            particles.add(new ParticleObject(particleType, x, y, Math.cos(Math.toRadians(rngAngle)) * rngSpeed, Math.sin(Math.toRadians(rngAngle)) * rngSpeed, 1000,color,size));
-
+            if (!particles.add(x, y, Math.cos(Math.toRadians(rngAngle)) * rngSpeed, Math.sin(Math.toRadians(rngAngle)) * rngSpeed, PARTICLE_LIFETIME)) {
+                break;
+            }
         }
     }
 
+    public int getParticleCount() {
+        return (particles == null) ? 0 : particles.size();
+    }
+
+    public ParticleType getParticleType() {
+        return particleType;
+    }
+
+    // Particles that are still to be spawned, all of them for a new emitter
+    public int getAmount() {
+        return amount;
+    }
+
 
     private double continuousRng(double x) {
         //https://www.geogebra.org/graphing/yzgxvd8q adjusted so it gives continuous pseudo random numbers between 0 and 1
@@ -113,7 +141,6 @@ public class ParticleEmitter extends GameObject {
     }
 
     private double randomAngleInvert(double angle) {
-        Random rng = new Random();
         if (mirrored && rng.nextBoolean()) {
             return (Math.PI - angle) % (2 * Math.PI);
         } else {
@@ -121,4 +148,3 @@ public class ParticleEmitter extends GameObject {
         }
     }
 }
-
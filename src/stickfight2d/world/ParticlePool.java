@@ -0,0 +1,51 @@
+package stickfight2d.world;
+
+import stickfight2d.enums.ParticleType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Particle buffers of finished emitters of one match, reused by the next emitters (see MatchContext).
+ * Capacities are powers of two, an emitter gets the smallest buffer its amount fits into.
+ * Only used by the thread stepping the match.
+ */
+public class ParticlePool {
+
+    private static final int MAX_FREE_PER_CAPACITY = 8;     // Bounds the memory kept after a large burst
+
+    private final ArrayList<ArrayDeque<ParticleBuffer>> free = new ArrayList<>();      // Index is log2 of the capacity
+
+    public ParticlePool() {
+        for (int i = 0; i < Integer.SIZE; i++) {
+            free.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * @return empty buffer for at least the given number of particles
+     */
+    public ParticleBuffer acquire(ParticleType particleType, int particles) {
+        int sizeClass = sizeClass(particles);
+        ParticleBuffer buffer = free.get(sizeClass).poll();
+        if (buffer == null) {
+            buffer = new ParticleBuffer(particleType, 1 << sizeClass);
+        }
+        buffer.reset(particleType);
+        return buffer;
+    }
+
+    /**
+     * Takes the buffer back, it must not be used by the emitter afterwards
+     */
+    public void release(ParticleBuffer buffer) {
+        ArrayDeque<ParticleBuffer> sameCapacity = free.get(sizeClass(buffer.getCapacity()));
+        if (sameCapacity.size() < MAX_FREE_PER_CAPACITY) {
+            sameCapacity.push(buffer);
+        }
+    }
+
+    private static int sizeClass(int particles) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(1, particles) - 1);
+    }
+}
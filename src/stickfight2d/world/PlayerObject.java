@@ -1,30 +1,32 @@
 package stickfight2d.world;
 
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import stickfight2d.GameLoop;
+import stickfight2d.MatchContext;
 import stickfight2d.animation.Animation;
 import stickfight2d.animation.FrameData;
 import stickfight2d.controllers.*;
 import stickfight2d.enums.*;
 import stickfight2d.interfaces.InputSystem;
 import stickfight2d.interfaces.ParticleOwner;
+import stickfight2d.interfaces.Snapshotable;
 import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
 import stickfight2d.misc.KeySet;
+import stickfight2d.misc.MatchRandom;
+import stickfight2d.render.RenderFrame;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static stickfight2d.enums.AnimationType.*;
 import static stickfight2d.misc.Config.*;
 
-public class PlayerObject extends MoveableObject implements InputSystem, ParticleOwner {
+public class PlayerObject extends MoveableObject implements InputSystem, ParticleOwner, Snapshotable<PlayerObject.State> {
 
     private final KeyController keyCon = KeyController.getInstance();
     private final AnimationFactory animCon = AnimationFactory.getInstance();
@@ -62,7 +64,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
         this.keySet = keySet;
         this.playerNumber = playerNumber;
         this.swordObject = new SwordObject(this.x, this.y, directionType, this);
-        GameLoop.currentLevel.addSword(swordObject);
+        MatchContext.current().getWorld().addSword(swordObject);
 
         Arrays.fill(spread_blood, Boolean.FALSE);
         this.onGround = true;
@@ -79,7 +81,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
         canAccelerate = true;
         animation = animCon.getAnimation(PLAYER_IDLE_MEDIUM);
         swordObject = new SwordObject(this.x, this.y, directionType, this);
-        GameLoop.currentLevel.addSword(swordObject);
+        MatchContext.current().getWorld().addSword(swordObject);
     }
 
 
@@ -93,10 +95,10 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
         animation.update(diffMillis);
 
         if (!(vy > 0 && CollisionController.getInstance().getPlayerHeadBump(this.playerNumber)))
-            y -= vy * diffMillis / 100;
+            y = move(y, -vy, diffMillis, 100);
 
         if (!onGround || jumps.contains(this.getAnimation().getAnimationType())) {
-            vy -= (2 * (double) diffMillis) / 10;    //gravity
+            vy -= 2 * FIXED_ONE * diffMillis / 10;    //gravity
         } else {
             vy = 0;
             y = currentObstacleStanding.getY() - playerOffset;
@@ -114,22 +116,20 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
 
 
     @Override
-    public void draw(GraphicsContext gc) {
+    public void draw(RenderFrame frame) {
         if(deadAndMapChanged)
             return;
 
-        Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(x, y);
-        switch (directionType) {
-            case LEFT -> FrameData.drawHorizontallyFlipped(gc, animation.getCurrentSprite(), (int) drawPoint.getX(), (int) drawPoint.getY());
-            case RIGHT -> gc.drawImage(animation.getCurrentSprite(), drawPoint.getX(), drawPoint.getY());
-        }
+        double drawX = frame.interpolate(previousX, x);
+        double drawY = frame.interpolate(previousY, y);
+        frame.drawSprite(animation.getCurrentFrame(), drawX, drawY, directionType == DirectionType.LEFT);
 
-        markPlayer(gc, drawPoint.getX(), drawPoint.getY());
+        markPlayer(frame, drawX, drawY);
 
         if (debug_mode) {
-            this.showHitBoxState(gc, 1);
-            this.showHitBoxState(gc, 2);
-            this.showHitBoxState(gc, 3);
+            this.showHitBoxState(frame, 1);
+            this.showHitBoxState(frame, 2);
+            this.showHitBoxState(frame, 3);
         }
     }
 
@@ -155,7 +155,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
     public void checkSwordInNewScreen() {
         if (alive && swordObject == null) {
             swordObject = new SwordObject(this.x, this.y, DirectionType.RIGHT, this);
-            GameLoop.currentLevel.addSword(swordObject);
+            MatchContext.current().getWorld().addSword(swordObject);
         }
     }
 
@@ -165,12 +165,10 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
             if (animation.getAnimationType() != PLAYER_WIN) {
                 keyCon.setKeyPressBlockedP1(true);
                 keyCon.setKeyPressBlockedP2(true);
-                GameLoop.currentLevel.removeGameObject(swordObject);
+                MatchContext.current().getWorld().removeGameObject(swordObject);
                 this.swordObject = null;
                 animation = animCon.getAnimation(PLAYER_WIN);
-                GameLoop.currentMusic.stop();
-                GameLoop.currentMusic = SoundController.getInstance().getMusic(SoundType.MUSIC_GAME_WON);
-                GameLoop.currentMusic.play(true, Config.volume);
+                soundCon.switchMusic(SoundType.MUSIC_GAME_WON, true);
             }
         }
     }
@@ -204,17 +202,18 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
             animation = animCon.getAnimation(PLAYER_DYING);
 
             // Playing one random sound of two available when player dies by hit
+            MatchRandom random = MatchContext.current().getRandom();
             if (colCon.getOtherPlayer(this.playerNumber).animation.getAnimationType() != PLAYER_STAB_NO_SWORD) {
-                if (new Random().nextBoolean()) {
-                    soundCon.getSound(SoundType.SOUND_HIT_BODY_1).play(sfx_volume);
+                if (random.nextBoolean()) {
+                    soundCon.playSound(SoundType.SOUND_HIT_BODY_1);
                 } else {
-                    //soundCon.getSound(SoundType.SOUND_HIT_BODY_2).play(sfx_volume);
+                    //soundCon.playSound(SoundType.SOUND_HIT_BODY_2);
                 }
             }else{
-                if (new Random().nextBoolean()) {
-                    soundCon.getSound(SoundType.SOUND_HIT_BODY_FIST_VOCAL_1).play(sfx_volume);
+                if (random.nextBoolean()) {
+                    soundCon.playSound(SoundType.SOUND_HIT_BODY_FIST_VOCAL_1);
                 } else {
-                    soundCon.getSound(SoundType.SOUND_HIT_BODY_FIST_VOCAL_2).play(sfx_volume);
+                    soundCon.playSound(SoundType.SOUND_HIT_BODY_FIST_VOCAL_2);
                 }
             }
 
@@ -222,13 +221,12 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
             if (!colCon.getPlayerHitsWallRight(this.playerNumber) && !colCon.getPlayerHitsWallLeft(this.playerNumber)) {
 
                 // Sound Effect
-                soundCon.getSound(SoundType.SOUND_SWORD_HIT_SWORD).play(sfx_volume);
+                soundCon.playSound(SoundType.SOUND_SWORD_HIT_SWORD);
 
                 // Particles
-                Point2D collisionPoint = colCon.getSwordCollisionPoint();
-                int x_ = (int) collisionPoint.getX();
-                int y_ = (int) collisionPoint.getY();
-                GameLoop.currentLevel.addGameObject(new ParticleEmitter(ParticleType.SWORD_COLLISION,this, x_, y_, 50, 100, 2, 10, 180, 60, "0xd4af37", 2));
+                int x_ = colCon.getSwordCollisionX();
+                int y_ = colCon.getSwordCollisionY();
+                MatchContext.current().getWorld().addGameObject(new ParticleEmitter(ParticleType.SWORD_COLLISION,this, x_, y_, 50, 100, 2, 10, 180, 60, 2));
 
                 // Knock back
                 switch (directionType) {
@@ -271,15 +269,14 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                     }
                     // HIT but not disarmed
                 }else{
-                    soundCon.getSound(SoundType.SOUND_SWORD_HIT_SWORD).play(sfx_volume);
+                    soundCon.playSound(SoundType.SOUND_SWORD_HIT_SWORD);
                 }
 
                 // Particles for sword collision
                 if(swordCollisionParticles){
-                    Point2D collisionPoint = colCon.getSwordCollisionPoint();
-                    int x_ = (int) collisionPoint.getX();
-                    int y_ = (int) collisionPoint.getY();
-                    GameLoop.currentLevel.addGameObject(new ParticleEmitter(ParticleType.SWORD_COLLISION,this, x_, y_, 50, 100, 2, 10, 180, 60, "0xd4af37", 2));
+                    int x_ = colCon.getSwordCollisionX();
+                    int y_ = colCon.getSwordCollisionY();
+                    MatchContext.current().getWorld().addGameObject(new ParticleEmitter(ParticleType.SWORD_COLLISION,this, x_, y_, 50, 100, 2, 10, 180, 60, 2));
                 }
 
                 // Knock back while swords hitting
@@ -319,8 +316,8 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                 int yOffset = (int) bloodPoints[i].getY();
 
                 switch (directionType) {
-                    case LEFT -> GameLoop.currentLevel.addGameObject(new ParticleEmitter(ParticleType.BLOOD,this, x, y + yOffset,30, 300, 2, 10, 180, 60, "0xFF0000", 4));
-                    case RIGHT -> GameLoop.currentLevel.addGameObject(new ParticleEmitter(ParticleType.BLOOD,this, x + xOffset, y + yOffset, 30, 300, 2, 10, 180, 60, "0xFF0000", 4));
+                    case LEFT -> MatchContext.current().getWorld().addGameObject(new ParticleEmitter(ParticleType.BLOOD,this, x, y + yOffset,30, 300, 2, 10, 180, 60, 4));
+                    case RIGHT -> MatchContext.current().getWorld().addGameObject(new ParticleEmitter(ParticleType.BLOOD,this, x + xOffset, y + yOffset, 30, 300, 2, 10, 180, 60, 4));
                 }
                 spread_blood[i] = true;
             }
@@ -330,7 +327,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
             time_passed += diffMillis;
 
             if (time_passed > T_RESPAWN) {
-                GameLoop.currentLevel.respawnPlayer(this);
+                MatchContext.current().getWorld().respawnPlayer(this);
                 resetBloodArray();
             }
         }
@@ -344,17 +341,17 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                     animation = animCon.getStabAnim(lastIdleAnimationType);
                     /*
                     if (new Random().nextBoolean()) {
-                        soundCon.getSound(SoundType.SOUND_SWORD_SWING_FAST_1).play(sfx_volume);
+                        soundCon.playSound(SoundType.SOUND_SWORD_SWING_FAST_1);
                     } else {
-                        soundCon.getSound(SoundType.SOUND_SWORD_SWING_FAST_2).play(sfx_volume);
+                        soundCon.playSound(SoundType.SOUND_SWORD_SWING_FAST_2);
                     }
                     */
-                    soundCon.getSound(SoundType.SOUND_SWORD_SWING_FAST_1).play(sfx_volume);
+                    soundCon.playSound(SoundType.SOUND_SWORD_SWING_FAST_1);
                 }
                 case PLAYER_IDLE_NO_SWORD -> {
                     animation = animCon.getAnimation(PLAYER_STAB_NO_SWORD);
                     // TODO: Add box sound without vocal --> TEMPORARY
-                    soundCon.getSound(SoundType.SOUND_SWORD_SWING_FAST_2).play(sfx_volume);
+                    soundCon.playSound(SoundType.SOUND_SWORD_SWING_FAST_2);
                 }
 
                 case PLAYER_WALK -> {
@@ -501,7 +498,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                     animation = animCon.getAnimation(PLAYER_CROUCH);
                 }
                 if (swordObject == null) {
-                    GameLoop.currentLevel.takeSwordFromGround(this);
+                    MatchContext.current().getWorld().takeSwordFromGround(this);
                 }
             }
         }
@@ -537,28 +534,28 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
             if (onGround) {
                 animation = animCon.getAnimation(PLAYER_JUMP_START);
                 lastJumpAnimationType = PLAYER_JUMP_START;
-                vy = JUMP_VY;
+                vy = JUMP_VY * FIXED_ONE;
                 canAccelerate = true;
             } else {
-                if (vy >= 1.5*JUMP_VY) {
+                if (vy >= 3 * JUMP_VY * FIXED_ONE / 2) {
                     canAccelerate = false;
                 }
                 if (canAccelerate) {
-                    vy += ((3 * (double) diffMillis) / 10);
+                    vy += 3 * FIXED_ONE * diffMillis / 10;
                 }
             }
         } else {
             canAccelerate = false;
         }
-        if (animation.getAnimationType() == PLAYER_JUMP_START && vy >= JUMP_VY) {
+        if (animation.getAnimationType() == PLAYER_JUMP_START && vy >= JUMP_VY * FIXED_ONE) {
             animation = animCon.getAnimation(PLAYER_JUMP_PEAK);
             lastJumpAnimationType = PLAYER_JUMP_PEAK;
         }
-        if (animation.getAnimationType() == PLAYER_JUMP_PEAK && vy <= -0.75*JUMP_VY) {
+        if (animation.getAnimationType() == PLAYER_JUMP_PEAK && vy <= -3 * JUMP_VY * FIXED_ONE / 4) {
             animation = animCon.getAnimation(PLAYER_JUMP_END);
             lastJumpAnimationType = PLAYER_JUMP_END;
         }
-        if (animation.getAnimationType() == PLAYER_JUMP_END && vy <= 1 && vy >= -1) {
+        if (animation.getAnimationType() == PLAYER_JUMP_END && vy <= FIXED_ONE && vy >= -FIXED_ONE) {
             if (swordObject == null) {
                 animation = animCon.getAnimation(PLAYER_IDLE_NO_SWORD);
             } else {
@@ -588,9 +585,9 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                 dropkick = true;
                 animation = animCon.getAnimation(PLAYER_DROPKICK);
                 if (directionType == DirectionType.RIGHT) {
-                    vx = DROPKICK_VX;
+                    vx = DROPKICK_VX * FIXED_ONE;
                 } else {
-                    vx = -DROPKICK_VX;
+                    vx = -DROPKICK_VX * FIXED_ONE;
                 }
             }
         }
@@ -601,9 +598,9 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                 dropkick = false;
                 animation = animCon.getAnimation(lastIdleAnimationType);
             } else {
-                vx -= (vx > 0) ? (2 * (double) diffMillis) / 100 : 0;
+                vx -= (vx > 0) ? 2 * FIXED_ONE * diffMillis / 100 : 0;
                 prevX = this.x;
-                x += vx * diffMillis / 100;
+                x = move(x, vx, diffMillis, 100);
                 if (CollisionController.getInstance().getPlayerHitsWall(this.playerNumber)) {
                     this.x = prevX;
                     dropkick = false;
@@ -615,7 +612,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
     /**
      * HitBox Test method
      */
-    private void showHitBoxState(GraphicsContext gc, int testId) {
+    private void showHitBoxState(RenderFrame frame, int testId) {
         CollisionController colCon = CollisionController.getInstance();
         int[] playerWidthHeight = colCon.getPlayersWidthHeight();
 
@@ -625,7 +622,7 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                 if (this.getSwordObject() != null && !colCon.getNonStabAnimations().contains(this.getAnimation().getAnimationType())) {
                     int gripX;
                     int gripY;
-                    int swordLength = colCon.getSwordLength();
+                    int swordLength = CollisionController.getSwordLength();
                     if (this.directionType == DirectionType.RIGHT) {
                         gripX = (int) this.getAnimation().getCurrentFrame().getSwordStartPoint().getX();
                         gripY = (int) this.getAnimation().getCurrentFrame().getSwordStartPoint().getY();
@@ -638,46 +635,40 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
                         Debugger.log("SWORDS COLLIDING");
                     if (colCon.getPlayerHitOtherPlayer(this.playerNumber) && this.playerNumber == PlayerType.PLAYER_ONE) // Testing player1_hit_player2
                         Debugger.log("PLAYER1 HIT DETECTED");
-                    //recalculate coordinates
-                    Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(x, y);
-
-                    gc.setFill(Color.GREEN); // SwordMount
-                    gc.fillRect(drawPoint.getX() + gripX, drawPoint.getY() + gripY, 4, 4);
-                    gc.setFill(Color.PINK); // SwordTip
-                    gc.fillRect(drawPoint.getX() + gripX + swordLength, drawPoint.getY() + gripY, 4, 4);
+                    frame.fillRect(Color.GREEN, x + gripX, y + gripY, 4, 4); // SwordMount
+                    frame.fillRect(Color.PINK, x + gripX + swordLength, y + gripY, 4, 4); // SwordTip
                 }
             }
             // TESTING rectangleHitBox ----------------------------------------------------------------------------------------------------
             case 2 -> {
-                gc.setStroke(Color.GREEN);
+                Color stroke;
                 boolean playerOnGround = colCon.getPlayerOnGround(this.playerNumber);
                 boolean playerHitsWall = (colCon.getPlayerHitsWallLeft(this.playerNumber) || colCon.getPlayerHitsWallRight(this.playerNumber));
                 if (playerOnGround && playerHitsWall)
-                    gc.setStroke(Color.BLACK);
+                    stroke = Color.BLACK;
                 else if (playerOnGround)
-                    gc.setStroke(Color.RED);
+                    stroke = Color.RED;
                 else if (playerHitsWall)
-                    gc.setStroke(Color.BLUE);
+                    stroke = Color.BLUE;
                 else
-                    gc.setStroke(Color.GREEN);
+                    stroke = Color.GREEN;
                 Point2D[] playerXY = colCon.getRectHitBoxP1_P2();
-                Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(x, y);
-                gc.strokeRect(drawPoint.getX() + playerXY[0].getX(), drawPoint.getY() + playerXY[0].getY(), playerWidthHeight[0], playerWidthHeight[1]);
+                frame.strokeRect(stroke, x + playerXY[0].getX(), y + playerXY[0].getY(), playerWidthHeight[0], playerWidthHeight[1]);
             }
             // TESTING outLineHitBox ----------------------------------------------------------------------------------------------------
             case 3 -> {
-                gc.setFill(Color.ORANGE);
-                ArrayList<Point2D> hitBox;
-                int offset = 0;
-                if (this.directionType == DirectionType.RIGHT) {
-                    hitBox = this.getAnimation().getCurrentFrame().getHitBox();
-                } else {
-                    hitBox = this.getAnimation().getCurrentFrame().getHitBoxInverted();
-                    offset = playerWidthHeight[0] + 2;
-                }
-                for (Point2D point : hitBox) {
-                    Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(x, y);
-                    gc.fillRect(drawPoint.getX() + point.getX() - offset, drawPoint.getY() + point.getY(), 2, 2);
+                FrameData animationFrame = this.getAnimation().getCurrentFrame();
+                boolean inverted = this.directionType != DirectionType.RIGHT;
+                int offset = inverted ? playerWidthHeight[0] + 2 : 0;
+
+                for (int row = 0; row < animationFrame.getBufferedImage().getHeight(); row++) {
+                    for (int pointX : new int[]{animationFrame.getHitBoxLeft(row), animationFrame.getHitBoxRight(row)}) {
+                        if (pointX == FrameData.NO_HITBOX)
+                            continue;
+                        if (inverted)
+                            pointX = animationFrame.getWidth() - pointX;
+                        frame.fillRect(Color.ORANGE, x + pointX - offset, y + row, 2, 2);
+                    }
                 }
             }
         }
@@ -698,14 +689,11 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
     }
 
 
-    private void markPlayer(GraphicsContext gc, double x, double y) {
-        if (playerNumber == PlayerType.PLAYER_ONE)
-            gc.setFill(Color.CYAN);
-        else
-            gc.setFill(Color.ORANGERED);
-
+    private void markPlayer(RenderFrame frame, double x, double y) {
         int playerWidth = CollisionController.getInstance().getPlayersWidthHeight()[0];
-        gc.fillPolygon(new double[]{x + 10, x + 14, x - 14 + playerWidth, x - 10 + playerWidth, x + playerWidth / 2.0}, new double[]{y - 25, y - 18, y - 18, y - 25, y - 8}, 5);
+        double[] markerX = {x + 10, x + 14, x - 14 + playerWidth, x - 10 + playerWidth, x + playerWidth / 2.0};
+        double[] markerY = {y - 25, y - 18, y - 18, y - 25, y - 8};
+        frame.fillPolygon((playerNumber == PlayerType.PLAYER_ONE) ? Color.CYAN : Color.ORANGERED, markerX, markerY, 5);
     }
 
 
@@ -777,4 +765,124 @@ public class PlayerObject extends MoveableObject implements InputSystem, Particl
     public void setFistCounter(int counter) {
         this.fistCounter = counter;
     }
-}
\ No newline at end of file
+
+
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        x = state.x;
+        y = state.y;
+        vx = state.vx;
+        vy = state.vy;
+        directionType = state.directionType;
+        swordObject = state.swordObject;
+        dropkick = state.dropkick;
+        canAccelerate = state.canAccelerate;
+        onGround = state.onGround;
+        alive = state.alive;
+        deadAndMapChanged = state.deadAndMapChanged;
+        fistCounter = state.fistCounter;
+        fistTimer = state.fistTimer;
+        System.arraycopy(state.spread_blood, 0, spread_blood, 0, spread_blood.length);
+        time_passed = state.time_passed;
+        animation = state.animation;
+        animation.loadState(state.animationState);
+        lastIdleAnimationType = state.lastIdleAnimationType;
+        lastJumpAnimationType = state.lastJumpAnimationType;
+        currentObstacleStanding = state.currentObstacleStanding;
+    }
+
+    public static final class State {
+        private final int x, y;
+        private final int vx, vy;
+        private final DirectionType directionType;
+        private final SwordObject swordObject;
+        private final boolean dropkick, canAccelerate, onGround, alive, deadAndMapChanged;
+        private final int fistCounter, fistTimer;
+        private final boolean[] spread_blood;
+        private final double time_passed;
+        private final Animation animation;
+        private final Animation.State animationState;
+        private final AnimationType lastIdleAnimationType, lastJumpAnimationType;
+        private final RectangleObstacle currentObstacleStanding;
+
+        private State(PlayerObject p) {
+            x = p.x;
+            y = p.y;
+            vx = p.vx;
+            vy = p.vy;
+            directionType = p.directionType;
+            swordObject = p.swordObject;
+            dropkick = p.dropkick;
+            canAccelerate = p.canAccelerate;
+            onGround = p.onGround;
+            alive = p.alive;
+            deadAndMapChanged = p.deadAndMapChanged;
+            fistCounter = p.fistCounter;
+            fistTimer = p.fistTimer;
+            spread_blood = p.spread_blood.clone();
+            time_passed = p.time_passed;
+            animation = p.animation;
+            animationState = p.animation.saveState();
+            lastIdleAnimationType = p.lastIdleAnimationType;
+            lastJumpAnimationType = p.lastJumpAnimationType;
+            currentObstacleStanding = p.currentObstacleStanding;
+        }
+
+        public State(KeyframeReader in) {
+            x = in.readInt();
+            y = in.readInt();
+            vx = in.readInt();
+            vy = in.readInt();
+            directionType = in.readEnum(DirectionType.values());
+            swordObject = in.readSword();
+            dropkick = in.readBoolean();
+            canAccelerate = in.readBoolean();
+            onGround = in.readBoolean();
+            alive = in.readBoolean();
+            deadAndMapChanged = in.readBoolean();
+            fistCounter = in.readInt();
+            fistTimer = in.readInt();
+            spread_blood = new boolean[in.readInt()];
+            for (int i = 0; i < spread_blood.length; i++) {
+                spread_blood[i] = in.readBoolean();
+            }
+            time_passed = in.readDouble();
+            animation = in.readAnimation();
+            animationState = new Animation.State(in);
+            lastIdleAnimationType = in.readEnum(AnimationType.values());
+            lastJumpAnimationType = in.readEnum(AnimationType.values());
+            currentObstacleStanding = in.readObstacle();
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeInt(vx);
+            out.writeInt(vy);
+            out.writeEnum(directionType);
+            out.writeSword(swordObject);
+            out.writeBoolean(dropkick);
+            out.writeBoolean(canAccelerate);
+            out.writeBoolean(onGround);
+            out.writeBoolean(alive);
+            out.writeBoolean(deadAndMapChanged);
+            out.writeInt(fistCounter);
+            out.writeInt(fistTimer);
+            out.writeInt(spread_blood.length);
+            for (boolean blood : spread_blood) {
+                out.writeBoolean(blood);
+            }
+            out.writeDouble(time_passed);
+            out.writeAnimation(animation);
+            animationState.write(out);
+            out.writeEnum(lastIdleAnimationType);
+            out.writeEnum(lastJumpAnimationType);
+            out.writeObstacle(currentObstacleStanding);
+        }
+    }
+}
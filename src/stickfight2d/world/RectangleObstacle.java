@@ -1,11 +1,9 @@
 package stickfight2d.world;
 
-import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import stickfight2d.GameLoop;
-import stickfight2d.controllers.CameraController;
+import stickfight2d.MatchContext;
 import stickfight2d.misc.Config;
+import stickfight2d.render.RenderFrame;
 
 public class RectangleObstacle extends GameObject {
 
@@ -38,15 +36,16 @@ public class RectangleObstacle extends GameObject {
     }
 
     @Override
-    public void draw(GraphicsContext gc) {
-        if (!Config.debug_mode
-                || this.mapState != GameLoop.currentLevel.getBackground().getWorldState() && this.mapState >= 0
-                || this.mapState < 0 && !(GameLoop.currentLevel.getBackground().getWorldState() == 0 || GameLoop.currentLevel.getBackground().getWorldState() == 4))
+    public void draw(RenderFrame frame) {
+        if (!Config.debug_mode)
             return;
 
-        Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(x, y);
-        gc.setFill(this.color);
-        gc.fillRect(drawPoint.getX(), drawPoint.getY(), this.width, this.height);
+        WorldObject world = MatchContext.current().getWorld();
+        if (this.mapState != world.getBackground().getWorldState() && this.mapState >= 0
+                || this.mapState < 0 && !(world.getBackground().getWorldState() == 0 || world.getBackground().getWorldState() == world.getLevel().getLastScreen()))
+            return;
+
+        frame.fillRect(this.color, x, y, this.width, this.height);
     }
 
     // ----------------------------------------------------------------------------------------------------
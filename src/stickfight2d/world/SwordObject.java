@@ -1,19 +1,22 @@
 package stickfight2d.world;
 
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.GraphicsContext;
-import stickfight2d.GameLoop;
+import stickfight2d.MatchContext;
 import stickfight2d.animation.Animation;
 import stickfight2d.animation.FrameData;
 import stickfight2d.controllers.AnimationFactory;
-import stickfight2d.controllers.CameraController;
 import stickfight2d.enums.AnimationType;
 import stickfight2d.enums.DirectionType;
 import stickfight2d.enums.ParticleType;
 import stickfight2d.enums.PlayerType;
 import stickfight2d.interfaces.ParticleOwner;
+import stickfight2d.interfaces.Snapshotable;
+import stickfight2d.misc.Config;
+import stickfight2d.render.RenderFrame;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 
-public class SwordObject extends GameObject implements ParticleOwner {
+public class SwordObject extends GameObject implements ParticleOwner, Snapshotable<SwordObject.State> {
 
     private Animation animation = AnimationFactory.getInstance().getAnimation(AnimationType.SWORD);
     private PlayerObject playerObject;
@@ -28,12 +31,12 @@ public class SwordObject extends GameObject implements ParticleOwner {
     private int x0 = 0;
     private int y0 = 0;
 
-    private double diffSeconds = 0;
-    private double particleTimer = 0;
-    private double timePassedGround = 0;
+    private long diffSeconds = 0;
+    private long particleTimer = 0;
+    private long timePassedGround = 0;
     private double bounceOffSet = 0;
-    private double timePassedAir;
-    private double timePassedAirCoordinates;
+    private long timePassedAir;
+    private long timePassedAirCoordinates;
     private final static int SINGLE_ROTATION_TIME = 600; // 1seconds
 
     public SwordObject(int x, int y, DirectionType directionType, PlayerObject playerObject) {
@@ -42,7 +45,7 @@ public class SwordObject extends GameObject implements ParticleOwner {
         this.onGround = false;
         this.throwing = false;
         this.playerObject = playerObject;
-        this.vx = 200;
+        this.vx = 200 * FIXED_ONE;
 
         if (playerObject != null) {
             this.directionType = playerObject.getDirectionType();
@@ -61,21 +64,19 @@ public class SwordObject extends GameObject implements ParticleOwner {
                 directionType = playerObject.getDirectionType();    // Updating Direction
             }
             animation.update(diffSeconds);                          // Updating Animation
-            //updateFireParticles();                                // Update Fire Particles
+            if (Config.swordFireParticles) {
+                updateFireParticles();                              // Update Fire Particles
+            }
         }
         updateCoordinates();
     }
 
     @Override
-    public void draw(GraphicsContext gc) {
+    public void draw(RenderFrame frame) {
         if(playerObject != null && playerObject.isDeadAndMapChanged())
             return;
 
-        Point2D drawPoint = CameraController.getInstance().convertWorldToScreen(x, y);
-        switch (directionType) {
-            case LEFT -> FrameData.drawHorizontallyFlipped(gc, animation.getCurrentSprite(), (int) drawPoint.getX(), (int) drawPoint.getY());
-            case RIGHT -> gc.drawImage(animation.getCurrentSprite(), drawPoint.getX(), drawPoint.getY());
-        }
+        frame.drawSprite(animation.getCurrentFrame(), frame.interpolate(previousX, x), frame.interpolate(previousY, y), directionType == DirectionType.LEFT);
     }
 
 
@@ -84,13 +85,13 @@ public class SwordObject extends GameObject implements ParticleOwner {
         if (falling) {
             int swordOffset = (int) animation.getCurrentFrame().getSwordStartPoint().getX() + 10;
 
-            y -= vy * diffSeconds / 100;
+            y = move(y, -vy, diffSeconds, 100);
 
-            if (y < GameLoop.currentLevel.getGroundLevel() - swordOffset) {
-                vy -= (2 * diffSeconds) / 10;    //gravity
+            if (y < MatchContext.current().getWorld().getGroundLevel() - swordOffset) {
+                vy -= 2 * FIXED_ONE * diffSeconds / 10;    //gravity
             } else {
                 vy = 0;
-                y = GameLoop.currentLevel.getGroundLevel() - swordOffset;
+                y = MatchContext.current().getWorld().getGroundLevel() - swordOffset;
                 onGround = true;
                 falling = false;
                 playerObject = null;
@@ -148,7 +149,7 @@ public class SwordObject extends GameObject implements ParticleOwner {
                             (int) animation.getCurrentFrame().getSwordStartPoint().getX()+" + SwordSwordEndPointX="+endPoint.getX()+" Angle="+animation.getCurrentFrame().getAngle());
                 */
 
-                GameLoop.currentLevel.addGameObject(new ParticleEmitter(ParticleType.SWORD_FIRE, null, x_, y_, 1500, 2000, 1, 100, 90, 360, "#FFFFFF", 1));    // ##fc5a03
+                MatchContext.current().getWorld().addGameObject(new ParticleEmitter(ParticleType.SWORD_FIRE, null, x_, y_, 1500, 2000, 1, 100, 90, 360, 1));
                 particleTimer = 0;
             }
         }
@@ -157,18 +158,19 @@ public class SwordObject extends GameObject implements ParticleOwner {
 
     private void update_x(){
         if(directionType == DirectionType.RIGHT){
-            this.x = x0 + (int) (vx * timePassedAirCoordinates/1000);
+            this.x = x0 + (int) (vx * timePassedAirCoordinates / (1000L * FIXED_ONE));
         }else{
-            this.x = x0 + (int) (-vx * timePassedAirCoordinates/1000);
+            this.x = x0 + (int) (-vx * timePassedAirCoordinates / (1000L * FIXED_ONE));
         }
     }
 
     private void update_y(){
         int swordOffset = (int) animation.getCurrentFrame().getSwordStartPoint().getX() + 10;
-        if (y < GameLoop.currentLevel.getGroundLevel() - swordOffset) {
-            this.y = y0 + (int) (0.5 * 9.81 * Math.pow(timePassedAirCoordinates/1000, 2));
+        if (y < MatchContext.current().getWorld().getGroundLevel() - swordOffset) {
+            // 0.5 * 9.81 * t^2 with t in seconds, in integers
+            this.y = y0 + (int) (4905 * timePassedAirCoordinates * timePassedAirCoordinates / 1_000_000_000L);
         } else{
-            this.y = GameLoop.currentLevel.getGroundLevel() - swordOffset;
+            this.y = MatchContext.current().getWorld().getGroundLevel() - swordOffset;
             onGround = true;
             throwing = false;
 
@@ -182,14 +184,17 @@ public class SwordObject extends GameObject implements ParticleOwner {
             double a = 0.5;
             double w = 3;
 
-            currentAngle = (int) Math.round(Math.exp(-a * (timePassedGround / 150)) * Math.cos(w * timePassedGround / 150) * bounceStartAngle);
+            // StrictMath, so the bounce is the same on every JVM
+            currentAngle = (int) Math.round(StrictMath.exp(-a * (timePassedGround / 150.0)) * StrictMath.cos(w * timePassedGround / 150) * bounceStartAngle);
 
             // If angle is negative, the sword needs to be shifted in y direction
             if (currentAngle < 0) {
 
                 Point2D p1 = animation.getCurrentFrame().getSwordStartPoint();
                 Point2D p2 = animation.getCurrentFrame().getSwordEndPoint();
-                bounceOffSet = Math.sin(360+currentAngle) * Math.sqrt(Math.pow(p2.getX() - p1.getX(), 2) + Math.pow(p2.getY() - p1.getY(), 2));
+                double dx = p2.getX() - p1.getX();
+                double dy = p2.getY() - p1.getY();
+                bounceOffSet = StrictMath.sin(360+currentAngle) * StrictMath.sqrt(dx * dx + dy * dy);
             }
             animation = AnimationFactory.getInstance().getSwordAnimAngle(currentAngle);
 
@@ -203,7 +208,7 @@ public class SwordObject extends GameObject implements ParticleOwner {
                     timePassedAir = 0;
                 }
 
-                currentAngle = 360 - (int) Math.floor(timePassedAir / (double) (SINGLE_ROTATION_TIME/360));
+                currentAngle = 360 - (int) (timePassedAir / (SINGLE_ROTATION_TIME/360));
 
                 if(currentAngle <= 0){
                     timePassedAir = 0;
@@ -220,7 +225,7 @@ public class SwordObject extends GameObject implements ParticleOwner {
             double x_end = f.getSwordEndPoint().getX();
             double y_end = f.getSwordEndPoint().getY();
 
-            int nextAngle = (int) new Point2D(1, 0).angle(x_end - x_start, y_end - y_start);
+            int nextAngle = (int) angle(1, 0, x_end - x_start, y_end - y_start);
 
             if (currentAngle != nextAngle) {
                 currentAngle = nextAngle;
@@ -232,13 +237,25 @@ public class SwordObject extends GameObject implements ParticleOwner {
 
     private int calculateRotationAngle() {
         FrameData frameData = playerObject.getAnimation().getCurrentFrame();
-        return (int) frameData.getSwordStartPoint().angle(frameData.getSwordEndPoint());
+        Point2D start = frameData.getSwordStartPoint();
+        Point2D end = frameData.getSwordEndPoint();
+        return (int) angle(start.getX(), start.getY(), end.getX(), end.getY());
+    }
+
+    // Point2D.angle() with StrictMath, in degrees
+    private static double angle(double x1, double y1, double x2, double y2) {
+        double delta = (x1 * x2 + y1 * y2) / StrictMath.sqrt((x1 * x1 + y1 * y1) * (x2 * x2 + y2 * y2));
+        if (delta > 1.0)
+            return 0.0;
+        if (delta < -1.0)
+            return 180.0;
+        return Math.toDegrees(StrictMath.acos(delta));
     }
 
 
     public void fallToGround() {
         falling = true;
-        vy = -10;
+        vy = -10 * FIXED_ONE;
         bounceStartAngle = currentAngle;
     }
 
@@ -246,7 +263,7 @@ public class SwordObject extends GameObject implements ParticleOwner {
         if(playerObject != null){
             int startAngle = calculateRotationAngle();
             timePassedAirCoordinates = 0;
-            vx = 150;
+            vx = 150 * FIXED_ONE;
             timePassedAir = (int) (startAngle * SINGLE_ROTATION_TIME / 360);
             x0 = x;
             y0 = y;
@@ -304,4 +321,119 @@ public class SwordObject extends GameObject implements ParticleOwner {
     public boolean isClearCondition() {
         return false;
     }
+
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        x = state.x;
+        y = state.y;
+        vx = state.vx;
+        vy = state.vy;
+        directionType = state.directionType;
+        animation = state.animation;
+        animation.loadState(state.animationState);
+        playerObject = state.playerObject;
+        falling = state.falling;
+        onGround = state.onGround;
+        throwing = state.throwing;
+        currentAngle = state.currentAngle;
+        bounceStartAngle = state.bounceStartAngle;
+        x0 = state.x0;
+        y0 = state.y0;
+        diffSeconds = state.diffSeconds;
+        particleTimer = state.particleTimer;
+        timePassedGround = state.timePassedGround;
+        bounceOffSet = state.bounceOffSet;
+        timePassedAir = state.timePassedAir;
+        timePassedAirCoordinates = state.timePassedAirCoordinates;
+    }
+
+    public static final class State {
+        private final int x, y;
+        private final int vx, vy;
+        private final DirectionType directionType;
+        private final Animation animation;
+        private final Animation.State animationState;
+        private final PlayerObject playerObject;
+        private final boolean falling, onGround, throwing;
+        private final int currentAngle, bounceStartAngle, x0, y0;
+        private final long diffSeconds, particleTimer, timePassedGround, timePassedAir, timePassedAirCoordinates;
+        private final double bounceOffSet;
+
+        private State(SwordObject s) {
+            x = s.x;
+            y = s.y;
+            vx = s.vx;
+            vy = s.vy;
+            directionType = s.directionType;
+            animation = s.animation;
+            animationState = s.animation.saveState();
+            playerObject = s.playerObject;
+            falling = s.falling;
+            onGround = s.onGround;
+            throwing = s.throwing;
+            currentAngle = s.currentAngle;
+            bounceStartAngle = s.bounceStartAngle;
+            x0 = s.x0;
+            y0 = s.y0;
+            diffSeconds = s.diffSeconds;
+            particleTimer = s.particleTimer;
+            timePassedGround = s.timePassedGround;
+            bounceOffSet = s.bounceOffSet;
+            timePassedAir = s.timePassedAir;
+            timePassedAirCoordinates = s.timePassedAirCoordinates;
+        }
+
+        public State(KeyframeReader in) {
+            x = in.readInt();
+            y = in.readInt();
+            vx = in.readInt();
+            vy = in.readInt();
+            directionType = in.readEnum(DirectionType.values());
+            animation = in.readAnimation();
+            animationState = new Animation.State(in);
+            playerObject = in.readPlayer();
+            falling = in.readBoolean();
+            onGround = in.readBoolean();
+            throwing = in.readBoolean();
+            currentAngle = in.readInt();
+            bounceStartAngle = in.readInt();
+            x0 = in.readInt();
+            y0 = in.readInt();
+            diffSeconds = in.readLong();
+            particleTimer = in.readLong();
+            timePassedGround = in.readLong();
+            bounceOffSet = in.readDouble();
+            timePassedAir = in.readLong();
+            timePassedAirCoordinates = in.readLong();
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeInt(x);
+            out.writeInt(y);
+            out.writeInt(vx);
+            out.writeInt(vy);
+            out.writeEnum(directionType);
+            out.writeAnimation(animation);
+            animationState.write(out);
+            out.writePlayer(playerObject);
+            out.writeBoolean(falling);
+            out.writeBoolean(onGround);
+            out.writeBoolean(throwing);
+            out.writeInt(currentAngle);
+            out.writeInt(bounceStartAngle);
+            out.writeInt(x0);
+            out.writeInt(y0);
+            out.writeLong(diffSeconds);
+            out.writeLong(particleTimer);
+            out.writeLong(timePassedGround);
+            out.writeDouble(bounceOffSet);
+            out.writeLong(timePassedAir);
+            out.writeLong(timePassedAirCoordinates);
+        }
+    }
 }
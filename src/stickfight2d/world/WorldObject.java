@@ -1,49 +1,66 @@
 package stickfight2d.world;
 
-import javafx.scene.paint.Color;
-import stickfight2d.Main;
 import stickfight2d.controllers.KeyController;
 import stickfight2d.enums.DirectionType;
 import stickfight2d.enums.PlayerType;
+import stickfight2d.interfaces.Snapshotable;
+import stickfight2d.events.ParticleBurstEvent;
 import stickfight2d.misc.Config;
 import stickfight2d.misc.Debugger;
-import stickfight2d.misc.FPSObject;
+import stickfight2d.misc.ProfilerOverlay;
+import stickfight2d.replay.KeyframeReader;
+import stickfight2d.replay.KeyframeWriter;
 
 import java.time.temporal.ValueRange;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
 
-public class WorldObject {
+public class WorldObject implements Snapshotable<WorldObject.State> {
 
     private final ArrayList<GameObject> gameObjects = new ArrayList<>();
     private final ArrayList<GameObject> gameObjectsToAdd = new ArrayList<>();
     private final ArrayList<GameObject> gameObjectsToRemove = new ArrayList<>();
     private final Queue<SwordObject> swordObjects;
 
+    private final Level level;
     private final ArrayList<RectangleObstacle> grounds = new ArrayList<>();
     private BackgroundObject background;
 
     private PlayerObject player1, player2;
 
-    private final FPSObject fpsObject = new FPSObject();
+    private boolean effectsEnabled = true; // Particles, disabled while re-simulating ticks
+
+    private ProfilerOverlay profilerOverlay;
 
 
     public WorldObject(){
         swordObjects = new LinkedList<>();
-        fpsObject.setPrintMode(true);
+        level = Level.load(Config.LEVEL_PATH);
+
+        if (!Config.headless_mode) { // FPS display needs the stage
+            profilerOverlay = new ProfilerOverlay();
+        }
     }
 
     public void initObjects() {
-        player1 = new PlayerObject(275, 500, PlayerType.PLAYER_ONE, DirectionType.RIGHT, Config.keySet1);
-        player2 = new PlayerObject((int) Main.canvas.getWidth() - 275, 500, PlayerType.PLAYER_TWO, DirectionType.LEFT, Config.keySet2);
+        int start = level.getStartScreen();
+        player1 = new PlayerObject(level.getSpawnX(start, PlayerType.PLAYER_ONE), level.getSpawnY(start, PlayerType.PLAYER_ONE), PlayerType.PLAYER_ONE, DirectionType.RIGHT, Config.keySet1);
+        player2 = new PlayerObject(level.getSpawnX(start, PlayerType.PLAYER_TWO), level.getSpawnY(start, PlayerType.PLAYER_TWO), PlayerType.PLAYER_TWO, DirectionType.LEFT, Config.keySet2);
 
-        gameObjects.add(fpsObject);
+        if (profilerOverlay != null)
+            gameObjects.add(profilerOverlay);
 
-        background = new BackgroundObject(0,0,null);
+        background = new BackgroundObject(level);
         gameObjects.add(background);
 
-        gameObjects.addAll(getMapObstacles());
+        // Obstacles keep the order of the level file, the CollisionController relies on it (see ObstacleIndex)
+        RectangleObstacle[] obstacles = level.createObstacles();
+        gameObjects.addAll(Arrays.asList(obstacles));
+        for (int screen = 0; screen < level.getScreens(); screen++) {
+            grounds.add(obstacles[level.getGroundObstacle(screen)]);
+        }
 
         gameObjects.add(player1);
         gameObjects.add(player2);
@@ -51,93 +68,6 @@ public class WorldObject {
     }
 
 
-    private ArrayList<RectangleObstacle> getMapObstacles() {
-        ArrayList<RectangleObstacle> obstacles = new ArrayList<>();
-        int mapState = 0;
-        obstacles.add(new RectangleObstacle(-80, 0, 80, 810, Color.ORANGE, -1)); // Player1 block boundary
-        obstacles.add(new RectangleObstacle(340, 584, 14, 160, Color.ORANGE, -3)); // Player1 block cave
-
-        obstacles.add(new RectangleObstacle(1032, 0, 80, 810, Color.BLUE, -2)); // Player2 block boundary
-        obstacles.add(new RectangleObstacle(692 - 14, 584, 14, 160, Color.BLUE, -4)); // Player2 block cave
-
-        // Map 00
-        obstacles.add(new RectangleObstacle(130, 600, 74, 155, Color.GREEN, mapState)); // Left cave wall
-        obstacles.add(new RectangleObstacle(380, 532, 114, 40, Color.GREEN, mapState)); // Upper cave wall
-        obstacles.add(new RectangleObstacle(495, 532, 82, 22, Color.GREEN, mapState)); // Upper cave wall entrance
-        obstacles.add(new RectangleObstacle(320, 768, 24, 135, Color.GREEN, mapState)); // Cave stair 01 (from left to right)
-        obstacles.add(new RectangleObstacle(343, 744, 71, 810 - 744, Color.GREEN, mapState)); // Cave stair 02
-        obstacles.add(new RectangleObstacle(413, 720, 73, 810 - 720, Color.GREEN, mapState)); // Cave stair 03
-        obstacles.add(new RectangleObstacle(484, 696, 73, 810 - 696, Color.GREEN, mapState)); // Cave stair 04
-        obstacles.add(new RectangleObstacle(506, 671, 72, 810 - 671, Color.GREEN, mapState)); // Cave stair 05
-        obstacles.add(new RectangleObstacle(117, 808, 31, 101, Color.GREEN, mapState)); // Cave tunnel left wall
-        obstacles.add(new RectangleObstacle(497, 1044, 72, 810 * 2 - 671, Color.GREEN, mapState)); // Right cave wall
-        obstacles.add(new RectangleObstacle(-44, 1044, 50, 810 * 2 - 671, Color.GREEN, mapState)); // Left cave wall
-
-        obstacles.add(new RectangleObstacle(5,1323,495,810 * 2 - 1328, Color.PURPLE, mapState)); // cave ground
-        obstacles.add(new RectangleObstacle(577, 648, 456, 810 - 648, Color.PURPLE, mapState)); // ground
-        grounds.add(obstacles.get(obstacles.size() - 1));
-
-        mapState++;
-
-        // Map 01
-        obstacles.add(new RectangleObstacle(370, 624, 24, 30, Color.GREEN, mapState)); // Stair base 01 (from bottom to top)
-        obstacles.add(new RectangleObstacle(391, 575, 47, 80, Color.GREEN, mapState)); // Stair base 03
-        obstacles.add(new RectangleObstacle(437, 599, 47, 62, Color.GREEN, mapState)); // Stair base 02
-
-        obstacles.add(new RectangleObstacle(0, 648, (int) Main.canvas.getWidth(), 162, Color.PURPLE, mapState)); // ground
-        grounds.add(obstacles.get(obstacles.size() - 1));
-
-        mapState++;
-
-        // Map 02
-        obstacles.add(new RectangleObstacle(121, 624, 90, 30, Color.GREEN, mapState)); // Stair 01 left (from bottom to top)
-        obstacles.add(new RectangleObstacle(144, 601, 43, 30, Color.GREEN, mapState)); // Stair 02 left
-        obstacles.add(new RectangleObstacle(92, 568, 46, 10, Color.RED, mapState)); // Stair 03 left
-        obstacles.add(new RectangleObstacle(74, 531, 142, 10, Color.RED, mapState)); // Stair 04 left
-
-        obstacles.add(new RectangleObstacle(320, 549, 70, 15, Color.RED, mapState)); // Floating Island left
-        obstacles.add(new RectangleObstacle(457, 571, 118, 15, Color.RED, mapState)); // Floating Island middle
-        obstacles.add(new RectangleObstacle(641, 549, 70, 15, Color.RED, mapState)); // Floating Island right
-
-        obstacles.add(new RectangleObstacle(822, 625, 90, 30, Color.GREEN, mapState)); // Stair 01 right (from bottom to top)
-        obstacles.add(new RectangleObstacle(845, 601, 43, 30, Color.GREEN, mapState)); // Stair 02 right
-        obstacles.add(new RectangleObstacle(893, 568, 46, 10, Color.RED, mapState)); // Stair 03 right
-        obstacles.add(new RectangleObstacle(815, 531, 142, 10, Color.RED, mapState)); // Stair 04 right
-
-        obstacles.add(new RectangleObstacle(0, 648, (int) Main.canvas.getWidth(), 162, Color.PURPLE, mapState)); // ground
-        grounds.add(obstacles.get(obstacles.size() - 1));
-
-        mapState++;
-
-        // Map 03
-        obstacles.add(new RectangleObstacle(551, 601, 47, 62, Color.GREEN, mapState)); // Stair base 02 (from bottom to top)
-        obstacles.add(new RectangleObstacle(596, 576, 47, 80, Color.GREEN, mapState)); // Stair base 03
-        obstacles.add(new RectangleObstacle(642, 624, 24, 30, Color.GREEN, mapState)); // Stair base 01
-
-        obstacles.add(new RectangleObstacle(0, 648, (int) Main.canvas.getWidth(), 162, Color.PURPLE, mapState)); // ground
-        grounds.add(obstacles.get(obstacles.size() - 1));
-
-        mapState++;
-        // Map 04
-        obstacles.add(new RectangleObstacle(902 - 74, 600, 74, 155, Color.GREEN, mapState)); // Left cave wall
-        obstacles.add(new RectangleObstacle(652 - 114, 532, 114, 40, Color.GREEN, mapState)); // Upper cave wall
-        obstacles.add(new RectangleObstacle(537 - 82, 532, 82, 22, Color.GREEN, mapState)); // Upper cave wall entrance
-        obstacles.add(new RectangleObstacle(712 - 24, 768, 24, 135, Color.GREEN, mapState)); // Cave stair 01 (from right to left)
-        obstacles.add(new RectangleObstacle(689 - 71, 744, 71, 810 - 744, Color.GREEN, mapState)); // Cave stair 02
-        obstacles.add(new RectangleObstacle(619 - 73, 720, 73, 810 - 720, Color.GREEN, mapState)); // Cave stair 03
-        obstacles.add(new RectangleObstacle(548 - 73, 696, 73, 810 - 696, Color.GREEN, mapState)); // Cave stair 04
-        obstacles.add(new RectangleObstacle(526 - 72, 671, 72, 810 - 671, Color.GREEN, mapState)); // Cave stair 05
-        obstacles.add(new RectangleObstacle(915 - 31, 808, 31, 101, Color.GREEN, mapState)); // Cave tunnel left wall
-        obstacles.add(new RectangleObstacle(535 - 72, 1044, 72, 810 * 2 - 671, Color.GREEN, mapState)); // Right cave wall
-        obstacles.add(new RectangleObstacle(1076 - 50, 1044, 50, 810 * 2 - 671, Color.GREEN, mapState)); // Left cave wall
-
-        obstacles.add(new RectangleObstacle(1027 - 495,1323,495,810 * 2 - 1328, Color.PURPLE, mapState)); // cave ground
-        obstacles.add(new RectangleObstacle(0, 648, 455, 810 - 648, Color.PURPLE, mapState)); // ground
-        grounds.add(obstacles.get(obstacles.size() - 1));
-
-        return obstacles;
-    }
-
     public void takeSwordFromGround(PlayerObject p){
         int playerMiddle = p.x + 32;
 
@@ -193,18 +123,30 @@ public class WorldObject {
         return getGround().getY();
     }
 
+    public Level getLevel() {
+        return level;
+    }
+
     public BackgroundObject getBackground(){
         return background;
     }
 
-    public FPSObject getFpsObject() {
-        return fpsObject;
+    public ProfilerOverlay getProfilerOverlay() {
+        return profilerOverlay;
     }
 
     public RectangleObstacle getGround() {
         return grounds.get(background.getWorldState());
     }
 
+    public boolean isEffectsEnabled() {
+        return effectsEnabled;
+    }
+
+    public void setEffectsEnabled(boolean effectsEnabled) {
+        this.effectsEnabled = effectsEnabled;
+    }
+
     public PlayerObject getPlayer1() {
         return player1;
     }
@@ -233,6 +175,11 @@ public class WorldObject {
     }
 
     public void addGameObject(GameObject gameObject){
+        // Particles are purely visual, nobody sees them in headless mode
+        if ((!effectsEnabled || Config.headless_mode) && gameObject instanceof ParticleEmitter)
+            return;
+        if (gameObject instanceof ParticleEmitter emitter)
+            ParticleBurstEvent.commit(emitter.getParticleType(), emitter.getAmount());
         gameObjectsToAdd.add(gameObject);
     }
 
@@ -246,4 +193,151 @@ public class WorldObject {
         gameObjectsToRemove.clear();
         gameObjectsToAdd.clear();
     }
+
+    /**
+     * Saves the objects of the world and the states of background, players and swords.
+     * Particles are only visual and are neither saved nor restored.
+     */
+    @Override
+    public State saveState() {
+        return new State(this);
+    }
+
+    @Override
+    public void loadState(State state) {
+        ArrayList<GameObject> particleEmitters = new ArrayList<>();
+        for (GameObject obj : gameObjects) {
+            if (obj instanceof ParticleEmitter)
+                particleEmitters.add(obj);
+        }
+
+        gameObjects.clear();
+        gameObjects.addAll(state.gameObjects);
+        gameObjects.addAll(particleEmitters);
+        gameObjectsToAdd.clear();
+        gameObjectsToAdd.addAll(state.gameObjectsToAdd);
+        gameObjectsToRemove.clear();
+        gameObjectsToRemove.addAll(state.gameObjectsToRemove);
+        swordObjects.clear();
+        swordObjects.addAll(state.swordObjects);
+
+        background.loadState(state.background);
+        player1.loadState(state.player1);
+        player2.loadState(state.player2);
+        for (int i = 0; i < state.swords.size(); i++) {
+            state.swords.get(i).loadState(state.swordStates.get(i));
+        }
+    }
+
+    public static final class State {
+        private final ArrayList<GameObject> gameObjects = new ArrayList<>();
+        private final ArrayList<GameObject> gameObjectsToAdd = new ArrayList<>();      // Pending, e.g. the first swords before the first tick
+        private final ArrayList<GameObject> gameObjectsToRemove = new ArrayList<>();
+        private final ArrayList<SwordObject> swordObjects;
+        private final BackgroundObject.State background;
+        private final PlayerObject.State player1, player2;
+        private final ArrayList<SwordObject> swords = new ArrayList<>();
+        private final ArrayList<SwordObject.State> swordStates = new ArrayList<>();
+
+        private State(WorldObject w) {
+            saveObjects(w.gameObjects, gameObjects);
+            saveObjects(w.gameObjectsToAdd, gameObjectsToAdd);
+            saveObjects(w.gameObjectsToRemove, gameObjectsToRemove);
+            swordObjects = new ArrayList<>(w.swordObjects);
+            for (SwordObject sword : swordObjects) {
+                saveSword(sword);
+            }
+
+            // A player can still hold a sword the world no longer lists
+            for (PlayerObject player : new PlayerObject[]{w.player1, w.player2}) {
+                if (player.getSwordObject() != null)
+                    saveSword(player.getSwordObject());
+            }
+
+            background = w.background.saveState();
+            player1 = w.player1.saveState();
+            player2 = w.player2.saveState();
+        }
+
+        /**
+         * The profiler overlay is not part of a keyframe, the overlay of the reading world is kept in front
+         */
+        public State(KeyframeReader in) {
+            WorldObject w = in.getWorld();
+            swords.addAll(in.readSwords());
+            if (w.profilerOverlay != null)
+                gameObjects.add(w.profilerOverlay);
+            readObjects(in, gameObjects);
+            readObjects(in, gameObjectsToAdd);
+            readObjects(in, gameObjectsToRemove);
+            swordObjects = new ArrayList<>();
+            int queuedSwords = in.readInt();
+            for (int i = 0; i < queuedSwords; i++) {
+                swordObjects.add(in.readSword());
+            }
+
+            background = new BackgroundObject.State(in);
+            player1 = new PlayerObject.State(in);
+            player2 = new PlayerObject.State(in);
+            for (int i = 0; i < swords.size(); i++) {
+                swordStates.add(new SwordObject.State(in));
+            }
+        }
+
+        public void write(KeyframeWriter out) {
+            out.writeSwords(swords);
+            writeObjects(out, gameObjects);
+            writeObjects(out, gameObjectsToAdd);
+            writeObjects(out, gameObjectsToRemove);
+            out.writeInt(swordObjects.size());
+            for (SwordObject sword : swordObjects) {
+                out.writeSword(sword);
+            }
+
+            background.write(out);
+            player1.write(out);
+            player2.write(out);
+            for (SwordObject.State swordState : swordStates) {
+                swordState.write(out);
+            }
+        }
+
+        private static void readObjects(KeyframeReader in, ArrayList<GameObject> to) {
+            int objects = in.readInt();
+            for (int i = 0; i < objects; i++) {
+                to.add(in.readObject());
+            }
+        }
+
+        private static void writeObjects(KeyframeWriter out, ArrayList<GameObject> objects) {
+            int count = 0;
+            for (GameObject obj : objects) {
+                if (!(obj instanceof ProfilerOverlay))
+                    count++;
+            }
+            out.writeInt(count);
+            for (GameObject obj : objects) {
+                if (!(obj instanceof ProfilerOverlay))
+                    out.writeObject(obj);
+            }
+        }
+
+        private void saveObjects(ArrayList<GameObject> from, ArrayList<GameObject> to) {
+            for (GameObject obj : from) {
+                if (obj instanceof ParticleEmitter)
+                    continue;
+                to.add(obj);
+
+                if (obj instanceof SwordObject)
+                    saveSword((SwordObject) obj);
+            }
+        }
+
+        private void saveSword(SwordObject sword) {
+            if (!swords.contains(sword)) {
+                swords.add(sword);
+                swordStates.add(sword.saveState());
+            }
+        }
+    }
 }